@@ -0,0 +1,28 @@
+package com.rjtmahinay.flight.benchmark;
+
+import com.rjtmahinay.flight.config.SyntheticSchedule;
+import com.rjtmahinay.flight.model.Flight;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * In-memory flight fixtures shared by the benchmarks that do not touch the database.
+ */
+final class BenchmarkFlights {
+
+    private BenchmarkFlights() {
+    }
+
+    static List<Flight> of(int size) {
+        List<Flight> flights = SyntheticSchedule.flights(size, LocalDate.of(2025, 9, 1), 42).collectList().block();
+        for (int i = 0; i < flights.size(); i++) {
+            Flight flight = flights.get(i);
+            flight.setId((long) i + 1);
+            if (i % 5 == 0) {
+                flight.setStatus("DELAYED");
+            }
+        }
+        return flights;
+    }
+}
@@ -0,0 +1,79 @@
+package com.rjtmahinay.flight.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.rjtmahinay.flight.codec.BinaryCodecs;
+import com.rjtmahinay.flight.dto.FlightStatusResponse;
+import com.rjtmahinay.flight.model.Flight;
+import com.rjtmahinay.flight.service.FlightStatusProjection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding search results as JSON, CBOR and Smile, with the object mappers the
+ * application registers for each. Payload sizes are printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BinaryFormatBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    private int size;
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    private ObjectMapper mapper;
+    private ObjectReader flightsReader;
+    private List<Flight> flights;
+    private FlightStatusResponse statusResponse;
+    private byte[] encodedFlights;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        mapper = switch (format) {
+            case "json" -> Jackson2ObjectMapperBuilder.json().build();
+            case "cbor" -> BinaryCodecs.cborMapper(new Jackson2ObjectMapperBuilder());
+            case "smile" -> BinaryCodecs.smileMapper(new Jackson2ObjectMapperBuilder());
+            default -> throw new IllegalArgumentException("Unknown format " + format);
+        };
+        flightsReader = mapper.readerForListOf(Flight.class);
+        flights = BenchmarkFlights.of(size);
+
+        FlightStatusProjection projection = new FlightStatusProjection();
+        statusResponse = new FlightStatusResponse("Success", "Flight status retrieved successfully.",
+                flights.stream().map(projection::toStatus).toList());
+
+        encodedFlights = mapper.writeValueAsBytes(flights);
+        System.out.printf("%n%s, %d flights: %d bytes, status response: %d bytes%n",
+                format, size, encodedFlights.length, mapper.writeValueAsBytes(statusResponse).length);
+    }
+
+    @Benchmark
+    public byte[] encodeFlights() throws IOException {
+        return mapper.writeValueAsBytes(flights);
+    }
+
+    @Benchmark
+    public List<Flight> decodeFlights() throws IOException {
+        return flightsReader.readValue(encodedFlights);
+    }
+
+    @Benchmark
+    public byte[] encodeStatusResponse() throws IOException {
+        return mapper.writeValueAsBytes(statusResponse);
+    }
+}
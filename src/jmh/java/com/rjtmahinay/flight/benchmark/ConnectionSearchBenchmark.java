@@ -0,0 +1,65 @@
+package com.rjtmahinay.flight.benchmark;
+
+import com.rjtmahinay.flight.config.SyntheticSchedule;
+import com.rjtmahinay.flight.index.RouteIndex;
+import com.rjtmahinay.flight.index.RouteIndexProperties;
+import com.rjtmahinay.flight.model.Flight;
+import com.rjtmahinay.flight.repository.FlightRepository;
+import com.rjtmahinay.flight.service.ConnectionSearchService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ConnectionSearchService} over an in-memory synthetic schedule.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ConnectionSearchBenchmark {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2025, 9, 1);
+
+    @Param({"10000", "100000"})
+    private int flights;
+
+    @Param({"0", "1", "2"})
+    private int maxStops;
+
+    private ConnectionSearchService connectionSearchService;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Flight> schedule = BenchmarkFlights.of(flights);
+        FlightRepository flightRepository = Mockito.mock(FlightRepository.class);
+        Mockito.when(flightRepository.findAll()).thenReturn(Flux.fromIterable(schedule));
+        RouteIndex routeIndex = new RouteIndex(flightRepository, new RouteIndexProperties(), new SimpleMeterRegistry());
+        routeIndex.reload().block();
+        connectionSearchService = new ConnectionSearchService(routeIndex);
+    }
+
+    @Benchmark
+    public List<ConnectionSearchService.Itinerary> search() {
+        int i = next++;
+        List<String> airports = SyntheticSchedule.AIRPORTS;
+        String origin = airports.get(i % airports.size());
+        String destination = airports.get((i + 1 + (i / airports.size()) % (airports.size() - 1)) % airports.size());
+        return connectionSearchService.search(origin, destination, FIRST_DAY.plusDays(i % SyntheticSchedule.DAYS),
+                maxStops, Duration.ofMinutes(45), Duration.ofHours(6), 20);
+    }
+}
@@ -0,0 +1,94 @@
+package com.rjtmahinay.flight.benchmark;
+
+import com.rjtmahinay.flight.FlightServiceApplication;
+import com.rjtmahinay.flight.config.DataInitializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of a light request ({@code GET /api/flights/{id}/availability}) while other clients
+ * keep fetching 1000-flight pages, with page encoding on the event loop or offloaded. Two
+ * event loops make stalls visible; compare the sampled percentiles between the modes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OffloadIsolationBenchmark {
+
+    private static final int FLIGHTS = 20_000;
+    private static final int HEAVY_CLIENTS = 8;
+
+    @Param({"none", "bounded-elastic"})
+    private String offload;
+
+    private ConfigurableApplicationContext context;
+    private ExecutorService heavyClients;
+    private volatile boolean running;
+    private HttpClient httpClient;
+    private HttpRequest light;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        System.setProperty("reactor.netty.ioWorkerCount", "2");
+        context = new SpringApplicationBuilder(FlightServiceApplication.class)
+                .run("--server.port=0",
+                        "--spring.r2dbc.url=r2dbc:h2:mem:///offload-benchmark;DB_CLOSE_DELAY=-1",
+                        "--spring.flyway.url=jdbc:h2:mem:offload-benchmark;DB_CLOSE_DELAY=-1",
+                        "--flight.seed.enabled=true",
+                        "--flight.ingest.seed-flights=" + FLIGHTS,
+                        "--flight.offload.mode=" + offload,
+                        "--logging.level.root=WARN");
+        context.getBean(DataInitializer.class).seeded().block();
+        String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/flights";
+
+        httpClient = HttpClient.newHttpClient();
+        light = HttpRequest.newBuilder(URI.create(base + "/1/availability")).build();
+        HttpRequest heavy = HttpRequest.newBuilder(URI.create(base + "?size=1000")).build();
+        running = true;
+        heavyClients = Executors.newFixedThreadPool(HEAVY_CLIENTS);
+        for (int i = 0; i < HEAVY_CLIENTS; i++) {
+            heavyClients.execute(() -> {
+                while (running) {
+                    try {
+                        httpClient.send(heavy, HttpResponse.BodyHandlers.discarding());
+                    } catch (IOException | InterruptedException e) {
+                        return;
+                    }
+                }
+            });
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        running = false;
+        heavyClients.shutdown();
+        heavyClients.awaitTermination(10, TimeUnit.SECONDS);
+        context.close();
+        System.clearProperty("reactor.netty.ioWorkerCount");
+    }
+
+    @Benchmark
+    public int lightRequest() throws IOException, InterruptedException {
+        return httpClient.send(light, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
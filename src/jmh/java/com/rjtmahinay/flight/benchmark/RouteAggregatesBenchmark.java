@@ -0,0 +1,73 @@
+package com.rjtmahinay.flight.benchmark;
+
+import com.rjtmahinay.flight.dto.RouteAggregate;
+import com.rjtmahinay.flight.event.FlightChangedEvent;
+import com.rjtmahinay.flight.index.RouteAggregates;
+import com.rjtmahinay.flight.index.RouteIndex;
+import com.rjtmahinay.flight.index.RouteIndexProperties;
+import com.rjtmahinay.flight.model.Flight;
+import com.rjtmahinay.flight.repository.FlightRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aggregating the route-days of the route index. Every invocation is preceded by a change to
+ * one flight, so {@code scanAfterWrite} recomputes one route-day and the other scans mostly
+ * reuse cached aggregates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RouteAggregatesBenchmark {
+
+    @Param({"100000", "1000000"})
+    private int flights;
+
+    private List<Flight> schedule;
+    private RouteIndex routeIndex;
+    private RouteAggregates routeAggregates;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        schedule = BenchmarkFlights.of(flights);
+        FlightRepository flightRepository = Mockito.mock(FlightRepository.class);
+        Mockito.when(flightRepository.findAll()).thenReturn(Flux.fromIterable(schedule));
+        routeIndex = new RouteIndex(flightRepository, new RouteIndexProperties(), new SimpleMeterRegistry());
+        routeIndex.reload().block();
+        routeAggregates = new RouteAggregates(routeIndex);
+        routeAggregates.scan(null, null, null, null);
+    }
+
+    // Outside the measurement: updating the index itself is not part of the scan
+    @Setup(Level.Invocation)
+    public void changeOneFlight() {
+        Flight flight = schedule.get(next++ % schedule.size());
+        flight.setAvailableSeats(flight.getAvailableSeats() ^ 1);
+        routeIndex.onFlightChanged(new FlightChangedEvent(FlightChangedEvent.Type.UPDATED, flight));
+    }
+
+    @Benchmark
+    public List<RouteAggregate> scanAfterWrite() {
+        return routeAggregates.scan(null, null, null, null);
+    }
+
+    @Benchmark
+    public List<RouteAggregate> scanOneRouteMonth() {
+        return routeAggregates.scan("JFK", "LAX", LocalDate.of(2025, 9, 1), LocalDate.of(2025, 9, 30));
+    }
+}
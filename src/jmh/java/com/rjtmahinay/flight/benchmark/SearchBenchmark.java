@@ -0,0 +1,98 @@
+package com.rjtmahinay.flight.benchmark;
+
+import com.rjtmahinay.flight.FlightServiceApplication;
+import com.rjtmahinay.flight.config.DataInitializer;
+import com.rjtmahinay.flight.config.SyntheticSchedule;
+import com.rjtmahinay.flight.index.RouteIndex;
+import com.rjtmahinay.flight.model.Flight;
+import com.rjtmahinay.flight.service.FlightService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end {@link FlightService#searchFlights} against an in-memory H2 database seeded with
+ * a synthetic schedule, with and without the route index. Query coalescing is off, so without
+ * the index every search runs its SQL query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SearchBenchmark {
+
+    private static final int QUERIES = 1024;
+
+    @Param({"1000", "100000"})
+    private int flights;
+
+    @Param({"false", "true"})
+    private boolean routeIndex;
+
+    private ConfigurableApplicationContext context;
+    private FlightService flightService;
+    private String[] origins;
+    private String[] destinations;
+    private LocalDateTime[] dates;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        context = new SpringApplicationBuilder(FlightServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.r2dbc.url=r2dbc:h2:mem:///search-benchmark;DB_CLOSE_DELAY=-1",
+                        "--spring.flyway.url=jdbc:h2:mem:search-benchmark;DB_CLOSE_DELAY=-1",
+                        "--flight.seed.enabled=true",
+                        "--flight.ingest.seed-flights=" + flights,
+                        "--flight.route-index.enabled=" + routeIndex,
+                        // 1024 queries cycle well within the ttl, so coalescing would answer
+                        // the database case from memory too
+                        "--flight.coalescing.enabled=false",
+                        "--logging.level.root=WARN");
+        flightService = context.getBean(FlightService.class);
+        context.getBean(DataInitializer.class).seeded().block();
+        RouteIndex index = context.getBean(RouteIndex.class);
+        while (routeIndex && !index.isServing()) {
+            Thread.sleep(10);
+        }
+
+        Random random = new Random(7);
+        List<String> airports = SyntheticSchedule.AIRPORTS;
+        LocalDate firstDay = LocalDate.now().plusDays(1);
+        origins = new String[QUERIES];
+        destinations = new String[QUERIES];
+        dates = new LocalDateTime[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            int origin = random.nextInt(airports.size());
+            origins[i] = airports.get(origin);
+            destinations[i] = airports.get((origin + 1 + random.nextInt(airports.size() - 1)) % airports.size());
+            dates[i] = firstDay.plusDays(random.nextInt(SyntheticSchedule.DAYS)).atTime(12, 0);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Flight> searchFlights() {
+        int i = next++ & (QUERIES - 1);
+        return flightService.searchFlights(origins[i], destinations[i], dates[i]).collectList().block();
+    }
+}
@@ -0,0 +1,57 @@
+package com.rjtmahinay.flight.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rjtmahinay.flight.dto.FlightStatusResponse;
+import com.rjtmahinay.flight.model.Flight;
+import com.rjtmahinay.flight.service.FlightStatusProjection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the payloads the flight endpoints return, using the same
+ * {@link ObjectMapper} defaults Spring Boot configures for WebFlux.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SerializationBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private List<Flight> flights;
+    private FlightStatusResponse statusResponse;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        flights = BenchmarkFlights.of(size);
+
+        FlightStatusProjection projection = new FlightStatusProjection();
+        statusResponse = new FlightStatusResponse("Success", "Flight status retrieved successfully.",
+                flights.stream().map(projection::toStatus).toList());
+    }
+
+    @Benchmark
+    public byte[] serializeFlights() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(flights);
+    }
+
+    @Benchmark
+    public byte[] serializeStatusResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(statusResponse);
+    }
+}
@@ -0,0 +1,125 @@
+package com.rjtmahinay.flight.benchmark;
+
+import com.rjtmahinay.flight.config.SyntheticSchedule;
+import com.rjtmahinay.flight.index.RouteIndex;
+import com.rjtmahinay.flight.index.RouteIndexProperties;
+import com.rjtmahinay.flight.model.Flight;
+import com.rjtmahinay.flight.repository.FlightRepository;
+import com.rjtmahinay.flight.snapshot.ScheduleSnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warm start, route-day search and a full price scan over a {@link ScheduleSnapshot} compared
+ * with the {@link RouteIndex} built from boxed flights. Run with {@code -prof gc} to compare
+ * allocation; the snapshot file size is printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SnapshotBenchmark {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2025, 9, 1);
+
+    @Param({"100000", "1000000"})
+    private int flights;
+
+    private List<Flight> schedule;
+    private FlightRepository flightRepository;
+    private Path path;
+    private ScheduleSnapshot snapshot;
+    private RouteIndex routeIndex;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        schedule = BenchmarkFlights.of(flights);
+        flightRepository = Mockito.mock(FlightRepository.class);
+        Mockito.when(flightRepository.findAll()).thenAnswer(invocation -> Flux.fromIterable(schedule));
+        routeIndex = loadRouteIndex();
+
+        path = Files.createTempFile("flights", ".snapshot");
+        ScheduleSnapshot.write(path, schedule, Instant.now());
+        snapshot = ScheduleSnapshot.open(path);
+        System.out.printf("%n%d flights: snapshot of %d bytes%n", flights, Files.size(path));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public ScheduleSnapshot openSnapshot() throws IOException {
+        return ScheduleSnapshot.open(path);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public RouteIndex loadRouteIndex() {
+        RouteIndex index = new RouteIndex(flightRepository, new RouteIndexProperties(), new SimpleMeterRegistry());
+        index.reload().block();
+        return index;
+    }
+
+    @Benchmark
+    public Flight[] searchSnapshot() {
+        int i = next++;
+        return snapshot.find(origin(i), destination(i), FIRST_DAY.plusDays(i % SyntheticSchedule.DAYS));
+    }
+
+    @Benchmark
+    public Flight[] searchRouteIndex() {
+        int i = next++;
+        return routeIndex.find(origin(i), destination(i), FIRST_DAY.plusDays(i % SyntheticSchedule.DAYS));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public double minPriceSnapshot() {
+        double min = Double.MAX_VALUE;
+        for (int row = 0; row < snapshot.size(); row++) {
+            min = Math.min(min, snapshot.price(row));
+        }
+        return min;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public double minPriceFlights() {
+        double min = Double.MAX_VALUE;
+        for (Flight flight : schedule) {
+            min = Math.min(min, flight.getPrice());
+        }
+        return min;
+    }
+
+    private static String origin(int i) {
+        return SyntheticSchedule.AIRPORTS.get(i % SyntheticSchedule.AIRPORTS.size());
+    }
+
+    private static String destination(int i) {
+        List<String> airports = SyntheticSchedule.AIRPORTS;
+        return airports.get((i + 1 + (i / airports.size()) % (airports.size() - 1)) % airports.size());
+    }
+}
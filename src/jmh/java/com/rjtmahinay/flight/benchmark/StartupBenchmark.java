@@ -0,0 +1,147 @@
+package com.rjtmahinay.flight.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from process launch to the first successful search, for the packaged jar on a plain
+ * JVM, the same jar with an AppCDS archive, and the GraalVM native executable.
+ * <p>
+ * Package first ({@code mvn package -DskipTests}, plus {@code mvn -Pnative native:compile}
+ * for the native mode), then run {@code mvn -Pjmh test-compile exec:exec -Djmh.args="StartupBenchmark"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+public class StartupBenchmark {
+
+    private static final Path TARGET = Path.of(System.getProperty("startup.target", "target"));
+    private static final String JAR = "flight-service-0.0.1-SNAPSHOT.jar";
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(60);
+
+    @Param({"jvm", "cds", "native"})
+    private String mode;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofMillis(200))
+            .build();
+    private List<String> command;
+    private Process process;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Path jar = TARGET.resolve(JAR);
+        switch (mode) {
+            case "jvm" -> command = List.of(java(), "-jar", require(jar).toString());
+            case "cds" -> {
+                Path extracted = TARGET.resolve("startup-cds");
+                Path archive = extracted.resolve("application.jsa");
+                run(java(), "-Djarmode=tools", "-jar", require(jar).toString(),
+                        "extract", "--force", "--destination", extracted.toString());
+                // Training run: refresh the context once and dump the loaded classes on exit
+                run(java(), "-XX:ArchiveClassesAtExit=" + archive, "-Dspring.context.exit=onRefresh",
+                        "-jar", extracted.resolve(JAR).toString());
+                command = List.of(java(), "-XX:SharedArchiveFile=" + archive,
+                        "-jar", extracted.resolve(JAR).toString());
+            }
+            case "native" -> command = List.of(require(TARGET.resolve("flight-service")).toString());
+            default -> throw new IllegalArgumentException("Unknown mode " + mode);
+        }
+    }
+
+    @Benchmark
+    public int firstSearch() throws Exception {
+        int port = freePort();
+        List<String> launch = new ArrayList<>(command);
+        launch.add("--server.port=" + port);
+        process = new ProcessBuilder(launch)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+
+        HttpRequest search = HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + port + "/api/flights/search?origin=JFK&destination=LAX"))
+                .timeout(Duration.ofSeconds(5))
+                .build();
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Application exited with " + process.exitValue());
+            }
+            try {
+                HttpResponse<Void> response = httpClient.send(search, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() == 200) {
+                    return response.statusCode();
+                }
+            } catch (IOException notListeningYet) {
+                // keep polling
+            }
+            Thread.sleep(10);
+        }
+        throw new IllegalStateException("No successful search within " + STARTUP_TIMEOUT);
+    }
+
+    @TearDown(Level.Invocation)
+    public void stop() throws InterruptedException {
+        if (process != null) {
+            process.destroy();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+            process = null;
+        }
+    }
+
+    private static String java() {
+        return Path.of(System.getProperty("java.home"), "bin", "java").toString();
+    }
+
+    private static Path require(Path artifact) {
+        if (!Files.isRegularFile(artifact)) {
+            throw new IllegalStateException(artifact + " not found; build it before running this benchmark");
+        }
+        return artifact;
+    }
+
+    private static void run(String... command) throws IOException, InterruptedException {
+        int exit = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start()
+                .waitFor();
+        if (exit != 0) {
+            throw new IllegalStateException(String.join(" ", command) + " exited with " + exit);
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
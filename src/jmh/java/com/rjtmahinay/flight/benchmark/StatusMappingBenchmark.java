@@ -0,0 +1,87 @@
+package com.rjtmahinay.flight.benchmark;
+
+import com.rjtmahinay.flight.controller.FlightController;
+import com.rjtmahinay.flight.dto.FlightStatusRequest;
+import com.rjtmahinay.flight.dto.FlightStatusResponse;
+import com.rjtmahinay.flight.model.Flight;
+import com.rjtmahinay.flight.offload.OffloadProperties;
+import com.rjtmahinay.flight.offload.Offloader;
+import com.rjtmahinay.flight.service.FlightService;
+import com.rjtmahinay.flight.service.FlightStatusProjection;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+
+/**
+ * Cost of turning flights into {@link FlightStatusResponse.FlightStatus} entries, on its own
+ * and through {@code POST /api/flights/status} with the database replaced by an in-memory
+ * result, with the mapping on the calling thread or offloaded. Run with {@code -prof gc}
+ * to see the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StatusMappingBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int size;
+
+    @Param({"NONE", "BOUNDED_ELASTIC"})
+    private OffloadProperties.Mode offload;
+
+    private List<Flight> flights;
+    private FlightStatusProjection projection;
+    private Offloader offloader;
+    private FlightController controller;
+    private FlightStatusRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        flights = BenchmarkFlights.of(size);
+        projection = new FlightStatusProjection();
+        FlightService flightService = Mockito.mock(FlightService.class);
+        Mockito.when(flightService.searchFlightsByNumberAndDate(anyString(), any()))
+                .thenAnswer(invocation -> Flux.fromIterable(flights));
+        OffloadProperties offloadProperties = new OffloadProperties();
+        offloadProperties.setMode(offload);
+        offloader = new Offloader(offloadProperties, new SimpleMeterRegistry());
+        controller = new FlightController(flightService, null, projection, null, null, null, offloader);
+        request = new FlightStatusRequest("UA1000", LocalDateTime.of(2025, 9, 1, 12, 0));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        offloader.stop();
+    }
+
+    @Benchmark
+    public void projectFlights(Blackhole blackhole) {
+        for (Flight flight : flights) {
+            blackhole.consume(projection.toStatus(flight));
+        }
+    }
+
+    @Benchmark
+    public ResponseEntity<FlightStatusResponse> checkFlightStatus() {
+        return controller.checkFlightStatus(request, null, null).block();
+    }
+}
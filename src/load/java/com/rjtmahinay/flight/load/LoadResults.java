@@ -0,0 +1,152 @@
+package com.rjtmahinay.flight.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and outcomes per operation. Latencies are in microseconds and measured from when
+ * a request was due to be sent, not from when it was sent, so time spent queueing behind a
+ * slow service counts against the service instead of silently lowering the offered rate.
+ */
+final class LoadResults {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+    private final Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+    private final long highestLatency;
+
+    LoadResults(Iterable<Operation> operations, Duration timeout) {
+        // Room for requests that queued for up to a timeout before their own timeout started
+        this.highestLatency = 2 * TimeUnit.NANOSECONDS.toMicros(timeout.toNanos()) + 1_000_000;
+        for (Operation operation : operations) {
+            stats.put(operation, new Stats(highestLatency));
+        }
+    }
+
+    void success(Operation operation, long latencyNanos, int status) {
+        Stats operationStats = stats.get(operation);
+        operationStats.recorder.recordValue(Math.min(latencyNanos / 1_000, highestLatency));
+        operationStats.outcome(Integer.toString(status));
+    }
+
+    void error(Operation operation, long latencyNanos, String outcome) {
+        Stats operationStats = stats.get(operation);
+        operationStats.recorder.recordValue(Math.min(latencyNanos / 1_000, highestLatency));
+        operationStats.errors.increment();
+        operationStats.outcome(outcome);
+    }
+
+    /**
+     * Moves the latencies recorded since the last call into the totals and returns one line
+     * about that interval: completed requests per second, errors and the 99th percentile.
+     */
+    String interval(Duration elapsed, Duration length) {
+        Histogram interval = null;
+        long errors = 0;
+        for (Stats operationStats : stats.values()) {
+            Histogram recent = operationStats.recorder.getIntervalHistogram();
+            operationStats.total.add(recent);
+            interval = interval == null ? recent.copy() : add(interval, recent);
+            long totalErrors = operationStats.errors.sum();
+            errors += totalErrors - operationStats.reportedErrors;
+            operationStats.reportedErrors = totalErrors;
+        }
+        return String.format("%6ds %9.1f req/s %7d errors   p99 %9.2f ms   max %9.2f ms",
+                elapsed.toSeconds(), interval.getTotalCount() / (length.toNanos() / 1e9), errors,
+                interval.getValueAtPercentile(99) / 1_000.0, interval.getMaxValue() / 1_000.0);
+    }
+
+    /**
+     * Folds the last interval into the totals and writes the report to {@code out}, and the
+     * report plus one HdrHistogram percentile distribution per operation to {@code directory}.
+     * Returns the latencies of all operations together.
+     */
+    Histogram report(LoadSettings settings, Duration measured, long dropped, PrintStream out, Path directory)
+            throws IOException {
+        Histogram all = new Histogram(highestLatency, 3);
+        StringBuilder report = new StringBuilder(settings.describe()).append(System.lineSeparator())
+                .append(System.lineSeparator())
+                .append(String.format("%-8s %9s %10s %8s %9s %9s %9s %9s %9s %9s  %s%n", "", "requests",
+                        "req/s", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "p99.99 ms", "max ms",
+                        "outcomes"));
+        long requests = 0;
+        long errors = 0;
+        Files.createDirectories(directory);
+        for (Map.Entry<Operation, Stats> entry : stats.entrySet()) {
+            Stats operationStats = entry.getValue();
+            operationStats.total.add(operationStats.recorder.getIntervalHistogram());
+            all.add(operationStats.total);
+            requests += operationStats.total.getTotalCount();
+            errors += operationStats.errors.sum();
+            report.append(line(entry.getKey().name().toLowerCase(), operationStats.total, operationStats.errors.sum(),
+                    measured, new TreeMap<>(operationStats.outcomes).toString()));
+            try (PrintStream distribution = new PrintStream(
+                    directory.resolve(entry.getKey().name().toLowerCase() + ".hgrm").toFile())) {
+                operationStats.total.outputPercentileDistribution(distribution, 1_000.0);
+            }
+        }
+        report.append(line("all", all, errors, measured, dropped == 0 ? "" : dropped + " dropped"));
+        // Dropped requests were never sent, but a client would have seen them fail
+        report.append(String.format("%nerror rate   %.4f%%%n",
+                requests + dropped == 0 ? 0 : 100.0 * (errors + dropped) / (requests + dropped)));
+
+        try (PrintStream distribution = new PrintStream(directory.resolve("all.hgrm").toFile())) {
+            all.outputPercentileDistribution(distribution, 1_000.0);
+        }
+        Files.writeString(directory.resolve("report.txt"), report);
+        out.print(report);
+        return all;
+    }
+
+    long requests() {
+        return stats.values().stream().mapToLong(operationStats -> operationStats.total.getTotalCount()).sum();
+    }
+
+    long errors() {
+        return stats.values().stream().mapToLong(operationStats -> operationStats.errors.sum()).sum();
+    }
+
+    private static String line(String name, Histogram histogram, long errors, Duration measured, String outcomes) {
+        StringBuilder line = new StringBuilder(String.format("%-8s %9d %10.1f %8d", name,
+                histogram.getTotalCount(), histogram.getTotalCount() / (measured.toNanos() / 1e9), errors));
+        for (double percentile : PERCENTILES) {
+            line.append(String.format(" %9.2f", histogram.getValueAtPercentile(percentile) / 1_000.0));
+        }
+        return line.append(String.format(" %9.2f  %s%n", histogram.getMaxValue() / 1_000.0, outcomes)).toString();
+    }
+
+    private static Histogram add(Histogram into, Histogram other) {
+        into.add(other);
+        return into;
+    }
+
+    private static final class Stats {
+
+        private final Recorder recorder;
+        private final Histogram total;
+        private final LongAdder errors = new LongAdder();
+        private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+        private long reportedErrors;
+
+        Stats(long highestLatency) {
+            this.recorder = new Recorder(highestLatency, 3);
+            this.total = new Histogram(highestLatency, 3);
+        }
+
+        void outcome(String outcome) {
+            outcomes.computeIfAbsent(outcome, ignored -> new LongAdder()).increment();
+        }
+    }
+}
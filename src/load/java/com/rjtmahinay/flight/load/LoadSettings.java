@@ -0,0 +1,126 @@
+package com.rjtmahinay.flight.load;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Parameters of one load test run, parsed from {@code --name=value} arguments. Arguments
+ * starting with {@code --spring.}, {@code --server.}, {@code --flight.} or {@code --logging.}
+ * are passed on to the in-process application instead.
+ *
+ * @param target         base URL of a running instance, or null to start one in-process on H2
+ * @param rate           requests per second offered, independent of how fast responses arrive
+ * @param duration       measured part of the run
+ * @param warmup         time the load runs before latencies are recorded
+ * @param poisson        exponentially distributed gaps between requests, otherwise even gaps
+ * @param mix            relative weight of each operation
+ * @param flights        flights in the data set the operations pick from
+ * @param airports       airports the routes of the data set are drawn from
+ * @param days           days the departures of the data set are spread over
+ * @param seed           seed of the data set, the arrival times and the operation sequence
+ * @param connections    maximum connections to the service
+ * @param maxInFlight    outstanding requests above which new arrivals are dropped and counted as errors
+ * @param timeout        response time after which a request counts as an error
+ * @param reportDir      directory the report and the histograms are written to
+ * @param sloP99         99th percentile latency the run must stay under, or null
+ * @param sloErrorRate   error rate, as a fraction, the run must stay under, or null
+ * @param appArgs        arguments for the in-process application
+ */
+record LoadSettings(String target, int rate, Duration duration, Duration warmup, boolean poisson,
+                    Map<Operation, Integer> mix, int flights, int airports, int days, long seed,
+                    int connections, int maxInFlight, Duration timeout, Path reportDir,
+                    Duration sloP99, Double sloErrorRate, List<String> appArgs) {
+
+    private static final List<String> APP_PREFIXES = List.of("--spring.", "--server.", "--flight.", "--logging.");
+    private static final Set<String> NAMES = Set.of("target", "rate", "duration", "warmup", "arrivals", "mix",
+            "flights", "airports", "days", "seed", "connections", "max-in-flight", "timeout", "report-dir",
+            "slo-p99", "slo-error-rate");
+
+    static LoadSettings parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        List<String> appArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (APP_PREFIXES.stream().anyMatch(arg::startsWith)) {
+                appArgs.add(arg);
+                continue;
+            }
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            values.put(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+        if (!NAMES.containsAll(values.keySet())) {
+            throw new IllegalArgumentException("Unknown arguments " + values.keySet() + ", expected some of " + NAMES);
+        }
+        LoadSettings settings = new LoadSettings(
+                values.get("target"),
+                Integer.parseInt(values.getOrDefault("rate", "500")),
+                duration(values.getOrDefault("duration", "60s")),
+                duration(values.getOrDefault("warmup", "30s")),
+                !"uniform".equals(values.getOrDefault("arrivals", "poisson")),
+                mix(values.getOrDefault("mix", "search=50,status=20,id=20,write=10")),
+                Integer.parseInt(values.getOrDefault("flights", "10000")),
+                Integer.parseInt(values.getOrDefault("airports", "20")),
+                Integer.parseInt(values.getOrDefault("days", "30")),
+                Long.parseLong(values.getOrDefault("seed", "42")),
+                Integer.parseInt(values.getOrDefault("connections", "200")),
+                Integer.parseInt(values.getOrDefault("max-in-flight", "5000")),
+                duration(values.getOrDefault("timeout", "5s")),
+                Path.of(values.getOrDefault("report-dir", "target/load")),
+                values.containsKey("slo-p99") ? duration(values.get("slo-p99")) : null,
+                values.containsKey("slo-error-rate") ? Double.parseDouble(values.get("slo-error-rate")) : null,
+                List.copyOf(appArgs));
+        if (settings.rate <= 0 || settings.flights <= 0 || settings.days <= 0) {
+            throw new IllegalArgumentException("rate, flights and days must be positive");
+        }
+        if (settings.airports < 2 || settings.airports > Workload.AIRPORTS.size()) {
+            throw new IllegalArgumentException("airports must be between 2 and " + Workload.AIRPORTS.size());
+        }
+        return settings;
+    }
+
+    /**
+     * One line per setting that shapes the results, for the top of the report.
+     */
+    String describe() {
+        return String.join(System.lineSeparator(),
+                "target       " + (target == null ? "in-process (H2)" : target),
+                "rate         " + rate + "/s " + (poisson ? "poisson" : "uniform"),
+                "duration     " + duration + " after " + warmup + " warmup",
+                "mix          " + mix,
+                "data         " + flights + " flights, " + airports + " airports, " + days + " days, seed " + seed,
+                "client       " + connections + " connections, " + maxInFlight + " max in flight, "
+                        + timeout + " timeout");
+    }
+
+    private static Duration duration(String value) {
+        return DurationStyle.detectAndParse(value);
+    }
+
+    private static Map<Operation, Integer> mix(String value) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String part : value.split(",")) {
+            String[] weight = part.trim().split("=");
+            if (weight.length != 2) {
+                throw new IllegalArgumentException("Expected operation=weight in mix but got " + part);
+            }
+            int parsed = Integer.parseInt(weight[1]);
+            if (parsed > 0) {
+                mix.put(Operation.valueOf(weight[0].toUpperCase()), parsed);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("The mix needs at least one operation with a positive weight");
+        }
+        return mix;
+    }
+}
@@ -0,0 +1,244 @@
+package com.rjtmahinay.flight.load;
+
+import com.rjtmahinay.flight.FlightServiceApplication;
+import com.rjtmahinay.flight.dto.BulkIngestResponse;
+import com.rjtmahinay.flight.model.Flight;
+import io.netty.channel.ChannelOption;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.resources.LoopResources;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator for the flight service. Requests are sent at the offered rate
+ * whether or not earlier ones have been answered, the way independent clients behave, so an
+ * overloaded service shows up as growing latencies and errors rather than as a lower rate.
+ * <p>
+ * Without {@code --target} the application is started in this JVM on a random port with its
+ * own in-memory H2 database, so a run needs nothing but the build. Client and service then
+ * share the machine's cores, which is fine for comparing builds but not for absolute
+ * capacity; for that start the packaged jar separately and pass {@code --target}.
+ * <p>
+ * {@code mvn -Pload test-compile exec:exec [-Dload.args="--rate=2000 --duration=2m --flights=100000"]}
+ * runs it; {@link LoadSettings} lists the options.
+ * <p>
+ * Writes {@code report.txt} and one {@code .hgrm} percentile distribution per operation to
+ * {@code --report-dir}, and exits with status 1 if {@code --slo-p99} or {@code --slo-error-rate}
+ * is given and missed.
+ */
+public final class LoadTest {
+
+    private static final Duration PROGRESS_INTERVAL = Duration.ofSeconds(5);
+    private static final int SEED_CHUNK = 5_000;
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadSettings settings = LoadSettings.parse(args);
+        ConfigurableApplicationContext application = settings.target() == null ? start(settings) : null;
+        String target = application == null ? settings.target()
+                : "http://localhost:" + ((WebServerApplicationContext) application).getWebServer().getPort();
+        LoopResources loop = LoopResources.create("load-client", Runtime.getRuntime().availableProcessors(), true);
+        ConnectionProvider connections = ConnectionProvider.builder("load")
+                .maxConnections(settings.connections())
+                .pendingAcquireMaxCount(-1)
+                .pendingAcquireTimeout(settings.timeout())
+                .build();
+        int exitCode;
+        try {
+            WebClient webClient = WebClient.builder()
+                    .baseUrl(target)
+                    .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connections)
+                            .runOn(loop)
+                            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) settings.timeout().toMillis())))
+                    .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(-1))
+                    .build();
+            List<Flight> flights = seed(webClient, settings);
+            System.out.printf("Data set of %d flights ready on %s%n", flights.size(), target);
+            exitCode = run(webClient, new Workload(flights, settings.mix(), settings.seed()), settings);
+        } finally {
+            connections.dispose();
+            loop.dispose();
+            if (application != null) {
+                application.close();
+            }
+        }
+        System.exit(exitCode);
+    }
+
+    private static ConfigurableApplicationContext start(LoadSettings settings) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.r2dbc.url=r2dbc:h2:mem:///loadtest;DB_CLOSE_DELAY=-1",
+                "--spring.flyway.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+                "--logging.level.root=WARN",
+                "--logging.level.com.rjtmahinay=WARN",
+                // Logged for every read-only transaction on H2
+                "--logging.level.io.r2dbc.h2.H2Connection=ERROR"));
+        // Later arguments win, so the ones given to the load test override these defaults
+        args.addAll(settings.appArgs());
+        return SpringApplication.run(FlightServiceApplication.class, args.toArray(String[]::new));
+    }
+
+    /**
+     * Inserts the data set unless the service already holds it, and returns it with the ids
+     * the service assigned, ordered by flight number.
+     */
+    private static List<Flight> seed(WebClient webClient, LoadSettings settings) {
+        List<Flight> existing = dataSet(webClient);
+        if (existing.size() >= settings.flights()) {
+            return existing.subList(0, settings.flights());
+        }
+        if (!existing.isEmpty()) {
+            throw new IllegalStateException("The service holds " + existing.size() + " of the " + settings.flights()
+                    + " load test flights; delete them or use the same --flights as before");
+        }
+        Flux.fromIterable(Workload.schedule(settings))
+                .buffer(SEED_CHUNK)
+                .concatMap(chunk -> webClient.post()
+                        .uri("/api/flights/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(chunk)
+                        .retrieve()
+                        .bodyToMono(BulkIngestResponse.class))
+                .doOnNext(response -> {
+                    if (response.getFailed() > 0) {
+                        throw new IllegalStateException(response.getFailed() + " flights of the data set were rejected");
+                    }
+                })
+                .blockLast();
+        return dataSet(webClient);
+    }
+
+    private static List<Flight> dataSet(WebClient webClient) {
+        return webClient.get()
+                .uri("/api/flights")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .retrieve()
+                .bodyToFlux(Flight.class)
+                .filter(flight -> Workload.AIRLINE.equals(flight.getAirlineName())
+                        && flight.getFlightNumber().startsWith(Workload.FLIGHT_NUMBER_PREFIX))
+                .collectSortedList(Comparator.comparing(Flight::getFlightNumber))
+                .block();
+    }
+
+    private static int run(WebClient webClient, Workload workload, LoadSettings settings)
+            throws IOException, InterruptedException {
+        LoadResults warmup = new LoadResults(settings.mix().keySet(), settings.timeout());
+        LoadResults measured = new LoadResults(settings.mix().keySet(), settings.timeout());
+        SplittableRandom arrivals = new SplittableRandom(settings.seed() + 1);
+        double meanGapNanos = 1e9 / settings.rate();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicLong dropped = new AtomicLong();
+
+        long start = System.nanoTime();
+        long measureFrom = start + settings.warmup().toNanos();
+        long end = measureFrom + settings.duration().toNanos();
+        long nextProgress = start + PROGRESS_INTERVAL.toNanos();
+        double due = start;
+        System.out.printf("Warming up for %s, then measuring for %s at %d requests/s%n",
+                settings.warmup(), settings.duration(), settings.rate());
+
+        while (due < end) {
+            long intended = (long) due;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            LoadResults results = intended < measureFrom ? warmup : measured;
+            Workload.Call call = workload.next(webClient);
+            if (inFlight.get() >= settings.maxInFlight()) {
+                if (results == measured) {
+                    dropped.incrementAndGet();
+                }
+            } else {
+                send(call, intended, settings.timeout(), results, inFlight);
+            }
+            due += settings.poisson() ? -Math.log(1 - arrivals.nextDouble()) * meanGapNanos : meanGapNanos;
+
+            long now = System.nanoTime();
+            if (now >= nextProgress) {
+                boolean warmingUp = nextProgress - PROGRESS_INTERVAL.toNanos() < measureFrom;
+                System.out.println((warmingUp ? "warmup " : "       ")
+                        + (warmingUp ? warmup : measured).interval(Duration.ofNanos(now - start), PROGRESS_INTERVAL));
+                nextProgress += PROGRESS_INTERVAL.toNanos();
+            }
+        }
+        // Requests sent near the end still count, so give them until their timeout to finish
+        long drainUntil = System.nanoTime() + settings.timeout().toNanos() + 1_000_000_000L;
+        while (inFlight.get() > 0 && System.nanoTime() < drainUntil) {
+            Thread.sleep(10);
+        }
+
+        System.out.println();
+        Path directory = settings.reportDir()
+                .resolve(LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")));
+        Histogram all = measured.report(settings, settings.duration(), dropped.get(), System.out, directory);
+        System.out.println("Report written to " + directory.toAbsolutePath());
+        return sloMissed(settings, all, measured.requests() + dropped.get(), measured.errors() + dropped.get()) ? 1 : 0;
+    }
+
+    private static void send(Workload.Call call, long intended, Duration timeout, LoadResults results,
+                             AtomicInteger inFlight) {
+        inFlight.incrementAndGet();
+        call.request()
+                .exchangeToMono(response -> response.releaseBody().thenReturn(response.statusCode().value()))
+                .timeout(timeout)
+                .subscribe(
+                        status -> {
+                            long latency = System.nanoTime() - intended;
+                            if (status < 400) {
+                                results.success(call.operation(), latency, status);
+                            } else {
+                                results.error(call.operation(), latency, Integer.toString(status));
+                            }
+                            inFlight.decrementAndGet();
+                        },
+                        error -> {
+                            results.error(call.operation(), System.nanoTime() - intended,
+                                    error instanceof TimeoutException ? "timeout" : error.getClass().getSimpleName());
+                            inFlight.decrementAndGet();
+                        });
+    }
+
+    private static boolean sloMissed(LoadSettings settings, Histogram all, long requests, long errors) {
+        boolean missed = false;
+        if (settings.sloP99() != null) {
+            double p99 = all.getValueAtPercentile(99) / 1_000.0;
+            boolean met = p99 <= settings.sloP99().toNanos() / 1e6;
+            System.out.printf("SLO p99 <= %d ms: %s (%.2f ms)%n", settings.sloP99().toMillis(),
+                    met ? "met" : "MISSED", p99);
+            missed = !met;
+        }
+        if (settings.sloErrorRate() != null) {
+            double rate = requests == 0 ? 0 : (double) errors / requests;
+            boolean met = rate <= settings.sloErrorRate();
+            System.out.printf("SLO error rate <= %.4f%%: %s (%.4f%%)%n", 100 * settings.sloErrorRate(),
+                    met ? "met" : "MISSED", 100 * rate);
+            missed |= !met;
+        }
+        return missed;
+    }
+}
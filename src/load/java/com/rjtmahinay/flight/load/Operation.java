@@ -0,0 +1,19 @@
+package com.rjtmahinay.flight.load;
+
+/**
+ * The requests a load test mixes.
+ */
+enum Operation {
+
+    /** {@code GET /api/flights/search} for the route and day of a known flight. */
+    SEARCH,
+
+    /** {@code POST /api/flights/status} for the number and day of a known flight. */
+    STATUS,
+
+    /** {@code GET /api/flights/{id}} of a known flight. */
+    ID,
+
+    /** {@code PUT /api/flights/{id}} of a known flight with a new fare. */
+    WRITE
+}
@@ -0,0 +1,133 @@
+package com.rjtmahinay.flight.load;
+
+import com.rjtmahinay.flight.dto.FlightStatusRequest;
+import com.rjtmahinay.flight.model.Flight;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * The data set a load test runs against and the sequence of requests it sends. Both follow
+ * from the seed alone, so two runs with the same settings send the same requests in the same
+ * order at the same offsets.
+ */
+final class Workload {
+
+    static final String AIRLINE = "Load Test Air";
+    static final String FLIGHT_NUMBER_PREFIX = "LT";
+    static final List<String> AIRPORTS = List.of("ATL", "LAX", "ORD", "DFW", "DEN", "JFK", "SFO", "SEA", "LAS",
+            "MCO", "EWR", "CLT", "PHX", "IAH", "MIA", "BOS", "MSP", "DTW", "FLL", "PHL", "LGA", "BWI", "SLC",
+            "SAN", "IAD", "DCA", "MDW", "TPA", "PDX", "HNL");
+
+    // Far enough ahead that archival never moves the data set out of the flights table
+    private static final LocalDate FIRST_DAY = LocalDate.of(2035, 1, 1);
+
+    private final List<Flight> flights;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+    private final SplittableRandom random;
+
+    Workload(List<Flight> flights, Map<Operation, Integer> mix, long seed) {
+        if (flights.isEmpty()) {
+            throw new IllegalArgumentException("The data set is empty");
+        }
+        this.flights = flights;
+        this.operations = mix.keySet().toArray(Operation[]::new);
+        this.cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += mix.get(operations[i]);
+            cumulativeWeights[i] = total;
+        }
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * The flights of the data set, without ids, ordered by flight number.
+     */
+    static List<Flight> schedule(LoadSettings settings) {
+        SplittableRandom random = new SplittableRandom(settings.seed());
+        List<Flight> schedule = new ArrayList<>(settings.flights());
+        for (int i = 0; i < settings.flights(); i++) {
+            int origin = random.nextInt(settings.airports());
+            int destination = (origin + 1 + random.nextInt(settings.airports() - 1)) % settings.airports();
+            LocalDateTime departure = FIRST_DAY.plusDays(random.nextInt(settings.days()))
+                    .atTime(5 + random.nextInt(18), 5 * random.nextInt(12));
+            schedule.add(Flight.builder()
+                    .airlineName(AIRLINE)
+                    .flightNumber(flightNumber(i))
+                    .origin(AIRPORTS.get(origin))
+                    .destination(AIRPORTS.get(destination))
+                    .departureTime(departure)
+                    .arrivalTime(departure.plusMinutes(45 + 5 * random.nextInt(60)))
+                    .availableSeats(50 + random.nextInt(250))
+                    .price(fare(random))
+                    .status("SCHEDULED")
+                    .build());
+        }
+        return schedule;
+    }
+
+    static String flightNumber(int index) {
+        return FLIGHT_NUMBER_PREFIX + String.format("%06d", index);
+    }
+
+    /**
+     * The next request, picked by the weights of the mix. Must be called from one thread.
+     */
+    Call next(WebClient webClient) {
+        Operation operation = pickOperation();
+        Flight flight = flights.get(random.nextInt(flights.size()));
+        WebClient.RequestHeadersSpec<?> request = switch (operation) {
+            case SEARCH -> webClient.get()
+                    .uri("/api/flights/search?origin={origin}&destination={destination}&date={date}",
+                            flight.getOrigin(), flight.getDestination(),
+                            flight.getDepartureTime().toLocalDate().atStartOfDay());
+            case STATUS -> webClient.post()
+                    .uri("/api/flights/status")
+                    .bodyValue(new FlightStatusRequest(flight.getFlightNumber(), flight.getDepartureTime()));
+            case ID -> webClient.get()
+                    .uri("/api/flights/{id}", flight.getId());
+            case WRITE -> webClient.put()
+                    .uri("/api/flights/{id}", flight.getId())
+                    .bodyValue(withFare(flight, fare(random)));
+        };
+        return new Call(operation, request);
+    }
+
+    private Operation pickOperation() {
+        int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < operations.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        throw new IllegalStateException("Weights do not cover " + pick);
+    }
+
+    private static Flight withFare(Flight flight, double price) {
+        return Flight.builder()
+                .airlineName(flight.getAirlineName())
+                .flightNumber(flight.getFlightNumber())
+                .origin(flight.getOrigin())
+                .destination(flight.getDestination())
+                .departureTime(flight.getDepartureTime())
+                .arrivalTime(flight.getArrivalTime())
+                .availableSeats(flight.getAvailableSeats())
+                .price(price)
+                .status(flight.getStatus())
+                .build();
+    }
+
+    private static double fare(SplittableRandom random) {
+        return 49 + random.nextInt(950) + 0.99;
+    }
+
+    record Call(Operation operation, WebClient.RequestHeadersSpec<?> request) {
+    }
+}
@@ -0,0 +1,115 @@
+package com.rjtmahinay.flight.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrency limit of one route group, adjusted additive-increase/multiplicative-decrease
+ * from the latency of completed requests.
+ * <p>
+ * A request that finishes within the target latency while at least half the limit is in use
+ * raises the limit by one. A slower or failed one multiplies it by the backoff ratio only if
+ * the group was close to its limit: slow requests on a lightly loaded instance (JIT warmup, a
+ * cold connection pool, one expensive query) say nothing about overload, and shedding there
+ * would only turn slow answers into 429s. Backoff happens at most once per target latency so
+ * that a burst of slow completions backs off once rather than collapsing the limit to its
+ * minimum.
+ */
+final class AdaptiveLimit {
+
+    // Weight of the newest sample in the average latency
+    private static final double SMOOTHING = 0.1;
+
+    // Share of the limit in use from which slow or failed requests count as overload
+    private static final double BACKOFF_UTILIZATION = 0.8;
+
+    private final AdmissionProperties.Group config;
+    private final double backoffRatio;
+    private final long targetNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    private volatile double limit;
+    private volatile double averageLatencyNanos;
+    private long lastBackoffNanos;
+
+    AdaptiveLimit(AdmissionProperties.Group config, double backoffRatio) {
+        this.config = config;
+        this.backoffRatio = backoffRatio;
+        this.targetNanos = config.getTargetLatency().toNanos();
+        this.limit = config.getInitialLimit();
+        this.lastBackoffNanos = System.nanoTime() - targetNanos;
+    }
+
+    /**
+     * Takes a slot if the group is below its limit.
+     */
+    boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= (int) limit) {
+                rejected.increment();
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        admitted.increment();
+        return true;
+    }
+
+    /**
+     * Counts a request that was shed before taking a slot, for reasons outside this group.
+     */
+    void reject() {
+        rejected.increment();
+    }
+
+    /**
+     * Gives a slot back without adjusting the limit, for requests whose duration says nothing
+     * about load: cancelled ones and long-lived streams.
+     */
+    void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Gives a slot back and adjusts the limit from the request's latency.
+     */
+    void release(long latencyNanos, boolean failed) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        synchronized (this) {
+            double average = averageLatencyNanos;
+            averageLatencyNanos = average == 0 ? latencyNanos : average + SMOOTHING * (latencyNanos - average);
+            long now = System.nanoTime();
+            if (failed || latencyNanos > targetNanos) {
+                if (inFlightBefore >= limit * BACKOFF_UTILIZATION && now - lastBackoffNanos >= targetNanos) {
+                    limit = Math.max(config.getMinLimit(), limit * backoffRatio);
+                    lastBackoffNanos = now;
+                }
+            } else if (inFlightBefore * 2 >= limit) {
+                limit = Math.min(config.getMaxLimit(), limit + 1);
+            }
+        }
+    }
+
+    int limit() {
+        return (int) limit;
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    long admitted() {
+        return admitted.sum();
+    }
+
+    long rejected() {
+        return rejected.sum();
+    }
+
+    double averageLatencyMillis() {
+        return averageLatencyNanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,27 @@
+package com.rjtmahinay.flight.admission;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint at {@code /actuator/admission} showing the current concurrency limit,
+ * load and shed requests of every route group.
+ */
+@Component
+@Endpoint(id = "admission")
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "flight.admission", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionEndpoint {
+
+    private final AdmissionFilter admissionFilter;
+
+    @ReadOperation
+    public Map<String, Object> state() {
+        return admissionFilter.state();
+    }
+}
@@ -0,0 +1,140 @@
+package com.rjtmahinay.flight.admission;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Admits flight API requests up to the adaptive concurrency limit of their route group and
+ * answers the rest with 429 and a Retry-After, before any work is done for them.
+ * <p>
+ * Low-priority groups are also shed once the flight API as a whole is busy, so that scans
+ * give way to status lookups well before the status limit is reached. Runs after the
+ * observation filter, so shed requests still show up in http.server.requests.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnProperty(prefix = "flight.admission", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionFilter implements WebFilter {
+
+    private final AdmissionProperties properties;
+    private final Map<RouteGroup, AdaptiveLimit> limits = new EnumMap<>(RouteGroup.class);
+
+    public AdmissionFilter(AdmissionProperties properties, MeterRegistry registry) {
+        this.properties = properties;
+        for (RouteGroup group : RouteGroup.values()) {
+            AdaptiveLimit limit = new AdaptiveLimit(config(group), properties.getBackoffRatio());
+            limits.put(group, limit);
+            String tag = group.name().toLowerCase();
+            Gauge.builder("flight.admission.limit", limit, AdaptiveLimit::limit)
+                    .description("Current concurrency limit of the route group")
+                    .tag("group", tag)
+                    .register(registry);
+            Gauge.builder("flight.admission.active", limit, AdaptiveLimit::inFlight)
+                    .description("Requests of the route group in progress")
+                    .tag("group", tag)
+                    .register(registry);
+            FunctionCounter.builder("flight.admission.rejected", limit, AdaptiveLimit::rejected)
+                    .description("Requests of the route group shed with 429")
+                    .tag("group", tag)
+                    .register(registry);
+        }
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        RouteGroup group = RouteGroup.of(exchange.getRequest().getMethod(),
+                exchange.getRequest().getPath().pathWithinApplication());
+        if (group == null) {
+            return chain.filter(exchange);
+        }
+        AdaptiveLimit limit = limits.get(group);
+        if (group.isLowPriority() && utilization() > properties.getShedLowPriorityAbove()) {
+            limit.reject();
+            return shed(exchange.getResponse(), limit);
+        }
+        if (!limit.tryAcquire()) {
+            return shed(exchange.getResponse(), limit);
+        }
+        long start = System.nanoTime();
+        return chain.filter(exchange).doFinally(signal -> {
+            ServerHttpResponse response = exchange.getResponse();
+            if (signal == SignalType.CANCEL || isStream(response.getHeaders().getContentType())) {
+                limit.release();
+                return;
+            }
+            HttpStatusCode status = response.getStatusCode();
+            boolean failed = signal == SignalType.ON_ERROR || (status != null && status.is5xxServerError());
+            limit.release(System.nanoTime() - start, failed);
+        });
+    }
+
+    /**
+     * Limit, requests in progress and counts of every route group, for the admission endpoint.
+     */
+    public Map<String, Object> state() {
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("utilization", utilization());
+        limits.forEach((group, limit) -> {
+            Map<String, Object> groupState = new LinkedHashMap<>();
+            groupState.put("lowPriority", group.isLowPriority());
+            groupState.put("limit", limit.limit());
+            groupState.put("inFlight", limit.inFlight());
+            groupState.put("admitted", limit.admitted());
+            groupState.put("rejected", limit.rejected());
+            groupState.put("averageLatencyMillis", limit.averageLatencyMillis());
+            state.put(group.name().toLowerCase(), groupState);
+        });
+        return state;
+    }
+
+    private double utilization() {
+        int inFlight = 0;
+        int limit = 0;
+        for (AdaptiveLimit groupLimit : limits.values()) {
+            inFlight += groupLimit.inFlight();
+            limit += groupLimit.limit();
+        }
+        return limit == 0 ? 1 : (double) inFlight / limit;
+    }
+
+    private AdmissionProperties.Group config(RouteGroup group) {
+        return switch (group) {
+            case STATUS -> properties.getStatus();
+            case SEARCH -> properties.getSearch();
+            case WRITE -> properties.getWrite();
+            case SCAN -> properties.getScan();
+        };
+    }
+
+    // A retry is worth trying once a typical request of the group has had time to finish
+    private static Mono<Void> shed(ServerHttpResponse response, AdaptiveLimit limit) {
+        long retryAfterSeconds = Math.max(1, (long) Math.ceil(limit.averageLatencyMillis() / 1000));
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        return response.setComplete();
+    }
+
+    private static boolean isStream(MediaType contentType) {
+        return contentType != null && (MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)
+                || MediaType.TEXT_EVENT_STREAM.isCompatibleWith(contentType));
+    }
+}
@@ -0,0 +1,80 @@
+package com.rjtmahinay.flight.admission;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "flight.admission")
+public class AdmissionProperties {
+
+    /**
+     * Limit concurrent requests per route group and shed the excess with 429.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Factor a group's limit is multiplied by when its latency exceeds the target while most of
+     * the limit is in use.
+     */
+    private double backoffRatio = 0.9;
+
+    /**
+     * Share of the summed limits of all groups in use above which low-priority requests are shed,
+     * keeping the remaining capacity for status lookups, searches and writes.
+     */
+    private double shedLowPriorityAbove = 0.75;
+
+    /**
+     * Flight status and single-flight lookups.
+     */
+    private Group status = new Group(100, 10, 1_000, Duration.ofMillis(50));
+
+    /**
+     * Route and connection searches.
+     */
+    private Group search = new Group(50, 5, 500, Duration.ofMillis(200));
+
+    /**
+     * Creates, updates, deletes, bulk ingests and seat reservations.
+     */
+    private Group write = new Group(50, 5, 500, Duration.ofMillis(200));
+
+    /**
+     * Listing and streaming all flights; low priority.
+     */
+    private Group scan = new Group(8, 1, 64, Duration.ofSeconds(1));
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Group {
+
+        /**
+         * Concurrent requests admitted before any latency has been observed.
+         */
+        private int initialLimit;
+
+        /**
+         * The limit never backs off below this.
+         */
+        private int minLimit;
+
+        /**
+         * The limit never grows beyond this.
+         */
+        private int maxLimit;
+
+        /**
+         * Latency above which the limit backs off if the group is close to its limit; below it, the
+         * limit grows while in use.
+         */
+        private Duration targetLatency;
+    }
+}
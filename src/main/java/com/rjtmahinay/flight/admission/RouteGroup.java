@@ -0,0 +1,68 @@
+package com.rjtmahinay.flight.admission;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.List;
+
+/**
+ * Groups of flight endpoints that share one concurrency limit. Requests outside the
+ * flight API, and the status event stream, belong to no group and are never limited.
+ */
+enum RouteGroup {
+
+    STATUS(false,
+            route(HttpMethod.POST, "/api/flights/status"),
+            route(HttpMethod.GET, "/api/flights/{id:\\d+}"),
+            route(HttpMethod.GET, "/api/flights/{id:\\d+}/availability")),
+    SEARCH(false,
+            route(HttpMethod.GET, "/api/flights/search"),
+            route(HttpMethod.POST, "/api/flights/search"),
+            route(HttpMethod.GET, "/api/flights/connections"),
+            route(HttpMethod.POST, "/api/flights/status/batch")),
+    WRITE(false,
+            route(HttpMethod.POST, "/api/flights"),
+            route(HttpMethod.POST, "/api/flights/bulk"),
+            route(HttpMethod.PUT, "/api/flights/{id}"),
+            route(HttpMethod.DELETE, "/api/flights/{id}"),
+            route(HttpMethod.POST, "/api/flights/{id}/reserve"),
+            route(HttpMethod.POST, "/api/flights/{id}/release")),
+    SCAN(true,
+            route(HttpMethod.GET, "/api/flights"),
+            route(HttpMethod.GET, "/api/flights/aggregates"));
+
+    private final boolean lowPriority;
+    private final List<Route> routes;
+
+    RouteGroup(boolean lowPriority, Route... routes) {
+        this.lowPriority = lowPriority;
+        this.routes = List.of(routes);
+    }
+
+    boolean isLowPriority() {
+        return lowPriority;
+    }
+
+    /**
+     * The group of a request, or {@code null} if it is not limited.
+     */
+    static RouteGroup of(HttpMethod method, PathContainer path) {
+        for (RouteGroup group : values()) {
+            for (Route route : group.routes) {
+                if (route.method.equals(method) && route.pattern.matches(path)) {
+                    return group;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Route route(HttpMethod method, String pattern) {
+        return new Route(method, PathPatternParser.defaultInstance.parse(pattern));
+    }
+
+    private record Route(HttpMethod method, PathPattern pattern) {
+    }
+}
@@ -0,0 +1,25 @@
+package com.rjtmahinay.flight.archive;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint at {@code /actuator/archive} for running the flight archival job now.
+ */
+@Component
+@Endpoint(id = "archive")
+@RequiredArgsConstructor
+public class ArchiveEndpoint {
+
+    private final FlightArchiver flightArchiver;
+
+    @WriteOperation
+    public Mono<Map<String, Object>> archive() {
+        return flightArchiver.archive().map(archived -> Map.of("archived", archived));
+    }
+}
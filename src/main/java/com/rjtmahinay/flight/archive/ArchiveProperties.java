@@ -0,0 +1,33 @@
+package com.rjtmahinay.flight.archive;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "flight.archive")
+public class ArchiveProperties {
+
+    /**
+     * Periodically move departed flights from the flights table to flights_archive.
+     */
+    private boolean enabled = true;
+
+    /**
+     * How long after arrival a flight stays in the flights table.
+     */
+    private Duration retention = Duration.ofDays(2);
+
+    /**
+     * Interval between archival runs; the first run starts one interval after startup.
+     */
+    private Duration interval = Duration.ofHours(1);
+
+    /**
+     * Flights moved per transaction, which bounds how long rows stay locked.
+     */
+    private int batchSize = 500;
+}
@@ -0,0 +1,50 @@
+package com.rjtmahinay.flight.archive;
+
+import com.rjtmahinay.flight.model.Flight;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Read access to {@code flights_archive}, whose rows map onto {@link Flight} like those of the
+ * {@code flights} table. Used as the fallback of status lookups that find nothing in it.
+ */
+@Component
+@RequiredArgsConstructor
+public class FlightArchive {
+
+    static final String TABLE = "flights_archive";
+
+    private final R2dbcEntityTemplate entityTemplate;
+
+    public Flux<Flight> findByFlightNumber(String flightNumber) {
+        return find(Criteria.where("flightNumber").is(flightNumber));
+    }
+
+    public Flux<Flight> findByFlightNumberAndDepartureTimeBetween(String flightNumber,
+                                                                  LocalDateTime startDate, LocalDateTime endDate) {
+        return findByFlightNumberInAndDepartureTimeBetween(List.of(flightNumber), startDate, endDate);
+    }
+
+    public Flux<Flight> findByFlightNumberInAndDepartureTimeBetween(Collection<String> flightNumbers,
+                                                                    LocalDateTime startDate, LocalDateTime endDate) {
+        return find(Criteria.where("flightNumber").in(flightNumbers)
+                .and("departureTime").greaterThanOrEquals(startDate)
+                .and("departureTime").lessThan(endDate));
+    }
+
+    private Flux<Flight> find(Criteria criteria) {
+        return entityTemplate.select(Flight.class)
+                .from(TABLE)
+                .matching(Query.query(criteria).sort(Sort.by("flightNumber", "departureTime")))
+                .all();
+    }
+}
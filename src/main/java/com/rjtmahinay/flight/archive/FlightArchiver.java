@@ -0,0 +1,145 @@
+package com.rjtmahinay.flight.archive;
+
+import com.rjtmahinay.flight.event.FlightsArchivedEvent;
+import com.rjtmahinay.flight.model.Flight;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.r2dbc.convert.R2dbcConverter;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves flights that arrived more than {@code retention} ago from {@code flights} to
+ * {@code flights_archive}, so route and departure-time queries only ever wade through the
+ * current schedule.
+ * <p>
+ * Each batch of {@code batch-size} flights is locked, copied and deleted in its own short
+ * transaction, oldest arrivals first, until no departed flight is left. After every batch a
+ * {@link FlightsArchivedEvent} lets the in-memory views drop the archived flights.
+ */
+@Slf4j
+@Component
+public class FlightArchiver {
+
+    private static final String SELECT_SQL = "SELECT * FROM flights WHERE arrival_time < :cutoff "
+            + "ORDER BY arrival_time LIMIT :limit FOR UPDATE";
+
+    private static final String COPY_SQL = "INSERT INTO " + FlightArchive.TABLE + " (id, airline_name, flight_number, "
+            + "origin, destination, departure_time, arrival_time, available_seats, price, status, created_at, "
+            + "updated_at, archived_at) SELECT id, airline_name, flight_number, origin, destination, departure_time, "
+            + "arrival_time, available_seats, price, status, created_at, updated_at, :archivedAt "
+            + "FROM flights WHERE id IN (:ids)";
+
+    private static final String DELETE_SQL = "DELETE FROM flights WHERE id IN (:ids)";
+
+    private final DatabaseClient databaseClient;
+    private final R2dbcConverter converter;
+    private final TransactionalOperator transactionalOperator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ArchiveProperties properties;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Counter archived;
+    private Disposable ticker;
+
+    public FlightArchiver(DatabaseClient databaseClient, R2dbcEntityTemplate entityTemplate,
+                          TransactionalOperator transactionalOperator, ApplicationEventPublisher eventPublisher,
+                          ArchiveProperties properties, MeterRegistry registry) {
+        this.databaseClient = databaseClient;
+        this.converter = entityTemplate.getConverter();
+        this.transactionalOperator = transactionalOperator;
+        this.eventPublisher = eventPublisher;
+        this.properties = properties;
+        this.archived = Counter.builder("flight.archive.flights")
+                .description("Flights moved to the archive table")
+                .register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Duration interval = properties.getInterval();
+        ticker = Flux.interval(interval, interval).subscribe(tick -> {
+            if (!running.get()) {
+                archive().subscribe(null, e -> log.warn("Flight archival failed", e));
+            }
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        if (ticker != null) {
+            ticker.dispose();
+        }
+    }
+
+    /**
+     * Archives every flight that arrived before now minus the retention, returning how many
+     * were moved.
+     */
+    public Mono<Long> archive() {
+        return Mono.defer(() -> {
+            if (!running.compareAndSet(false, true)) {
+                return Mono.error(new IllegalStateException("An archival run is already in progress"));
+            }
+            LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+            LocalDateTime cutoff = now.minus(properties.getRetention());
+            long start = System.nanoTime();
+            return archiveBatch(cutoff, now)
+                    .expand(batch -> batch.size() < properties.getBatchSize() ? Mono.empty() : archiveBatch(cutoff, now))
+                    .reduce(0L, (total, batch) -> total + batch.size())
+                    .doOnNext(total -> {
+                        if (total > 0) {
+                            log.info("Archived {} flights that arrived before {} in {} ms",
+                                    total, cutoff, (System.nanoTime() - start) / 1_000_000);
+                        }
+                    })
+                    .doFinally(signal -> running.set(false));
+        });
+    }
+
+    private Mono<List<Flight>> archiveBatch(LocalDateTime cutoff, LocalDateTime archivedAt) {
+        return databaseClient.sql(SELECT_SQL)
+                .bind("cutoff", cutoff)
+                .bind("limit", properties.getBatchSize())
+                .map((row, metadata) -> converter.read(Flight.class, row, metadata))
+                .all()
+                .collectList()
+                .flatMap(batch -> {
+                    if (batch.isEmpty()) {
+                        return Mono.just(batch);
+                    }
+                    List<Long> ids = batch.stream().map(Flight::getId).toList();
+                    return databaseClient.sql(COPY_SQL)
+                            .bind("archivedAt", archivedAt)
+                            .bind("ids", ids)
+                            .then()
+                            .then(databaseClient.sql(DELETE_SQL).bind("ids", ids).then())
+                            .thenReturn(batch);
+                })
+                .as(transactionalOperator::transactional)
+                .doOnNext(batch -> {
+                    if (!batch.isEmpty()) {
+                        archived.increment(batch.size());
+                        eventPublisher.publishEvent(new FlightsArchivedEvent(batch));
+                    }
+                });
+    }
+}
@@ -0,0 +1,500 @@
+package com.rjtmahinay.flight.availability;
+
+import com.rjtmahinay.flight.datasource.ReadRouting;
+import com.rjtmahinay.flight.dto.FlightAvailability;
+import com.rjtmahinay.flight.event.FlightChangedEvent;
+import com.rjtmahinay.flight.event.FlightsArchivedEvent;
+import com.rjtmahinay.flight.exception.FlightNotFoundException;
+import com.rjtmahinay.flight.exception.SeatsUnavailableException;
+import com.rjtmahinay.flight.model.Flight;
+import com.rjtmahinay.flight.repository.FlightRepository;
+import com.rjtmahinay.flight.service.FlightService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.spi.Statement;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fare and seat availability of individual flights, served from memory.
+ * <p>
+ * Each cached flight keeps its seat count and the change not yet written to the database as two
+ * ints packed into one {@link AtomicLong}, so a reservation is a single compare-and-set and can
+ * never oversell. With {@code flight.availability.write-behind} on, reservations only touch
+ * that counter; the pending changes are written to the {@code flights} table in batches every
+ * {@code flush-interval}, and each flushed flight is then announced with one write-behind
+ * {@link FlightChangedEvent}, however many reservations it took. Otherwise reservations go to
+ * the database and the cache follows the resulting change events.
+ * <p>
+ * Reads cache the flight too, from the replica when there is one. Such an entry only serves
+ * reads until the first reservation, which reloads it from the primary before taking seats, so
+ * a lagging replica row can never become the count reservations are checked against.
+ * <p>
+ * Entries drop out once their flight has departed or after {@code ttl}, whichever comes first,
+ * but never while they hold unflushed changes. Beyond {@code max-entries} the entries cached
+ * longest make room for new ones, skipping any that still hold unflushed changes.
+ */
+@Slf4j
+@Component
+public class AvailabilityCache {
+
+    private static final int MAX_EVICTION_TRIES = 16;
+
+    private static final String UPDATE_SQL =
+            "UPDATE flights SET available_seats = available_seats + $1, updated_at = $2 WHERE id = $3";
+
+    private final FlightRepository flightRepository;
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AvailabilityProperties properties;
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    // Entries in the order they were cached, oldest first; may still hold evicted ones
+    private final Queue<Entry> admitted = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushing = new AtomicBoolean();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter flushedRows;
+    private Disposable flusher;
+
+    public AvailabilityCache(FlightRepository flightRepository, DatabaseClient databaseClient,
+                             TransactionalOperator transactionalOperator, ApplicationEventPublisher eventPublisher,
+                             AvailabilityProperties properties, MeterRegistry registry) {
+        this.flightRepository = flightRepository;
+        this.databaseClient = databaseClient;
+        this.transactionalOperator = transactionalOperator;
+        this.eventPublisher = eventPublisher;
+        this.properties = properties;
+        this.hits = lookups(registry, "hit");
+        this.misses = lookups(registry, "miss");
+        this.flushedRows = Counter.builder("flight.availability.flushed")
+                .description("Seat counter changes written to the database by write-behind flushes")
+                .register(registry);
+        Gauge.builder("flight.availability.size", entries, Map::size)
+                .description("Flights whose availability is cached").register(registry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Duration interval = properties.getFlushInterval();
+        // Each flush runs on its own, so stopping the ticker never cancels a write in progress
+        flusher = Flux.interval(interval, interval).subscribe(tick -> {
+            if (!flushing.get()) {
+                flush().subscribe();
+            }
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        if (flusher != null) {
+            flusher.dispose();
+            // Anything still pending would be lost with this instance
+            flush().block(Duration.ofSeconds(10));
+        }
+    }
+
+    /**
+     * Returns the flight's fare and seats, from memory unless it has to be loaded first.
+     */
+    public Mono<FlightAvailability> availability(Long id) {
+        Entry entry = lookup(id);
+        if (entry != null) {
+            return Mono.just(entry.availability());
+        }
+        return flightRepository.findById(id)
+                .switchIfEmpty(Mono.error(new FlightNotFoundException("Flight not found with id: " + id)))
+                .map(flight -> {
+                    // The row may come from a lagging replica, so the entry is not confirmed
+                    Entry cached = cache(flight, false);
+                    return cached != null ? cached.availability() : new FlightAvailability(flight.getId(),
+                            flight.getFlightNumber(), flight.getDepartureTime(), flight.getAvailableSeats(), flight.getPrice());
+                })
+                .contextWrite(ReadRouting::readOnly);
+    }
+
+    /**
+     * Returns the flight with the cached seat count, which may be ahead of the database by
+     * reservations not yet flushed, or the flight itself if it is not cached.
+     */
+    public Flight withCurrentSeats(Flight flight) {
+        Entry entry = properties.isEnabled() && properties.isWriteBehind() ? entries.get(flight.getId()) : null;
+        // Only a confirmed entry can be ahead of the database
+        if (entry == null || !entry.isConfirmed()) {
+            return flight;
+        }
+        flight.setAvailableSeats(entry.seats());
+        flight.setUpdatedAt(Entry.latest(flight.getUpdatedAt(), entry.updatedAt));
+        return flight;
+    }
+
+    /**
+     * Takes seats from a cached flight, returning its new state. Completes empty when reservations
+     * are not written behind or the flight cannot be cached, in which case the caller reserves in
+     * the database.
+     */
+    public Mono<Flight> reserve(Long id, int seats) {
+        return adjust(id, -seats);
+    }
+
+    /**
+     * Returns seats to a cached flight; completes empty like {@link #reserve}.
+     */
+    public Mono<Flight> release(Long id, int seats) {
+        return adjust(id, seats);
+    }
+
+    private Mono<Flight> adjust(Long id, int delta) {
+        if (!properties.isEnabled() || !properties.isWriteBehind()) {
+            return Mono.empty();
+        }
+        Entry cached = lookup(id);
+        // Not read-only: the entry becomes the seat count reservations are checked against
+        Mono<Entry> entry = cached != null && cached.isConfirmed() ? Mono.just(cached)
+                : flightRepository.findById(id).mapNotNull(row -> {
+                    Entry target = cached != null ? cached : cache(row, true);
+                    if (target != null) {
+                        target.confirm(row);
+                    }
+                    return target;
+                });
+        return entry.flatMap(target -> {
+            int seats = target.add(delta, FlightService.now());
+            if (seats == Entry.RETIRED) {
+                // Evicted in the meantime: start again from a fresh entry
+                return adjust(id, delta);
+            }
+            if (seats < 0) {
+                return Mono.error(new SeatsUnavailableException(
+                        "Only " + target.seats() + " seats left on flight " + id));
+            }
+            return Mono.just(target.snapshot(seats));
+        });
+    }
+
+    /**
+     * Writes every seat change made so far to the database, after waiting for a flush already in
+     * progress, then evicts expired entries. Changes of a failed batch are put back and retried by
+     * the next flush. Eviction happens inside the flush so an entry is never dropped while its
+     * last changes are still being written.
+     */
+    public Mono<Integer> flush() {
+        return Mono.defer(() -> flushing.compareAndSet(false, true)
+                ? writePending().doOnSuccess(written -> evictExpired()).doFinally(signal -> flushing.set(false))
+                : Mono.delay(Duration.ofMillis(10)).then(flush()));
+    }
+
+    private Mono<Integer> writePending() {
+        List<PendingWrite> writes = new ArrayList<>();
+        entries.forEach((id, entry) -> {
+            int delta = entry.takePending();
+            if (delta != 0) {
+                // Read after taking the changes, so it is at least as new as any of them
+                writes.add(new PendingWrite(id, entry, delta, entry.updatedAt));
+            }
+        });
+        if (writes.isEmpty()) {
+            return Mono.just(0);
+        }
+        return Flux.fromIterable(writes)
+                .buffer(properties.getFlushBatchSize())
+                .concatMap(this::writeBatch)
+                .reduce(0, Integer::sum);
+    }
+
+    private Mono<Integer> writeBatch(List<PendingWrite> batch) {
+        return databaseClient.inConnectionMany(connection -> {
+                    Statement statement = connection.createStatement(UPDATE_SQL);
+                    for (int i = 0; i < batch.size(); i++) {
+                        if (i > 0) {
+                            statement.add();
+                        }
+                        PendingWrite write = batch.get(i);
+                        statement.bind(0, write.delta()).bind(1, write.updatedAt()).bind(2, write.id());
+                    }
+                    return Flux.from(statement.execute()).concatMap(result -> result.getRowsUpdated());
+                })
+                .then(Mono.just(batch.size()))
+                .as(transactionalOperator::transactional)
+                .doOnNext(written -> {
+                    flushedRows.increment(written);
+                    // One change per flushed flight, carrying its seats as of now
+                    batch.forEach(write -> eventPublisher.publishEvent(new FlightChangedEvent(
+                            FlightChangedEvent.Type.UPDATED, write.entry().snapshot(write.entry().seats()), true)));
+                })
+                .onErrorResume(e -> {
+                    log.warn("Flushing {} seat counter changes failed, retrying next cycle: {}", batch.size(), e.getMessage());
+                    batch.forEach(write -> write.entry().restorePending(write.delta()));
+                    return Mono.just(0);
+                });
+    }
+
+    private void evictExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        long expiredBefore = System.nanoTime() - properties.getTtl().toNanos();
+        entries.forEach((id, entry) -> {
+            if ((entry.loadedAt < expiredBefore || !entry.flight.getDepartureTime().isAfter(now)) && entry.retire()) {
+                entries.remove(id, entry);
+            }
+        });
+        admitted.removeIf(Entry::isRetired);
+    }
+
+    /**
+     * Follows changes made outside this cache. Write-behind changes come from its own flushes and
+     * are skipped.
+     */
+    @EventListener
+    public void onFlightChanged(FlightChangedEvent event) {
+        if (event.isWriteBehind()) {
+            return;
+        }
+        Flight flight = event.getFlight();
+        Entry entry = entries.get(flight.getId());
+        if (entry == null) {
+            return;
+        }
+        if (event.getType() == FlightChangedEvent.Type.DELETED) {
+            entry.retireNow();
+            entries.remove(flight.getId(), entry);
+        } else {
+            entry.refresh(flight);
+        }
+    }
+
+    /**
+     * Archived flights departed long ago, so they hold no unflushed changes and are dropped.
+     */
+    @EventListener
+    public void onFlightsArchived(FlightsArchivedEvent event) {
+        event.getFlights().forEach(flight -> {
+            Entry entry = entries.remove(flight.getId());
+            if (entry != null) {
+                entry.retireNow();
+            }
+        });
+    }
+
+    private Entry lookup(Long id) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        Entry entry = entries.get(id);
+        (entry != null ? hits : misses).increment();
+        return entry;
+    }
+
+    private Entry cache(Flight flight, boolean confirmed) {
+        if (!properties.isEnabled() || !flight.getDepartureTime().isAfter(LocalDateTime.now())) {
+            return null;
+        }
+        Entry created = new Entry(flight, confirmed);
+        Entry existing = entries.putIfAbsent(flight.getId(), created);
+        if (existing != null) {
+            return existing;
+        }
+        admitted.add(created);
+        makeRoom();
+        return created;
+    }
+
+    // Retires the oldest entries until the cache is back within max-entries. Entries with
+    // unflushed changes go to the back of the line; the bound keeps one caller from spinning
+    // when most of the cache is waiting for a flush.
+    private void makeRoom() {
+        for (int tries = 0; entries.size() > properties.getMaxEntries() && tries < MAX_EVICTION_TRIES; tries++) {
+            Entry oldest = admitted.poll();
+            if (oldest == null) {
+                return;
+            }
+            if (oldest.retire()) {
+                entries.remove(oldest.flight.getId(), oldest);
+            } else if (!oldest.isRetired()) {
+                admitted.add(oldest);
+            }
+        }
+    }
+
+    private static Counter lookups(MeterRegistry registry, String result) {
+        return Counter.builder("flight.availability.lookups")
+                .description("Availability lookups by whether the flight was cached")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private record PendingWrite(Long id, Entry entry, int delta, LocalDateTime updatedAt) {
+    }
+
+    /**
+     * One cached flight. The seat count (high 32 bits) and the change not yet written to the
+     * database (low 32 bits) are updated together in one compare-and-set.
+     */
+    static final class Entry {
+
+        static final int RETIRED = Integer.MIN_VALUE;
+        private static final long RETIRED_STATE = Long.MIN_VALUE;
+
+        private final AtomicLong state;
+        private final long loadedAt = System.nanoTime();
+        private volatile Flight flight;
+        // Time of the last seat change made here, or of the row when none was made since
+        private volatile LocalDateTime updatedAt;
+        // Loaded from, or checked against, the primary; only then may it take reservations
+        private volatile boolean confirmed;
+
+        Entry(Flight flight, boolean confirmed) {
+            this.flight = flight;
+            this.confirmed = confirmed;
+            this.updatedAt = flight.getUpdatedAt();
+            this.state = new AtomicLong(pack(flight.getAvailableSeats(), 0));
+        }
+
+        /**
+         * Applies a seat change; returns the new seat count, -1 if there are not enough seats,
+         * or {@link #RETIRED} if the entry was evicted. The change is stamped with {@code at}
+         * before it is applied, so a flush that takes it also sees its time.
+         */
+        int add(int delta, LocalDateTime at) {
+            updatedAt = latest(updatedAt, at);
+            while (true) {
+                long current = state.get();
+                if (current == RETIRED_STATE) {
+                    return RETIRED;
+                }
+                int seats = seats(current) + delta;
+                if (seats < 0) {
+                    return -1;
+                }
+                if (state.compareAndSet(current, pack(seats, pending(current) + delta))) {
+                    return seats;
+                }
+            }
+        }
+
+        int seats() {
+            long current = state.get();
+            return current == RETIRED_STATE ? 0 : seats(current);
+        }
+
+        int takePending() {
+            while (true) {
+                long current = state.get();
+                if (current == RETIRED_STATE || pending(current) == 0) {
+                    return 0;
+                }
+                if (state.compareAndSet(current, pack(seats(current), 0))) {
+                    return pending(current);
+                }
+            }
+        }
+
+        void restorePending(int delta) {
+            state.getAndUpdate(current -> current == RETIRED_STATE ? current
+                    : pack(seats(current), pending(current) + delta));
+        }
+
+        /**
+         * Takes on a row changed elsewhere; changes still pending here are applied on top of it.
+         */
+        void refresh(Flight changed) {
+            flight = changed;
+            updatedAt = latest(updatedAt, changed.getUpdatedAt());
+            state.getAndUpdate(current -> current == RETIRED_STATE ? current
+                    : pack(changed.getAvailableSeats() + pending(current), pending(current)));
+        }
+
+        boolean isConfirmed() {
+            return confirmed;
+        }
+
+        /**
+         * Takes on the row read from the primary, once. Nothing can be pending before that, as
+         * only confirmed entries take reservations, so the row's count is the current one.
+         */
+        synchronized void confirm(Flight row) {
+            if (!confirmed) {
+                refresh(row);
+                confirmed = true;
+            }
+        }
+
+        boolean isRetired() {
+            return state.get() == RETIRED_STATE;
+        }
+
+        /**
+         * Retires the entry unless it still holds changes the database has not seen.
+         */
+        boolean retire() {
+            long current = state.get();
+            return current != RETIRED_STATE && pending(current) == 0 && state.compareAndSet(current, RETIRED_STATE);
+        }
+
+        void retireNow() {
+            state.set(RETIRED_STATE);
+        }
+
+        FlightAvailability availability() {
+            Flight current = flight;
+            return new FlightAvailability(current.getId(), current.getFlightNumber(), current.getDepartureTime(),
+                    seats(), current.getPrice());
+        }
+
+        Flight snapshot(int seats) {
+            Flight current = flight;
+            return Flight.builder()
+                    .id(current.getId())
+                    .airlineName(current.getAirlineName())
+                    .flightNumber(current.getFlightNumber())
+                    .origin(current.getOrigin())
+                    .destination(current.getDestination())
+                    .departureTime(current.getDepartureTime())
+                    .arrivalTime(current.getArrivalTime())
+                    .availableSeats(seats)
+                    .price(current.getPrice())
+                    .status(current.getStatus())
+                    .updatedAt(latest(current.getUpdatedAt(), updatedAt))
+                    .build();
+        }
+
+        static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+            return a == null || (b != null && b.isAfter(a)) ? b : a;
+        }
+
+        private static long pack(int seats, int pending) {
+            return ((long) seats << 32) | (pending & 0xFFFFFFFFL);
+        }
+
+        private static int seats(long state) {
+            return (int) (state >> 32);
+        }
+
+        private static int pending(long state) {
+            return (int) state;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.rjtmahinay.flight.availability;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "flight.availability")
+public class AvailabilityProperties {
+
+    /**
+     * Serve price and seat lookups from memory.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Take seat reservations in memory and flush them to the database in batches. Only safe
+     * while a single instance writes to the database; otherwise reservations go straight to it.
+     */
+    private boolean writeBehind = true;
+
+    /**
+     * Interval between write-behind flushes, which bounds how far the database lags behind.
+     */
+    private Duration flushInterval = Duration.ofMillis(500);
+
+    /**
+     * Seat counter updates sent to the database per batch.
+     */
+    private int flushBatchSize = 500;
+
+    /**
+     * Entries are reloaded from the database at most this long after they were loaded.
+     */
+    private Duration ttl = Duration.ofSeconds(30);
+
+    /**
+     * Flights cached at once; beyond this, the entries cached longest are evicted to make room.
+     */
+    private int maxEntries = 100_000;
+}
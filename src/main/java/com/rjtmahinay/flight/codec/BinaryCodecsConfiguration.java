@@ -0,0 +1,38 @@
+package com.rjtmahinay.flight.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Serves and accepts CBOR ({@code application/cbor}) and Smile ({@code application/x-jackson-smile})
+ * next to JSON, chosen by the Accept and Content-Type headers. JSON stays the default.
+ */
+@Configuration(proxyBeanMethods = false)
+public class BinaryCodecsConfiguration {
+
+    @Bean
+    CodecCustomizer binaryCodecsCustomizer(ObjectMapper objectMapper,
+                                           ObjectProvider<Jackson2ObjectMapperBuilder> builders) {
+        // The builder is a prototype bean carrying Spring Boot's Jackson settings; one per mapper
+        ObjectMapper cbor = BinaryCodecs.cborMapper(builders.getObject());
+        ObjectMapper smile = BinaryCodecs.smileMapper(builders.getObject());
+        return configurer -> {
+            configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smile, BinaryCodecs.APPLICATION_SMILE));
+            configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smile, BinaryCodecs.APPLICATION_SMILE));
+            // Custom codecs are consulted before the default ones, so JSON goes first to stay
+            // the answer to Accept */* and the encoding of bodies without a content type
+            configurer.customCodecs().register(new Jackson2JsonEncoder(objectMapper));
+            configurer.customCodecs().register(new CollectingCborEncoder(cbor));
+            configurer.customCodecs().register(new Jackson2CborDecoder(cbor, MediaType.APPLICATION_CBOR));
+        };
+    }
+}
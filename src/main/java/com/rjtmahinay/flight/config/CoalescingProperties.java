@@ -0,0 +1,28 @@
+package com.rjtmahinay.flight.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "flight.coalescing")
+public class CoalescingProperties {
+
+    /**
+     * Share one database query between identical concurrent searches.
+     */
+    private boolean enabled = true;
+
+    /**
+     * How long a completed result keeps being served to identical queries.
+     */
+    private Duration ttl = Duration.ofMillis(500);
+
+    /**
+     * Distinct queries tracked at once; beyond this, queries run uncoalesced.
+     */
+    private int maxEntries = 10_000;
+}
@@ -1,23 +1,44 @@
 package com.rjtmahinay.flight.config;
 
+import com.rjtmahinay.flight.index.RouteIndex;
+import com.rjtmahinay.flight.index.RouteIndexProperties;
 import com.rjtmahinay.flight.model.Flight;
 import com.rjtmahinay.flight.repository.FlightRepository;
+import com.rjtmahinay.flight.service.FlightIngestService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
+/**
+ * Loads sample flights and an optional synthetic schedule when {@code flight.seed.enabled} is set.
+ * Seeding runs in the background, so it never delays readiness; the route index is rebuilt once
+ * it has finished.
+ */
+@Slf4j
 @Component
 @RequiredArgsConstructor
-@Profile("!test") // Don't run this in tests
+@Profile("!test & !postgres") // Sample data wipes the table: never against tests or a shared database
+@ConditionalOnProperty(prefix = "flight.seed", name = "enabled", havingValue = "true")
 public class DataInitializer implements CommandLineRunner {
 
     private final FlightRepository flightRepository;
+    private final FlightIngestService flightIngestService;
+    private final IngestProperties ingestProperties;
+    private final RouteIndex routeIndex;
+    private final RouteIndexProperties routeIndexProperties;
+    private final Sinks.Empty<Void> seeded = Sinks.empty();
 
     @Override
     public void run(String... args) {
+        long started = System.nanoTime();
         // Clear existing data
         flightRepository.deleteAll()
                 .thenMany(
@@ -56,6 +77,37 @@ public class DataInitializer implements CommandLineRunner {
                                         .status("DELAYED")
                                         .build()))
                 )
-                .subscribe();
+                .then(seedSyntheticSchedule(ingestProperties.getSeedFlights()))
+                // The index may have loaded before the table was cleared
+                .then(routeIndexProperties.isEnabled() ? routeIndex.reload().then() : Mono.empty())
+                .subscribe(null,
+                        e -> {
+                            log.error("Seeding sample data failed", e);
+                            seeded.tryEmitError(e);
+                        },
+                        () -> {
+                            log.info("Seeded sample data in {} ms", (System.nanoTime() - started) / 1_000_000);
+                            seeded.tryEmitEmpty();
+                        });
+    }
+
+    /**
+     * Completes once seeding has finished.
+     */
+    public Mono<Void> seeded() {
+        return seeded.asMono();
+    }
+
+    /**
+     * Seeds a reproducible synthetic schedule through the bulk ingest path and logs its throughput.
+     */
+    private Mono<Void> seedSyntheticSchedule(int count) {
+        if (count <= 0) {
+            return Mono.empty();
+        }
+        return flightIngestService.ingest(SyntheticSchedule.flights(count, LocalDate.now().plusDays(1), 42))
+                .doOnNext(report -> log.info("Seeded {} synthetic flights in {} ms ({} rows/sec, {} rejected)",
+                        report.getInserted(), report.getElapsedMillis(), report.getRowsPerSecond(), report.getFailed()))
+                .then();
     }
 }
@@ -0,0 +1,26 @@
+package com.rjtmahinay.flight.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "flight.ingest")
+public class IngestProperties {
+
+    /**
+     * Rows bound into one batched insert statement.
+     */
+    private int batchSize = 500;
+
+    /**
+     * Batches written in parallel.
+     */
+    private int concurrency = 4;
+
+    /**
+     * Synthetic flights seeded through the bulk ingest path at startup, 0 to disable.
+     */
+    private int seedFlights = 0;
+}
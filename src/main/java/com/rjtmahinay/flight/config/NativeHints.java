@@ -0,0 +1,57 @@
+package com.rjtmahinay.flight.config;
+
+import com.rjtmahinay.flight.dto.BulkIngestResponse;
+import com.rjtmahinay.flight.dto.FlightAvailability;
+import com.rjtmahinay.flight.dto.FlightSearchRequest;
+import com.rjtmahinay.flight.dto.FlightSearchResponse;
+import com.rjtmahinay.flight.dto.FlightStatusBatchItem;
+import com.rjtmahinay.flight.dto.FlightStatusRequest;
+import com.rjtmahinay.flight.dto.FlightStatusResponse;
+import com.rjtmahinay.flight.dto.FlightStatusUpdate;
+import com.rjtmahinay.flight.dto.RouteAggregate;
+import com.rjtmahinay.flight.dto.SeatReservationRequest;
+import com.rjtmahinay.flight.model.Flight;
+import com.rjtmahinay.flight.repository.FlightRepository;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+/**
+ * Reflection and resource hints for a GraalVM native image that AOT processing cannot infer
+ * on its own: Jackson binding of the request and response bodies, the repository methods
+ * {@link QueryPlanVerifier} introspects, and the Flyway migration scripts.
+ */
+@Configuration(proxyBeanMethods = false)
+@ImportRuntimeHints(NativeHints.Registrar.class)
+public class NativeHints {
+
+    static class Registrar implements RuntimeHintsRegistrar {
+
+        private static final Class<?>[] BODIES = {
+                Flight.class,
+                BulkIngestResponse.class,
+                BulkIngestResponse.RecordError.class,
+                FlightAvailability.class,
+                FlightSearchRequest.class,
+                FlightSearchResponse.class,
+                FlightStatusBatchItem.class,
+                FlightStatusRequest.class,
+                FlightStatusResponse.class,
+                FlightStatusUpdate.class,
+                RouteAggregate.class,
+                SeatReservationRequest.class
+        };
+
+        private final BindingReflectionHintsRegistrar bindings = new BindingReflectionHintsRegistrar();
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            bindings.registerReflectionHints(hints.reflection(), BODIES);
+            hints.reflection().registerType(FlightRepository.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+            hints.resources().registerPattern("db/migration/*.sql");
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.rjtmahinay.flight.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "flight.paging")
+public class PagingProperties {
+
+    /**
+     * Page size used when the client does not ask for one.
+     */
+    private int defaultSize = 100;
+
+    /**
+     * Upper bound on the page size a client may request.
+     */
+    private int maxSize = 1000;
+
+    /**
+     * Rows fetched per keyset query while streaming the full table.
+     */
+    private int streamBatchSize = 500;
+}
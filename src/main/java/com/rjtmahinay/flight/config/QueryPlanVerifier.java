@@ -0,0 +1,119 @@
+package com.rjtmahinay.flight.config;
+
+import com.rjtmahinay.flight.repository.FlightRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Runs {@code EXPLAIN} on every {@link Query} declared on {@link FlightRepository} once the
+ * application is ready, and logs a warning for each one the database would answer with a
+ * full table scan. Catches queries added without a matching index before they reach
+ * production data volumes.
+ * <p>
+ * PostgreSQL prefers a sequential scan of a small table even where an index fits, so there the
+ * plans are taken with sequential scans disabled for the transaction; the planner then only
+ * chooses one when no index can answer the query.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "flight.query-plan-check", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class QueryPlanVerifier {
+
+    // H2 marks scans as "tableScan", PostgreSQL as "Seq Scan"
+    private static final List<String> TABLE_SCAN_MARKERS = List.of("tablescan", "seq scan");
+
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        verify(FlightRepository.class)
+                .filter(report -> report.tableScan)
+                .doOnNext(report -> log.warn("{}.{} falls back to a table scan: {}",
+                        FlightRepository.class.getSimpleName(), report.method, report.plan))
+                .count()
+                .subscribe(scans -> {
+                    if (scans == 0) {
+                        log.info("Query plans of {} use indexes", FlightRepository.class.getSimpleName());
+                    }
+                }, e -> log.warn("Query plan check failed", e));
+    }
+
+    /**
+     * Explains every {@link Query} method of the given repository interface.
+     */
+    public Flux<PlanReport> verify(Class<?> repository) {
+        Flux<PlanReport> reports = Flux.fromArray(repository.getMethods())
+                .filter(method -> method.isAnnotationPresent(Query.class))
+                .concatMap(this::explain);
+        if (!isPostgres()) {
+            return reports;
+        }
+        return databaseClient.sql("SET LOCAL enable_seqscan = off")
+                .then()
+                .thenMany(reports)
+                .as(transactionalOperator::transactional);
+    }
+
+    private boolean isPostgres() {
+        return databaseClient.getConnectionFactory().getMetadata().getName()
+                .toLowerCase(Locale.ROOT).contains("postgresql");
+    }
+
+    private Mono<PlanReport> explain(Method method) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql("EXPLAIN " + method.getAnnotation(Query.class).value());
+        for (Parameter parameter : method.getParameters()) {
+            spec = spec.bind(parameter.getName(), sampleValue(parameter.getType()));
+        }
+        return spec.map(row -> String.valueOf(row.get(0)))
+                .all()
+                .collect(Collectors.joining(" "))
+                .map(plan -> plan.replaceAll("\\s+", " "))
+                .map(plan -> new PlanReport(method.getName(), plan, isTableScan(plan)));
+    }
+
+    private static boolean isTableScan(String plan) {
+        String normalized = plan.toLowerCase(Locale.ROOT);
+        return TABLE_SCAN_MARKERS.stream().anyMatch(normalized::contains);
+    }
+
+    private static Object sampleValue(Class<?> type) {
+        if (Collection.class.isAssignableFrom(type)) {
+            return List.of("X", "Y");
+        }
+        if (type == LocalDateTime.class) {
+            return LocalDateTime.now();
+        }
+        if (type == Long.class || type == long.class) {
+            return 1L;
+        }
+        if (type == Integer.class || type == int.class) {
+            return 1;
+        }
+        if (type == Double.class || type == double.class) {
+            return 1d;
+        }
+        return "X";
+    }
+
+    public record PlanReport(String method, String plan, boolean tableScan) {
+    }
+}
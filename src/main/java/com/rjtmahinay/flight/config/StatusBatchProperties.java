@@ -0,0 +1,32 @@
+package com.rjtmahinay.flight.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "flight.status-batch")
+public class StatusBatchProperties {
+
+    /**
+     * Most (flight number, date) pairs accepted in one batch status request.
+     */
+    private int maxSize = 1000;
+
+    /**
+     * Pairs looked up per database query.
+     */
+    private int chunkSize = 100;
+
+    /**
+     * Most consecutive days one database query covers. A query asks for every flight number
+     * of its pairs on every day of its range, so a wide range reads flights nobody asked for.
+     */
+    private int maxDaySpan = 1;
+
+    /**
+     * Queries of one batch running at the same time.
+     */
+    private int concurrency = 4;
+}
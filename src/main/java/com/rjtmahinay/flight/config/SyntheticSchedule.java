@@ -0,0 +1,57 @@
+package com.rjtmahinay.flight.config;
+
+import com.rjtmahinay.flight.model.Flight;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates reproducible synthetic flight schedules for seeding and benchmarking.
+ */
+public final class SyntheticSchedule {
+
+    public static final List<String> AIRPORTS = List.of(
+            "JFK", "LAX", "ORD", "ATL", "DFW", "DEN", "SFO", "SEA", "MIA", "BOS", "LAS", "PHX");
+    public static final List<String> AIRLINES = List.of(
+            "United Airlines", "American Airlines", "Delta Air Lines", "Alaska Airlines", "JetBlue Airways");
+    public static final List<String> AIRLINE_CODES = List.of("UA", "AA", "DL", "AS", "B6");
+
+    /**
+     * Number of consecutive days, starting at {@code firstDay}, the generated departures are spread over.
+     */
+    public static final int DAYS = 30;
+
+    private SyntheticSchedule() {
+    }
+
+    /**
+     * Returns {@code count} new flights departing within {@link #DAYS} days from {@code firstDay}.
+     * The same seed always yields the same schedule.
+     */
+    public static Flux<Flight> flights(int count, LocalDate firstDay, long seed) {
+        return Flux.defer(() -> {
+            Random random = new Random(seed);
+            LocalDateTime start = firstDay.atStartOfDay();
+            return Flux.range(0, count).map(i -> {
+                int airline = random.nextInt(AIRLINES.size());
+                int origin = random.nextInt(AIRPORTS.size());
+                int destination = (origin + 1 + random.nextInt(AIRPORTS.size() - 1)) % AIRPORTS.size();
+                LocalDateTime departure = start.plusDays(random.nextInt(DAYS)).plusMinutes(random.nextInt(24 * 12) * 5L);
+                return Flight.builder()
+                        .airlineName(AIRLINES.get(airline))
+                        .flightNumber(AIRLINE_CODES.get(airline) + (1000 + i % 9000))
+                        .origin(AIRPORTS.get(origin))
+                        .destination(AIRPORTS.get(destination))
+                        .departureTime(departure)
+                        .arrivalTime(departure.plusMinutes(60 + random.nextInt(60 * 6)))
+                        .availableSeats(random.nextInt(300))
+                        .price(Math.round((80 + random.nextDouble() * 900) * 100) / 100d)
+                        .status("SCHEDULED")
+                        .build();
+            });
+        });
+    }
+}
@@ -1,9 +1,25 @@
 package com.rjtmahinay.flight.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.rjtmahinay.flight.codec.BinaryCodecs;
+import com.rjtmahinay.flight.dto.BulkIngestResponse;
+import com.rjtmahinay.flight.dto.FlightAvailability;
+import com.rjtmahinay.flight.dto.FlightSearchRequest;
+import com.rjtmahinay.flight.dto.FlightSearchResponse;
+import com.rjtmahinay.flight.dto.FlightStatusBatchItem;
 import com.rjtmahinay.flight.dto.FlightStatusRequest;
 import com.rjtmahinay.flight.dto.FlightStatusResponse;
+import com.rjtmahinay.flight.dto.FlightStatusUpdate;
+import com.rjtmahinay.flight.dto.RouteAggregate;
+import com.rjtmahinay.flight.feed.FlightStatusFeed;
+import com.rjtmahinay.flight.dto.SeatReservationRequest;
 import com.rjtmahinay.flight.model.Flight;
+import com.rjtmahinay.flight.offload.Offloader;
+import com.rjtmahinay.flight.service.ConnectionSearchService;
+import com.rjtmahinay.flight.service.FlightIngestService;
 import com.rjtmahinay.flight.service.FlightService;
+import com.rjtmahinay.flight.service.FlightStatusProjection;
+import com.rjtmahinay.flight.service.RouteAggregateService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -11,16 +27,21 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/flights")
@@ -28,7 +49,21 @@ import java.util.List;
 @Tag(name = "Flight Search API", description = "Reactive API for searching and managing flight details.")
 public class FlightController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    // Offload endpoints, see Offloader
+    static final String STATUS = "status";
+    static final String FLIGHTS = "flights";
+    static final String CONNECTIONS = "connections";
+    static final String AGGREGATES = "aggregates";
+
     private final FlightService flightService;
+    private final FlightIngestService flightIngestService;
+    private final FlightStatusProjection flightStatusProjection;
+    private final ConnectionSearchService connectionSearchService;
+    private final RouteAggregateService routeAggregateService;
+    private final FlightStatusFeed flightStatusFeed;
+    private final Offloader offloader;
 
     @Operation(summary = "Search for available flights",
             description = "Searches for available flights based on origin, destination, and date.")
@@ -37,26 +72,124 @@ public class FlightController {
             @ApiResponse(responseCode = "400", description = "Invalid input parameters")
     })
     @GetMapping("/search")
-    public Flux<Flight> searchFlights(
+    public Mono<ResponseEntity<List<Flight>>> searchFlights(
             @RequestParam String origin,
             @RequestParam String destination,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime date) {
-                
-        return flightService.searchFlights(origin, destination, date);
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime date,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+
+        // A matching If-None-Match is answered with 304 before the list is encoded
+        MediaType representation = FlightETags.representation(accept);
+        return flightService.searchFlights(origin, destination, date)
+                .collectList()
+                .map(flights -> ResponseEntity.ok()
+                        .eTag(FlightETags.of(flights, representation))
+                        .varyBy(HttpHeaders.ACCEPT)
+                        .body(flights));
     }
     
-    @Operation(summary = "Get all flights", 
-              description = "Retrieves all available flights.")
-    @GetMapping
-    public Flux<Flight> getAllFlights() {
-        return flightService.getAllFlights();
+    @Operation(summary = "Search for bookable flights",
+            description = "Searches one route on one day for flights with enough seats for the given number of "
+                    + "passengers, optionally of one airline, sorted and limited on the server.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved flight data"),
+            @ApiResponse(responseCode = "400", description = "Invalid input parameters")
+    })
+    @PostMapping("/search")
+    public Flux<Flight> searchFlights(@Valid @RequestBody FlightSearchRequest request) {
+        return flightService.searchFlights(request);
+    }
+
+    @Operation(summary = "Search for connecting itineraries",
+            description = "Finds direct and connecting itineraries departing on the given day, with up to maxStops "
+                    + "connections of between minConnection and maxConnection minutes each, fastest first.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved itineraries"),
+            @ApiResponse(responseCode = "503", description = "Route index not loaded yet")
+    })
+    @GetMapping("/connections")
+    public Mono<FlightSearchResponse> searchConnections(
+            @RequestParam String origin,
+            @RequestParam String destination,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime date,
+            @RequestParam(defaultValue = "1") int maxStops,
+            @RequestParam(defaultValue = "45") long minConnection,
+            @RequestParam(defaultValue = "360") long maxConnection,
+            @RequestParam(defaultValue = "20") int limit) {
+        return Mono.just(date.toLocalDate())
+                .transform(offloader.on(CONNECTIONS))
+                .map(day -> connectionSearchService.search(origin, destination, day, maxStops,
+                        Duration.ofMinutes(minConnection), Duration.ofMinutes(maxConnection), limit))
+                .map(itineraries -> new FlightSearchResponse(
+                        "Success",
+                        itineraries.isEmpty() ? "No itineraries found." : itineraries.size() + " itineraries found.",
+                        itineraries.stream().map(flightStatusProjection::toDetails).toList()));
+    }
+
+    @Operation(summary = "Aggregate fares, seats and statuses by route and day",
+            description = "Returns the lowest and average fare, the seats still available and the number of flights "
+                    + "by status for every route and departure day matching the optional filters. The date range "
+                    + "includes both ends.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully computed the aggregates"),
+            @ApiResponse(responseCode = "400", description = "Invalid date range")
+    })
+    @GetMapping("/aggregates")
+    public Mono<List<RouteAggregate>> getRouteAggregates(
+            @RequestParam(required = false) String origin,
+            @RequestParam(required = false) String destination,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return Mono.just(AGGREGATES)
+                .transform(offloader.on(AGGREGATES))
+                .flatMap(endpoint -> routeAggregateService.aggregates(origin, destination, from, to).collectList());
+    }
+
+    @Operation(summary = "Get all flights",
+              description = "Retrieves one page of flights ordered by id. Pass the X-Next-Cursor header of a "
+                      + "response as the cursor parameter to fetch the following page.")
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+            BinaryCodecs.APPLICATION_SMILE_VALUE})
+    public Mono<ResponseEntity<List<Flight>>> getAllFlights(
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Integer size) {
+        // Encoding a full page is the expensive part, and it runs where the list is emitted
+        return flightService.getFlightsPage(cursor, size)
+                .collectList()
+                .transform(offloader.on(FLIGHTS))
+                .map(flights -> {
+                    ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+                    if (!flights.isEmpty()) {
+                        builder.header(NEXT_CURSOR_HEADER, String.valueOf(flights.get(flights.size() - 1).getId()));
+                    }
+                    return builder.body(flights);
+                });
+    }
+
+    @Operation(summary = "Stream all flights",
+              description = "Streams every flight as newline-delimited JSON at the pace the client reads.")
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Flight> streamAllFlights() {
+        return flightService.streamAllFlights();
     }
     
     @Operation(summary = "Get flight by ID")
     @GetMapping("/{id}")
-    public Mono<ResponseEntity<Flight>> getFlightById(@PathVariable Long id) {
+    public Mono<ResponseEntity<Flight>> getFlightById(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        MediaType representation = FlightETags.representation(accept);
         return flightService.getFlightById(id)
-                .map(ResponseEntity::ok)
+                .map(flight -> {
+                    ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                            .eTag(FlightETags.of(flight, representation))
+                            .varyBy(HttpHeaders.ACCEPT);
+                    Instant lastModified = FlightETags.lastModified(flight);
+                    if (lastModified != null) {
+                        builder.lastModified(lastModified);
+                    }
+                    return builder.body(flight);
+                })
                 .defaultIfEmpty(ResponseEntity.notFound().build());
     }
     
@@ -67,6 +200,24 @@ public class FlightController {
         return flightService.saveFlight(flight);
     }
     
+    @Operation(summary = "Bulk ingest flights",
+            description = "Accepts a JSON array of new flights, validates each record and writes them in batched "
+                    + "inserts as the array streams in. Rejected records are reported by their position in the body. "
+                    + "Malformed JSON stops the read and is reported at its position; records before it are "
+                    + "still written.")
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<BulkIngestResponse> ingestFlights(@RequestBody Flux<JsonNode> flights) {
+        return flightIngestService.ingestArray(flights);
+    }
+
+    @Operation(summary = "Bulk ingest flights from NDJSON",
+            description = "Same as the JSON array variant, decoding each line on its own so a malformed line is "
+                    + "reported as a rejected record.")
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<BulkIngestResponse> ingestFlightLines(@RequestBody Flux<String> lines) {
+        return flightIngestService.ingestLines(lines);
+    }
+
     @Operation(summary = "Update an existing flight")
     @PutMapping("/{id}")
     public Mono<ResponseEntity<Flight>> updateFlight(
@@ -76,6 +227,39 @@ public class FlightController {
                 .defaultIfEmpty(ResponseEntity.notFound().build());
     }
     
+    @Operation(summary = "Reserve seats on a flight",
+            description = "Atomically takes seats from the flight's availability.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Seats reserved"),
+            @ApiResponse(responseCode = "404", description = "Flight not found"),
+            @ApiResponse(responseCode = "409", description = "Not enough seats left")
+    })
+    @PostMapping("/{id}/reserve")
+    public Mono<Flight> reserveSeats(
+            @PathVariable Long id, @Valid @RequestBody SeatReservationRequest request) {
+        return flightService.reserveSeats(id, request.getSeats());
+    }
+
+    @Operation(summary = "Release seats on a flight",
+            description = "Atomically returns previously reserved seats to the flight's availability.")
+    @PostMapping("/{id}/release")
+    public Mono<Flight> releaseSeats(
+            @PathVariable Long id, @Valid @RequestBody SeatReservationRequest request) {
+        return flightService.releaseSeats(id, request.getSeats());
+    }
+
+    @Operation(summary = "Get fare and seat availability",
+            description = "Returns the current fare and available seats of a flight, served from memory for " +
+                    "recently looked-up flights. Seat counts include reservations not yet written to the database.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Availability found"),
+            @ApiResponse(responseCode = "404", description = "Flight not found")
+    })
+    @GetMapping("/{id}/availability")
+    public Mono<FlightAvailability> getAvailability(@PathVariable Long id) {
+        return flightService.getAvailability(id);
+    }
+
     @Operation(summary = "Delete a flight")
     @DeleteMapping("/{id}")
     public Mono<ResponseEntity<Void>> deleteFlight(@PathVariable Long id) {
@@ -88,56 +272,78 @@ public class FlightController {
             description = "Retrieves the current status of a specific flight by flight number and date.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved flight status"),
+            @ApiResponse(responseCode = "304", description = "Flight status unchanged since the given ETag"),
             @ApiResponse(responseCode = "400", description = "Invalid input parameters"),
             @ApiResponse(responseCode = "404", description = "Flight not found")
     })
     @PostMapping("/status")
     public Mono<ResponseEntity<FlightStatusResponse>> checkFlightStatus(
-            @Valid @RequestBody FlightStatusRequest request) {
-        
-        return flightService.searchFlightsByNumberAndDate(
-                request.getFlightNumber(), 
-                request.getDate() != null ? request.getDate() : null)
-            .collectList()
-            .flatMap(flights -> {
-                if (flights.isEmpty()) {
+            @Valid @RequestBody FlightStatusRequest request,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+
+        // The lookup is a read, so it honours If-None-Match even though it is a POST
+        MediaType representation = FlightETags.representation(accept);
+        return flightService.searchFlightsByNumberAndDate(request.getFlightNumber(), request.getDate())
+                .collectList()
+                .transform(offloader.on(STATUS))
+                .map(flights -> {
                     FlightStatusResponse response = new FlightStatusResponse();
-                    response.setStatus("Error");
-                    response.setMessage("Flight not found.");
-                    response.setFlights(List.of());
-                    return Mono.just(ResponseEntity.status(HttpStatus.NOT_FOUND).body(response));
-                }
-                
-                List<FlightStatusResponse.FlightStatus> statuses = flights.stream()
-                    .map(flight -> {
-                        FlightStatusResponse.FlightStatus status = new FlightStatusResponse.FlightStatus();
-                        status.setAirlineName(flight.getAirlineName() != null ? flight.getAirlineName() : "Unknown Airline");
-                        status.setFlightNumber(flight.getFlightNumber());
-                        status.setDepartureTime(flight.getDepartureTime().format(DateTimeFormatter.ofPattern("hh:mm a")));
-                        status.setArrivalTime(flight.getArrivalTime().format(DateTimeFormatter.ofPattern("hh:mm a")));
-                        status.setDepartureDate(flight.getDepartureTime().toLocalDate().toString());
-                        status.setStatus(flight.getStatus());
-                        
-                        // Calculate duration
-                        Duration duration = Duration.between(flight.getDepartureTime(), flight.getArrivalTime());
-                        long hours = duration.toHours();
-                        long minutes = duration.minusHours(hours).toMinutes();
-                        status.setDuration(String.format("%dh %02dm", hours, minutes));
-                        
-                        // Set default values for other required fields
-                        status.setLayovers("None");
-                        status.setDelay(flight.getStatus().equals("Delayed") ? "30 min" : null);
-                        
-                        return status;
-                    })
-                    .toList();
-                
-                FlightStatusResponse response = new FlightStatusResponse();
-                response.setStatus("Success");
-                response.setMessage("Flight status retrieved successfully.");
-                response.setFlights(statuses);
-                
-                return Mono.just(ResponseEntity.ok(response));
-            });
+                    if (flights.isEmpty()) {
+                        response.setStatus("Error");
+                        response.setMessage("Flight not found.");
+                        response.setFlights(List.of());
+                        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+                    }
+                    String tag = FlightETags.of(flights, representation);
+                    if (FlightETags.matches(ifNoneMatch, tag)) {
+                        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                                .eTag(tag)
+                                .varyBy(HttpHeaders.ACCEPT)
+                                .<FlightStatusResponse>build();
+                    }
+                    response.setStatus("Success");
+                    response.setMessage("Flight status retrieved successfully.");
+                    response.setFlights(flights.stream().map(flightStatusProjection::toStatus).toList());
+                    return ResponseEntity.ok().eTag(tag).varyBy(HttpHeaders.ACCEPT).body(response);
+                });
+    }
+
+    @Operation(summary = "Check the status of many flights",
+            description = "Looks up a list of flight number and date pairs with one query per chunk of pairs and "
+                    + "streams one entry per distinct pair as its chunk resolves, in no particular order. Pairs "
+                    + "without a matching flight come back with status Error and no flights.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Statuses of the requested flights"),
+            @ApiResponse(responseCode = "400", description = "Invalid pair or too many pairs")
+    })
+    @PostMapping(value = "/status/batch", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<FlightStatusBatchItem> checkFlightStatuses(@RequestBody List<FlightStatusRequest> requests) {
+        return flightService.searchFlightsByNumbersAndDates(requests)
+                .map(lookup -> lookup.flights().isEmpty()
+                        ? new FlightStatusBatchItem(lookup.flightNumber(), lookup.day().toString(),
+                                "Error", "Flight not found.", List.of())
+                        : new FlightStatusBatchItem(lookup.flightNumber(), lookup.day().toString(),
+                                "Success", "Flight status retrieved successfully.",
+                                lookup.flights().stream().map(flightStatusProjection::toStatus).toList()));
+    }
+
+    @Operation(summary = "Stream flight status changes",
+            description = "Server-Sent Events stream of changes to the given flight numbers and routes (e.g. JFK-LAX). "
+                    + "Without either, changes to every flight are streamed. Rapid changes to one flight are "
+                    + "delivered once as its latest state, and clients that fall behind skip to the latest state of "
+                    + "each flight.")
+    @GetMapping(value = "/status/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<FlightStatusUpdate>> streamFlightStatus(
+            @RequestParam(required = false, defaultValue = "") Set<String> flightNumbers,
+            @RequestParam(required = false, defaultValue = "") Set<String> routes) {
+        Flux<ServerSentEvent<FlightStatusUpdate>> updates = flightStatusFeed.subscribe(flightNumbers, routes)
+                .map(update -> ServerSentEvent.builder(update)
+                        .event("flight-status")
+                        .id(String.valueOf(update.getId()))
+                        .build());
+        Flux<ServerSentEvent<FlightStatusUpdate>> heartbeats = flightStatusFeed.heartbeats()
+                .map(tick -> ServerSentEvent.<FlightStatusUpdate>builder().comment("heartbeat").build());
+        return Flux.merge(updates, heartbeats);
     }
 }
@@ -0,0 +1,126 @@
+package com.rjtmahinay.flight.controller;
+
+import com.rjtmahinay.flight.codec.BinaryCodecs;
+import com.rjtmahinay.flight.model.Flight;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Validators for conditional requests on flight resources.
+ * <p>
+ * A flight's version is its id and {@code updated_at}, which every write moves, including seat
+ * changes still waiting to be written behind. A single flight's ETag spells its version out; a
+ * result set's is a 64-bit hash over the versions of its flights, so a flight joining or leaving
+ * the set changes the tag too. Tags are computed from the entities, not the serialized body, so a
+ * matching request can be answered with 304 before anything is encoded.
+ * <p>
+ * JSON, CBOR and Smile bodies of the same flights differ, so every tag ends in the
+ * representation the Accept header selects and responses carry {@code Vary: Accept}.
+ */
+final class FlightETags {
+
+    private FlightETags() {
+    }
+
+    private static final List<MediaType> REPRESENTATIONS =
+            List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR, BinaryCodecs.APPLICATION_SMILE);
+
+    static String of(Flight flight, MediaType representation) {
+        LocalDateTime updatedAt = flight.getUpdatedAt();
+        return "\"" + flight.getId() + "-" + (updatedAt == null ? "0" : Long.toHexString(epochNanos(updatedAt)))
+                + "-" + representation.getSubtype() + "\"";
+    }
+
+    static String of(Collection<Flight> flights, MediaType representation) {
+        Accumulator accumulator = new Accumulator();
+        flights.forEach(accumulator::add);
+        return accumulator.value(representation);
+    }
+
+    /**
+     * The response format the codecs will pick for an Accept header: the first format the most
+     * preferred media ranges allow, and JSON when the header is missing, unparseable or allows
+     * anything.
+     */
+    static MediaType representation(String accept) {
+        List<MediaType> accepted;
+        try {
+            accepted = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_JSON;
+        }
+        accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType range : accepted) {
+            if (range.getQualityValue() == 0) {
+                break;
+            }
+            for (MediaType representation : REPRESENTATIONS) {
+                if (range.isCompatibleWith(representation)) {
+                    return representation;
+                }
+            }
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+
+    /**
+     * Builds the ETag of a result set one flight at a time, as the flights stream past.
+     */
+    static final class Accumulator {
+        private long hash = 0x9E3779B97F4A7C15L;
+        private int count;
+
+        void add(Flight flight) {
+            hash = mix(hash, flight);
+            count++;
+        }
+
+        String value(MediaType representation) {
+            return "\"" + Long.toHexString(hash ^ count) + "-" + representation.getSubtype() + "\"";
+        }
+    }
+
+    /**
+     * Last-Modified of a single flight, or {@code null} if the row predates the column.
+     */
+    static Instant lastModified(Flight flight) {
+        LocalDateTime updatedAt = flight.getUpdatedAt();
+        return updatedAt == null ? null : updatedAt.atZone(ZoneId.systemDefault()).toInstant();
+    }
+
+    /**
+     * Whether an If-None-Match header value matches the given ETag.
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || trimmed.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long mix(long hash, Flight flight) {
+        LocalDateTime updatedAt = flight.getUpdatedAt();
+        hash = (hash ^ (flight.getId() == null ? 0 : flight.getId())) * 0x100000001B3L;
+        hash = (hash ^ (updatedAt == null ? 0 : epochNanos(updatedAt))) * 0xBF58476D1CE4E5B9L;
+        return hash ^ (hash >>> 31);
+    }
+
+    private static long epochNanos(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + time.getNano();
+    }
+}
@@ -0,0 +1,48 @@
+package com.rjtmahinay.flight.datasource;
+
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+/**
+ * Reactor context markers that decide which database a query runs on.
+ * <p>
+ * Queries are sent to the primary unless they are marked read-only with
+ * {@code .contextWrite(ReadRouting::readOnly)}, so anything unmarked is safe by default.
+ */
+public final class ReadRouting {
+
+    private static final String READ_ONLY = ReadRouting.class.getName() + ".READ_ONLY";
+
+    private ReadRouting() {
+    }
+
+    /**
+     * Marks the queries of a pipeline as safe to run on a replica.
+     */
+    public static Context readOnly(Context context) {
+        return context.put(READ_ONLY, Boolean.TRUE);
+    }
+
+    static boolean isReadOnly(ContextView context) {
+        return context.getOrDefault(READ_ONLY, Boolean.FALSE);
+    }
+
+    /**
+     * Whether the current client changed a flight recently and must read from the primary.
+     */
+    public static boolean isPinnedToPrimary(ContextView context) {
+        return context.getOrEmpty(ReadYourWrites.class)
+                .map(session -> ((ReadYourWrites) session).isPinned())
+                .orElse(false);
+    }
+
+    /**
+     * Pins the current client to the primary once {@code write} emits, meaning it changed a flight.
+     * Queries that merely run on the primary do not pin anyone.
+     */
+    public static <T> Mono<T> recordWrite(Mono<T> write) {
+        return Mono.deferContextual(context -> write.doOnNext(value -> context.getOrEmpty(ReadYourWrites.class)
+                .ifPresent(session -> ((ReadYourWrites) session).recordWrite())));
+    }
+}
@@ -0,0 +1,29 @@
+package com.rjtmahinay.flight.datasource;
+
+/**
+ * Per-request read-your-writes state, carried in the Reactor context by {@link ReadYourWritesFilter}.
+ */
+final class ReadYourWrites {
+
+    private final boolean pinned;
+    private volatile boolean wrote;
+
+    ReadYourWrites(boolean pinned) {
+        this.pinned = pinned;
+    }
+
+    /**
+     * True when the client wrote within the stickiness window, or has written during this request.
+     */
+    boolean isPinned() {
+        return pinned || wrote;
+    }
+
+    boolean hasWritten() {
+        return wrote;
+    }
+
+    void recordWrite() {
+        wrote = true;
+    }
+}
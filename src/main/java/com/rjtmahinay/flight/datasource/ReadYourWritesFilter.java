@@ -0,0 +1,45 @@
+package com.rjtmahinay.flight.datasource;
+
+import org.springframework.http.HttpCookie;
+import org.springframework.http.ResponseCookie;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Keeps a client's reads on the primary for a short while after it changed a flight.
+ * <p>
+ * A request that {@link ReadRouting#recordWrite changed} a flight gets a cookie that lives for
+ * the stickiness window; while the client sends it back, its reads skip the replica, which may
+ * not have caught up yet.
+ */
+class ReadYourWritesFilter implements WebFilter {
+
+    static final String COOKIE = "flight-primary";
+
+    private final Duration stickiness;
+
+    ReadYourWritesFilter(Duration stickiness) {
+        this.stickiness = stickiness;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        HttpCookie cookie = exchange.getRequest().getCookies().getFirst(COOKIE);
+        ReadYourWrites session = new ReadYourWrites(cookie != null);
+        exchange.getResponse().beforeCommit(() -> {
+            if (session.hasWritten()) {
+                exchange.getResponse().addCookie(ResponseCookie.from(COOKIE, "1")
+                        .maxAge(stickiness)
+                        .path("/")
+                        .httpOnly(true)
+                        .build());
+            }
+            return Mono.empty();
+        });
+        return chain.filter(exchange).contextWrite(context -> context.put(ReadYourWrites.class, session));
+    }
+}
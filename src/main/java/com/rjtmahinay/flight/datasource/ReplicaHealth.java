@@ -0,0 +1,96 @@
+package com.rjtmahinay.flight.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ValidationDepth;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.StringUtils;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Tracks whether the replica may serve reads.
+ * <p>
+ * Every {@code flight.replica.probe-interval} the replica is validated and, if a lag query is
+ * configured, its lag is compared against {@code flight.replica.max-lag}. A replica that is down
+ * or lagging is taken out of rotation until a later probe succeeds.
+ */
+@Slf4j
+public class ReplicaHealth {
+
+    private final ConnectionFactory replica;
+    private final ReplicaProperties properties;
+    private volatile boolean available = true;
+    private volatile double lagSeconds;
+    private Disposable probes;
+
+    public ReplicaHealth(ConnectionFactory replica, ReplicaProperties properties, MeterRegistry registry) {
+        this.replica = replica;
+        this.properties = properties;
+        Gauge.builder("flight.db.replica.available", this, health -> health.available ? 1 : 0)
+                .description("Whether read-only queries are currently routed to the replica").register(registry);
+        Gauge.builder("flight.db.replica.lag", this, health -> health.lagSeconds)
+                .description("Replica lag measured by the last probe")
+                .baseUnit("seconds").register(registry);
+    }
+
+    @PostConstruct
+    void start() {
+        probes = Flux.interval(Duration.ZERO, properties.getProbeInterval())
+                .concatMap(tick -> probe(), 0)
+                .subscribe();
+    }
+
+    @PreDestroy
+    void stop() {
+        probes.dispose();
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    /**
+     * Takes the replica out of rotation until the next successful probe.
+     */
+    public void markDown(Throwable cause) {
+        if (available) {
+            log.warn("Routing reads to the primary, replica unavailable: {}", cause.toString());
+        }
+        available = false;
+    }
+
+    Mono<Void> probe() {
+        return Mono.usingWhen(replica.create(), this::measureLag, Connection::close)
+                .timeout(properties.getProbeInterval())
+                .doOnNext(lag -> {
+                    lagSeconds = lag;
+                    boolean healthy = lag <= properties.getMaxLag().toMillis() / 1000.0;
+                    if (healthy != available) {
+                        log.info(healthy ? "Replica back in rotation" : "Routing reads to the primary, replica lags {}s", lag);
+                    }
+                    available = healthy;
+                })
+                .doOnError(this::markDown)
+                .onErrorComplete()
+                .then();
+    }
+
+    private Mono<Double> measureLag(Connection connection) {
+        if (!StringUtils.hasText(properties.getLagQuery())) {
+            return Mono.from(connection.validate(ValidationDepth.REMOTE))
+                    .flatMap(valid -> valid ? Mono.just(0.0) : Mono.error(new IllegalStateException("Replica failed validation")));
+        }
+        return Mono.from(connection.createStatement(properties.getLagQuery()).execute())
+                .flatMap(result -> Mono.from(result.map((row, metadata) -> row.get(0, Number.class))))
+                .map(Number::doubleValue)
+                .defaultIfEmpty(0.0);
+    }
+}
@@ -0,0 +1,57 @@
+package com.rjtmahinay.flight.datasource;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "flight.replica")
+public class ReplicaProperties {
+
+    /**
+     * Whether read-only queries are routed to a replica. Writes always go to spring.r2dbc.url.
+     */
+    private boolean enabled = false;
+
+    /**
+     * R2DBC URL of the replica.
+     */
+    private String url;
+
+    private String username;
+
+    private String password;
+
+    /**
+     * Largest number of connections to the replica. The other pool settings follow spring.r2dbc.pool.
+     */
+    private int maxSize = 20;
+
+    /**
+     * How long a client's reads stay on the primary after it changed a flight.
+     */
+    private Duration stickiness = Duration.ofSeconds(5);
+
+    /**
+     * Interval between replica health and lag probes.
+     */
+    private Duration probeInterval = Duration.ofSeconds(2);
+
+    /**
+     * Reads fall back to the primary while the replica lags further behind than this.
+     */
+    private Duration maxLag = Duration.ofSeconds(5);
+
+    /**
+     * Query returning the replica lag in seconds; without one only liveness is probed.
+     */
+    private String lagQuery;
+
+    /**
+     * JDBC URL to migrate the replica's schema through, for stand-ins that do not replicate it.
+     */
+    private String migrationUrl;
+}
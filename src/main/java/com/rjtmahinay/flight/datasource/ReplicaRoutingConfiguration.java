@@ -0,0 +1,95 @@
+package com.rjtmahinay.flight.datasource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayProperties;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.PropertyMapper;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.util.StringUtils;
+
+/**
+ * Replaces the single auto-configured connection pool with a primary pool, a replica pool and a
+ * {@link ReplicaRoutingConnectionFactory} in front of them. Both pools are beans of their own, so
+ * Spring Boot exports {@code r2dbc.pool.*} metrics for each.
+ */
+@Slf4j
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties({R2dbcProperties.class, FlywayProperties.class})
+@ConditionalOnProperty(prefix = "flight.replica", name = "enabled", havingValue = "true")
+public class ReplicaRoutingConfiguration {
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionPool primaryConnectionPool(R2dbcProperties r2dbcProperties) {
+        ConnectionFactory factory = ConnectionFactoryBuilder.withUrl(r2dbcProperties.getUrl())
+                .username(r2dbcProperties.getUsername())
+                .password(r2dbcProperties.getPassword())
+                .build();
+        return pool("primary", factory, r2dbcProperties.getPool(), r2dbcProperties.getPool().getMaxSize());
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionPool replicaConnectionPool(ReplicaProperties replicaProperties, R2dbcProperties r2dbcProperties,
+                                                FlywayProperties flywayProperties) {
+        if (StringUtils.hasText(replicaProperties.getMigrationUrl())) {
+            // Stand-in replicas (such as a second H2 database) do not receive the schema from the primary
+            log.info("Migrating replica schema at {}", replicaProperties.getMigrationUrl());
+            Flyway.configure()
+                    .dataSource(replicaProperties.getMigrationUrl(), replicaProperties.getUsername(), replicaProperties.getPassword())
+                    .locations(flywayProperties.getLocations().toArray(String[]::new))
+                    .load()
+                    .migrate();
+        }
+        ConnectionFactory factory = ConnectionFactoryBuilder.withUrl(replicaProperties.getUrl())
+                .username(replicaProperties.getUsername())
+                .password(replicaProperties.getPassword())
+                .build();
+        return pool("replica", factory, r2dbcProperties.getPool(), replicaProperties.getMaxSize());
+    }
+
+    @Bean
+    public ReplicaHealth replicaHealth(@Qualifier("replicaConnectionPool") ConnectionPool replica,
+                                       ReplicaProperties replicaProperties, MeterRegistry registry) {
+        return new ReplicaHealth(replica, replicaProperties, registry);
+    }
+
+    @Bean
+    @Primary
+    public ReplicaRoutingConnectionFactory connectionFactory(@Qualifier("primaryConnectionPool") ConnectionPool primary,
+                                                             @Qualifier("replicaConnectionPool") ConnectionPool replica,
+                                                             ReplicaHealth replicaHealth, MeterRegistry registry) {
+        return new ReplicaRoutingConnectionFactory(primary, replica, replicaHealth, registry);
+    }
+
+    @Bean
+    ReadYourWritesFilter readYourWritesFilter(ReplicaProperties replicaProperties) {
+        return new ReadYourWritesFilter(replicaProperties.getStickiness());
+    }
+
+    private static ConnectionPool pool(String name, ConnectionFactory factory, R2dbcProperties.Pool settings, int maxSize) {
+        ConnectionPoolConfiguration.Builder builder = ConnectionPoolConfiguration.builder(factory)
+                .name(name)
+                .maxSize(maxSize)
+                .initialSize(Math.min(settings.getInitialSize(), maxSize));
+        PropertyMapper map = PropertyMapper.get().alwaysApplyingWhenNonNull();
+        map.from(settings.getMinIdle()).to(minIdle -> builder.minIdle(Math.min(minIdle, maxSize)));
+        map.from(settings.getMaxIdleTime()).to(builder::maxIdleTime);
+        map.from(settings.getMaxLifeTime()).to(builder::maxLifeTime);
+        map.from(settings.getMaxAcquireTime()).to(builder::maxAcquireTime);
+        map.from(settings.getMaxCreateConnectionTime()).to(builder::maxCreateConnectionTime);
+        map.from(settings.getMaxValidationTime()).to(builder::maxValidationTime);
+        map.from(settings.getValidationQuery()).to(builder::validationQuery);
+        map.from(settings.getValidationDepth()).to(builder::validationDepth);
+        return new ConnectionPool(builder.build());
+    }
+}
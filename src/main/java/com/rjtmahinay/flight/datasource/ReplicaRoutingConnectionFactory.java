@@ -0,0 +1,80 @@
+package com.rjtmahinay.flight.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.r2dbc.connection.lookup.AbstractRoutingConnectionFactory;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Sends read-only queries to the replica and everything else to the primary.
+ * <p>
+ * A query goes to the replica only if it is marked {@link ReadRouting#readOnly read-only}, the
+ * client is not {@link ReadRouting#isPinnedToPrimary pinned} to the primary by a recent write, and
+ * the replica is healthy. If the replica cannot hand out a connection, it is marked down and the
+ * query falls over to the primary.
+ */
+public class ReplicaRoutingConnectionFactory extends AbstractRoutingConnectionFactory {
+
+    static final String PRIMARY = "primary";
+    static final String REPLICA = "replica";
+
+    private final ConnectionFactory primary;
+    private final ConnectionFactory replica;
+    private final ReplicaHealth replicaHealth;
+    private final Counter primaryReads;
+    private final Counter replicaReads;
+    private final Counter failovers;
+
+    public ReplicaRoutingConnectionFactory(ConnectionFactory primary, ConnectionFactory replica,
+                                           ReplicaHealth replicaHealth, MeterRegistry registry) {
+        this.primary = primary;
+        this.replica = replica;
+        this.replicaHealth = replicaHealth;
+        setTargetConnectionFactories(Map.of(PRIMARY, primary, REPLICA, replica));
+        setDefaultTargetConnectionFactory(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+        this.primaryReads = reads(registry, PRIMARY);
+        this.replicaReads = reads(registry, REPLICA);
+        this.failovers = Counter.builder("flight.db.replica.failovers")
+                .description("Reads moved to the primary because the replica refused a connection")
+                .register(registry);
+    }
+
+    @Override
+    protected Mono<Object> determineCurrentLookupKey() {
+        return Mono.deferContextual(context -> {
+            if (!ReadRouting.isReadOnly(context)) {
+                return Mono.just(PRIMARY);
+            }
+            if (ReadRouting.isPinnedToPrimary(context) || !replicaHealth.isAvailable()) {
+                primaryReads.increment();
+                return Mono.just(PRIMARY);
+            }
+            replicaReads.increment();
+            return Mono.just(REPLICA);
+        });
+    }
+
+    @Override
+    public Mono<Connection> create() {
+        return determineTargetConnectionFactory().flatMap(target -> target != replica
+                ? Mono.<Connection>from(target.create())
+                : Mono.<Connection>from(replica.create()).onErrorResume(error -> {
+                    replicaHealth.markDown(error);
+                    failovers.increment();
+                    return Mono.from(primary.create());
+                }));
+    }
+
+    private static Counter reads(MeterRegistry registry, String target) {
+        return Counter.builder("flight.db.reads")
+                .description("Read-only connections by the database that served them")
+                .tag("target", target)
+                .register(registry);
+    }
+}
@@ -0,0 +1,49 @@
+package com.rjtmahinay.flight.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkIngestResponse {
+    @Schema(description = "Records read from the request body", example = "10000")
+    private long received;
+
+    @Schema(description = "Records written to the database", example = "9998")
+    private long inserted;
+
+    @Schema(description = "Records rejected by validation or the database", example = "2")
+    private long failed;
+
+    @Schema(description = "Wall-clock time of the ingest in milliseconds", example = "850")
+    private long elapsedMillis;
+
+    @Schema(description = "Ingest throughput in rows per second", example = "11762.4")
+    private double rowsPerSecond;
+
+    @Schema(description = "One entry per rejected record")
+    private List<RecordError> errors;
+
+    @Setter
+    @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(name = "RecordError", description = "Why a single record of a bulk ingest was rejected")
+    public static class RecordError {
+        @Schema(description = "Zero-based position of the record in the request body", example = "42")
+        private long index;
+
+        @Schema(description = "Flight number of the record, if present", example = "AA123")
+        private String flightNumber;
+
+        @Schema(description = "Reason the record was rejected", example = "arrivalTime must be after departureTime")
+        private String message;
+    }
+}
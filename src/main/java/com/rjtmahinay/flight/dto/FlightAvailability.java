@@ -0,0 +1,31 @@
+package com.rjtmahinay.flight.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(name = "FlightAvailability", description = "Current fare and seat availability of a flight")
+public class FlightAvailability {
+    @Schema(description = "Flight id", example = "42")
+    private Long id;
+
+    @Schema(description = "Flight number", example = "AA123")
+    private String flightNumber;
+
+    @Schema(description = "Scheduled departure time", example = "2025-09-10T08:30:00")
+    private LocalDateTime departureTime;
+
+    @Schema(description = "Seats still available", example = "42")
+    private int availableSeats;
+
+    @Schema(description = "Current fare", example = "299.99")
+    private double price;
+}
@@ -1,7 +1,9 @@
 package com.rjtmahinay.flight.dto;
 
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Positive;
 import lombok.Getter;
 import lombok.Setter;
@@ -19,6 +21,7 @@ public class FlightSearchRequest {
     private String destination;
 
     @NotBlank(message = "Departure date is required")
+    @Pattern(regexp = "\\d{4}-\\d{2}-\\d{2}", message = "Departure date must be in YYYY-MM-DD format")
     @Schema(description = "Date of departure in YYYY-MM-DD format", example = "2025-09-15")
     private String departureDate;
 
@@ -32,4 +35,15 @@ public class FlightSearchRequest {
     @Schema(description = "Class of service (e.g., economy, business)", example = "economy")
     private String classOfService = "economy";
 
+    @Pattern(regexp = "price|departureTime|arrivalTime",
+            message = "sortBy must be one of price, departureTime, arrivalTime")
+    @Schema(description = "Field to sort results by, ascending", example = "price",
+            allowableValues = {"price", "departureTime", "arrivalTime"})
+    private String sortBy = "departureTime";
+
+    @Positive(message = "Limit must be positive")
+    @Max(value = 500, message = "Limit must not exceed 500")
+    @Schema(description = "Maximum number of flights to return", example = "50")
+    private int limit = 50;
+
 }
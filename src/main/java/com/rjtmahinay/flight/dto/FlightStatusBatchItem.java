@@ -0,0 +1,31 @@
+package com.rjtmahinay.flight.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(name = "FlightStatusBatchItem", description = "Status of the flights matching one (flight number, date) pair of a batch")
+public class FlightStatusBatchItem {
+    @Schema(description = "Requested flight number", example = "AA123")
+    private String flightNumber;
+
+    @Schema(description = "Requested departure date in YYYY-MM-DD format", example = "2025-09-10")
+    private String date;
+
+    @Schema(description = "Whether the pair matched any flight", example = "Success", allowableValues = {"Success", "Error"})
+    private String status;
+
+    @Schema(description = "Descriptive message about the lookup", example = "Flight status retrieved successfully.")
+    private String message;
+
+    @Schema(description = "Matching flights, empty when none was found")
+    private List<FlightStatusResponse.FlightStatus> flights;
+}
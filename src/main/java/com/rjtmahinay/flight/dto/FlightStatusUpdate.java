@@ -0,0 +1,53 @@
+package com.rjtmahinay.flight.dto;
+
+import com.rjtmahinay.flight.event.FlightChangedEvent;
+import com.rjtmahinay.flight.model.Flight;
+import com.rjtmahinay.flight.service.FlightStatusProjection;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(name = "FlightStatusUpdate", description = "Latest state of a flight pushed to status feed subscribers")
+public class FlightStatusUpdate {
+    @Schema(description = "Kind of change", example = "UPDATED", allowableValues = {"CREATED", "UPDATED", "DELETED"})
+    private String change;
+
+    @Schema(description = "Flight id", example = "42")
+    private Long id;
+
+    @Schema(description = "Flight number", example = "AA123")
+    private String flightNumber;
+
+    @Schema(description = "Departure airport code", example = "JFK")
+    private String origin;
+
+    @Schema(description = "Arrival airport code", example = "LAX")
+    private String destination;
+
+    @Schema(description = "Scheduled departure time", example = "2025-09-10T08:30:00")
+    private LocalDateTime departureTime;
+
+    @Schema(description = "Scheduled arrival time", example = "2025-09-10T11:45:00")
+    private LocalDateTime arrivalTime;
+
+    @Schema(description = "Seats still available", example = "42")
+    private Integer availableSeats;
+
+    @Schema(description = "Current flight status", example = "Delayed")
+    private String status;
+
+    public static FlightStatusUpdate of(FlightChangedEvent event) {
+        Flight flight = event.getFlight();
+        return new FlightStatusUpdate(event.getType().name(), flight.getId(), flight.getFlightNumber(),
+                flight.getOrigin(), flight.getDestination(), flight.getDepartureTime(), flight.getArrivalTime(),
+                flight.getAvailableSeats(), FlightStatusProjection.statusLabel(flight.getStatus()));
+    }
+}
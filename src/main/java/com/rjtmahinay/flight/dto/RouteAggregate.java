@@ -0,0 +1,45 @@
+package com.rjtmahinay.flight.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+@Setter
+@Getter
+@ToString
+@EqualsAndHashCode
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(name = "RouteAggregate", description = "Fares, seats and statuses of one route on one departure day")
+public class RouteAggregate {
+    @Schema(description = "Origin airport code", example = "JFK")
+    private String origin;
+
+    @Schema(description = "Destination airport code", example = "LAX")
+    private String destination;
+
+    @Schema(description = "Departure day", example = "2025-09-10")
+    private LocalDate date;
+
+    @Schema(description = "Flights on the route that day", example = "12")
+    private long flights;
+
+    @Schema(description = "Lowest fare", example = "199.99")
+    private Double minPrice;
+
+    @Schema(description = "Average fare, rounded to cents", example = "287.5")
+    private Double avgPrice;
+
+    @Schema(description = "Seats still available across all flights", example = "1432")
+    private long availableSeats;
+
+    @Schema(description = "Number of flights by status", example = "{\"SCHEDULED\": 10, \"DELAYED\": 2}")
+    private Map<String, Long> statusCounts;
+}
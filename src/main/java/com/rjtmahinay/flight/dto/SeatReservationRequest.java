@@ -0,0 +1,24 @@
+package com.rjtmahinay.flight.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Positive;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Request object for reserving or releasing seats on a flight
+ */
+@Setter
+@Getter
+public class SeatReservationRequest {
+
+    @Positive(message = "Number of seats must be positive")
+    @Schema(description = "Number of seats to reserve or release", example = "2")
+    private int seats = 1;
+
+    public SeatReservationRequest() {}
+
+    public SeatReservationRequest(int seats) {
+        this.seats = seats;
+    }
+}
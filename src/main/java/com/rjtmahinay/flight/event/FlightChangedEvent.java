@@ -0,0 +1,38 @@
+package com.rjtmahinay.flight.event;
+
+import com.rjtmahinay.flight.model.Flight;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Published by the service layer after a flight has been created, updated or deleted
+ */
+@Getter
+@RequiredArgsConstructor
+public class FlightChangedEvent {
+
+    public enum Type { CREATED, UPDATED, DELETED }
+
+    private final Type type;
+
+    private final Flight flight;
+
+    /**
+     * True when the change is the seat count a write-behind flush just wrote, published once per
+     * flushed flight rather than once per reservation.
+     */
+    private final boolean writeBehind;
+
+    /**
+     * The flight as it was before an update, or null when unknown or not an update.
+     */
+    private final Flight previous;
+
+    public FlightChangedEvent(Type type, Flight flight) {
+        this(type, flight, false, null);
+    }
+
+    public FlightChangedEvent(Type type, Flight flight, boolean writeBehind) {
+        this(type, flight, writeBehind, null);
+    }
+}
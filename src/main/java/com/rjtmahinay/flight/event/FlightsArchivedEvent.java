@@ -0,0 +1,19 @@
+package com.rjtmahinay.flight.event;
+
+import com.rjtmahinay.flight.model.Flight;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Published by the archival job after one batch of departed flights has been moved out of the
+ * {@code flights} table. In-memory views drop them as if they had been deleted; unlike
+ * deletions, archiving is not a change of the flights' status.
+ */
+@Getter
+@RequiredArgsConstructor
+public class FlightsArchivedEvent {
+
+    private final List<Flight> flights;
+}
@@ -0,0 +1,18 @@
+package com.rjtmahinay.flight.event;
+
+import com.rjtmahinay.flight.model.Flight;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Published by bulk ingest after one batch of new flights has been committed, in place of a
+ * {@link FlightChangedEvent} per flight, so in-memory views take the batch in one step.
+ */
+@Getter
+@RequiredArgsConstructor
+public class FlightsCreatedEvent {
+
+    private final List<Flight> flights;
+}
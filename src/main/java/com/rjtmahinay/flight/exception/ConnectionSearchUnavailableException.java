@@ -0,0 +1,12 @@
+package com.rjtmahinay.flight.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ConnectionSearchUnavailableException extends RuntimeException {
+
+    public ConnectionSearchUnavailableException(String message) {
+        super(message);
+    }
+}
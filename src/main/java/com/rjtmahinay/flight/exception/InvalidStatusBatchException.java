@@ -0,0 +1,12 @@
+package com.rjtmahinay.flight.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidStatusBatchException extends RuntimeException {
+
+    public InvalidStatusBatchException(String message) {
+        super(message);
+    }
+}
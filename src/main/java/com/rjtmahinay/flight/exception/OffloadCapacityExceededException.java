@@ -0,0 +1,12 @@
+package com.rjtmahinay.flight.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class OffloadCapacityExceededException extends RuntimeException {
+
+    public OffloadCapacityExceededException(String endpoint) {
+        super("Too many " + endpoint + " requests in progress");
+    }
+}
@@ -0,0 +1,12 @@
+package com.rjtmahinay.flight.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class SeatsUnavailableException extends RuntimeException {
+
+    public SeatsUnavailableException(String message) {
+        super(message);
+    }
+}
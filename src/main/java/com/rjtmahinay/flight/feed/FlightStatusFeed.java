@@ -0,0 +1,240 @@
+package com.rjtmahinay.flight.feed;
+
+import com.rjtmahinay.flight.dto.FlightStatusUpdate;
+import com.rjtmahinay.flight.event.FlightChangedEvent;
+import com.rjtmahinay.flight.event.FlightsCreatedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans flight changes out to status feed subscribers.
+ * <p>
+ * Changes are coalesced per flight: between two ticks of {@code flight.status-feed.coalesce-window}
+ * only the latest state of each flight is kept, and a single ticker thread delivers it. Subscribers
+ * are indexed by the flight numbers and routes they follow, so each update only touches the
+ * subscribers interested in it. Every subscriber has a bounded queue holding at most one update
+ * per flight: a newer update of a queued flight replaces the older one, and when a slow client
+ * lets the queue fill up the oldest queued update is dropped, so what the client finally reads is
+ * the latest state of every flight it still has room for.
+ */
+@Slf4j
+@Component
+public class FlightStatusFeed {
+
+    private static final String FLIGHT_KEY = "F:";
+    private static final String ROUTE_KEY = "R:";
+
+    private final StatusFeedProperties properties;
+    private final Counter dropped;
+
+    private final Map<Long, FlightStatusUpdate> pending = new ConcurrentHashMap<>();
+    private final Map<String, Set<FeedSubscriber>> subscribersByKey = new ConcurrentHashMap<>();
+    private final Set<FeedSubscriber> firehose = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final Flux<Long> heartbeats;
+    private Disposable ticker;
+
+    public FlightStatusFeed(StatusFeedProperties properties, MeterRegistry registry) {
+        this.properties = properties;
+        this.dropped = Counter.builder("flight.status.feed.dropped")
+                .description("Updates dropped because a subscriber was not keeping up").register(registry);
+        Gauge.builder("flight.status.feed.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Open status feed subscriptions").register(registry);
+        // One timer shared by every open stream
+        this.heartbeats = Flux.interval(properties.getHeartbeatInterval()).share();
+    }
+
+    @PostConstruct
+    void start() {
+        Duration window = properties.getCoalesceWindow();
+        ticker = Flux.interval(window, window).subscribe(tick -> deliver());
+    }
+
+    @PreDestroy
+    void stop() {
+        ticker.dispose();
+        firehose.forEach(subscriber -> subscriber.sink.complete());
+        subscribersByKey.values().forEach(subscribers -> subscribers.forEach(subscriber -> subscriber.sink.complete()));
+    }
+
+    @EventListener
+    public void onFlightChanged(FlightChangedEvent event) {
+        pending.put(event.getFlight().getId(), FlightStatusUpdate.of(event));
+    }
+
+    @EventListener
+    public void onFlightsCreated(FlightsCreatedEvent event) {
+        event.getFlights().forEach(flight -> pending.put(flight.getId(),
+                FlightStatusUpdate.of(new FlightChangedEvent(FlightChangedEvent.Type.CREATED, flight))));
+    }
+
+    /**
+     * Streams updates of the given flight numbers and routes ({@code "JFK-LAX"}). With neither,
+     * every update is streamed.
+     */
+    public Flux<FlightStatusUpdate> subscribe(Collection<String> flightNumbers, Collection<String> routes) {
+        Set<String> keys = new HashSet<>();
+        flightNumbers.forEach(flightNumber -> keys.add(FLIGHT_KEY + flightNumber));
+        routes.forEach(route -> keys.add(ROUTE_KEY + route));
+
+        return Flux.create(sink -> {
+            FeedSubscriber subscriber = new FeedSubscriber(sink, properties.getMaxPendingPerSubscriber());
+            sink.onRequest(requested -> subscriber.drain());
+            sink.onDispose(() -> unregister(subscriber, keys));
+            register(subscriber, keys);
+        });
+    }
+
+    private void register(FeedSubscriber subscriber, Set<String> keys) {
+        if (keys.isEmpty()) {
+            firehose.add(subscriber);
+        } else {
+            keys.forEach(key -> subscribersByKey.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(subscriber));
+        }
+        subscriberCount.incrementAndGet();
+    }
+
+    private void unregister(FeedSubscriber subscriber, Set<String> keys) {
+        if (keys.isEmpty()) {
+            firehose.remove(subscriber);
+        } else {
+            keys.forEach(key -> subscribersByKey.computeIfPresent(key, (k, subscribers) -> {
+                subscribers.remove(subscriber);
+                return subscribers.isEmpty() ? null : subscribers;
+            }));
+        }
+        subscriberCount.decrementAndGet();
+    }
+
+    private void deliver() {
+        Iterator<Map.Entry<Long, FlightStatusUpdate>> updates = pending.entrySet().iterator();
+        while (updates.hasNext()) {
+            Map.Entry<Long, FlightStatusUpdate> entry = updates.next();
+            FlightStatusUpdate update = entry.getValue();
+            // Only drop the entry if no newer change replaced it meanwhile
+            pending.remove(entry.getKey(), update);
+            try {
+                publish(update);
+            } catch (RuntimeException e) {
+                log.warn("Could not deliver update of flight {}", update.getId(), e);
+            }
+        }
+    }
+
+    private void publish(FlightStatusUpdate update) {
+        Set<FeedSubscriber> byFlight = subscribersByKey.getOrDefault(FLIGHT_KEY + update.getFlightNumber(), Collections.emptySet());
+        Set<FeedSubscriber> byRoute = subscribersByKey.getOrDefault(
+                ROUTE_KEY + update.getOrigin() + "-" + update.getDestination(), Collections.emptySet());
+        firehose.forEach(subscriber -> emit(subscriber, update));
+        byFlight.forEach(subscriber -> emit(subscriber, update));
+        byRoute.forEach(subscriber -> {
+            if (!byFlight.contains(subscriber)) {
+                emit(subscriber, update);
+            }
+        });
+    }
+
+    private void emit(FeedSubscriber subscriber, FlightStatusUpdate update) {
+        if (subscriber.offer(update)) {
+            dropped.increment();
+        }
+        subscriber.drain();
+    }
+
+    /**
+     * Ticks every {@code flight.status-feed.heartbeat-interval} for as long as anyone listens.
+     * Each caller gets its own view that keeps only the latest tick while its stream is not
+     * reading, so one stalled client cannot hold back the timer everyone shares.
+     */
+    public Flux<Long> heartbeats() {
+        return heartbeats.onBackpressureLatest();
+    }
+
+    public int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    /**
+     * One subscription: its queued updates, keyed by flight in the order they were queued, and
+     * a drain loop that hands them out only as fast as the client requests them.
+     */
+    private static final class FeedSubscriber {
+
+        private final FluxSink<FlightStatusUpdate> sink;
+        private final int capacity;
+        private final LinkedHashMap<Long, FlightStatusUpdate> queued = new LinkedHashMap<>();
+        private final AtomicInteger wip = new AtomicInteger();
+
+        FeedSubscriber(FluxSink<FlightStatusUpdate> sink, int capacity) {
+            this.sink = sink;
+            this.capacity = Math.max(1, capacity);
+        }
+
+        /**
+         * Queues an update in place of an older one of the same flight; returns whether the
+         * oldest update of another flight had to be dropped to make room.
+         */
+        boolean offer(FlightStatusUpdate update) {
+            synchronized (queued) {
+                boolean dropped = false;
+                if (queued.remove(update.getId()) == null && queued.size() >= capacity) {
+                    Iterator<Long> oldest = queued.keySet().iterator();
+                    oldest.next();
+                    oldest.remove();
+                    dropped = true;
+                }
+                queued.put(update.getId(), update);
+                return dropped;
+            }
+        }
+
+        void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                while (sink.requestedFromDownstream() > 0 && !sink.isCancelled()) {
+                    FlightStatusUpdate next = poll();
+                    if (next == null) {
+                        break;
+                    }
+                    sink.next(next);
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private FlightStatusUpdate poll() {
+            synchronized (queued) {
+                Iterator<FlightStatusUpdate> first = queued.values().iterator();
+                if (!first.hasNext()) {
+                    return null;
+                }
+                FlightStatusUpdate next = first.next();
+                first.remove();
+                return next;
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.rjtmahinay.flight.feed;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "flight.status-feed")
+public class StatusFeedProperties {
+
+    /**
+     * Changes to the same flight within one window are delivered once, as the latest state.
+     */
+    private Duration coalesceWindow = Duration.ofMillis(250);
+
+    /**
+     * Flights with an update queued per subscriber. A subscriber that falls behind keeps only the
+     * latest update of each flight, and beyond this many flights loses the oldest ones.
+     */
+    private int maxPendingPerSubscriber = 256;
+
+    /**
+     * Interval of the keep-alive comments sent on idle streams.
+     */
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+}
@@ -0,0 +1,215 @@
+package com.rjtmahinay.flight.index;
+
+import com.rjtmahinay.flight.model.Flight;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Set;
+
+/**
+ * Immutable list of flights sorted by departure time, with the departure times also kept as
+ * epoch seconds so time windows can be found by binary search.
+ */
+public final class Departures {
+
+    static final Departures EMPTY = new Departures(new Flight[0]);
+
+    static final Comparator<Flight> DEPARTURE_ORDER = Comparator
+            .comparing(Flight::getDepartureTime)
+            .thenComparing(Flight::getId, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final Flight[] flights;
+    private final long[] departureSeconds;
+
+    private Departures(Flight[] sorted) {
+        this.flights = sorted;
+        this.departureSeconds = new long[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            departureSeconds[i] = epochSecond(sorted[i].getDepartureTime());
+        }
+    }
+
+    private Departures(Flight[] sorted, long[] departureSeconds) {
+        this.flights = sorted;
+        this.departureSeconds = departureSeconds;
+    }
+
+    static Departures of(Collection<Flight> flights) {
+        if (flights.isEmpty()) {
+            return EMPTY;
+        }
+        Flight[] sorted = flights.toArray(new Flight[0]);
+        Arrays.sort(sorted, DEPARTURE_ORDER);
+        return new Departures(sorted);
+    }
+
+    /**
+     * A copy with {@code previous} taken out, if it is held, and {@code replacement} put in at
+     * its place in departure order, or nothing put in when {@code replacement} is null. Both
+     * positions are found by binary search, so a change copies the arrays once instead of
+     * sorting them again.
+     */
+    Departures replace(Flight previous, Flight replacement) {
+        int removed = previous == null ? -1 : indexOf(previous);
+        if (replacement == null) {
+            return removed < 0 ? this : without(removed);
+        }
+        long second = epochSecond(replacement.getDepartureTime());
+        if (removed >= 0 && departureSeconds[removed] == second
+                && DEPARTURE_ORDER.compare(flights[removed], replacement) == 0) {
+            // Same place in the order, so the departure times can be shared
+            Flight[] replaced = flights.clone();
+            replaced[removed] = replacement;
+            return new Departures(replaced, departureSeconds);
+        }
+        Departures remaining = removed < 0 ? this : without(removed);
+        return remaining.with(remaining.insertionPoint(replacement, second), replacement, second);
+    }
+
+    /**
+     * A copy with {@code added}, none of which are held yet, merged in. Only the added flights
+     * are sorted; they are merged with the held ones in a single pass.
+     */
+    Departures with(Collection<Flight> added) {
+        if (added.isEmpty()) {
+            return this;
+        }
+        Departures incoming = of(added);
+        Flight[] merged = new Flight[flights.length + incoming.flights.length];
+        long[] mergedSeconds = new long[merged.length];
+        int held = 0;
+        int next = 0;
+        for (int i = 0; i < merged.length; i++) {
+            if (next == incoming.flights.length || held < flights.length
+                    && (departureSeconds[held] < incoming.departureSeconds[next]
+                    || departureSeconds[held] == incoming.departureSeconds[next]
+                    && DEPARTURE_ORDER.compare(flights[held], incoming.flights[next]) <= 0)) {
+                merged[i] = flights[held];
+                mergedSeconds[i] = departureSeconds[held++];
+            } else {
+                merged[i] = incoming.flights[next];
+                mergedSeconds[i] = incoming.departureSeconds[next++];
+            }
+        }
+        return new Departures(merged, mergedSeconds);
+    }
+
+    /**
+     * A copy without the flights whose ids are in {@code ids}, keeping the order.
+     */
+    Departures without(Set<Long> ids) {
+        Flight[] kept = new Flight[flights.length];
+        long[] keptSeconds = new long[flights.length];
+        int size = 0;
+        for (int i = 0; i < flights.length; i++) {
+            if (!ids.contains(flights[i].getId())) {
+                kept[size] = flights[i];
+                keptSeconds[size++] = departureSeconds[i];
+            }
+        }
+        if (size == flights.length) {
+            return this;
+        }
+        return size == 0 ? EMPTY : new Departures(Arrays.copyOf(kept, size), Arrays.copyOf(keptSeconds, size));
+    }
+
+    // Looks where the held copy's departure time puts it; scans the whole array only if the
+    // copy was changed in place since it was added
+    private int indexOf(Flight flight) {
+        Long id = flight.getId();
+        if (flight.getDepartureTime() != null) {
+            long second = epochSecond(flight.getDepartureTime());
+            for (int i = firstAtOrAfter(second); i < flights.length && departureSeconds[i] == second; i++) {
+                if (flights[i].getId().equals(id)) {
+                    return i;
+                }
+            }
+        }
+        for (int i = 0; i < flights.length; i++) {
+            if (flights[i].getId().equals(id)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int insertionPoint(Flight flight, long second) {
+        int i = firstAtOrAfter(second);
+        while (i < flights.length && departureSeconds[i] == second && DEPARTURE_ORDER.compare(flights[i], flight) < 0) {
+            i++;
+        }
+        return i;
+    }
+
+    private Departures without(int index) {
+        if (flights.length == 1) {
+            return EMPTY;
+        }
+        Flight[] remaining = new Flight[flights.length - 1];
+        long[] remainingSeconds = new long[flights.length - 1];
+        System.arraycopy(flights, 0, remaining, 0, index);
+        System.arraycopy(flights, index + 1, remaining, index, remaining.length - index);
+        System.arraycopy(departureSeconds, 0, remainingSeconds, 0, index);
+        System.arraycopy(departureSeconds, index + 1, remainingSeconds, index, remaining.length - index);
+        return new Departures(remaining, remainingSeconds);
+    }
+
+    private Departures with(int index, Flight flight, long second) {
+        Flight[] added = new Flight[flights.length + 1];
+        long[] addedSeconds = new long[flights.length + 1];
+        System.arraycopy(flights, 0, added, 0, index);
+        System.arraycopy(flights, index, added, index + 1, flights.length - index);
+        System.arraycopy(departureSeconds, 0, addedSeconds, 0, index);
+        System.arraycopy(departureSeconds, index, addedSeconds, index + 1, flights.length - index);
+        added[index] = flight;
+        addedSeconds[index] = second;
+        return new Departures(added, addedSeconds);
+    }
+
+    /**
+     * Seconds since the epoch of a schedule time, treating schedule times as UTC.
+     */
+    public static long epochSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * The flights in departure order. Callers must not modify the returned array.
+     */
+    public Flight[] flights() {
+        return flights;
+    }
+
+    public int size() {
+        return flights.length;
+    }
+
+    public Flight get(int i) {
+        return flights[i];
+    }
+
+    public long departureSecond(int i) {
+        return departureSeconds[i];
+    }
+
+    /**
+     * Position of the first flight departing at or after {@code epochSecond}, or {@link #size()}
+     * if there is none.
+     */
+    public int firstAtOrAfter(long epochSecond) {
+        int low = 0;
+        int high = departureSeconds.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (departureSeconds[mid] < epochSecond) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,140 @@
+package com.rjtmahinay.flight.index;
+
+import com.rjtmahinay.flight.model.Flight;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Flights grouped under a key into copy-on-write {@link Departures}. Readers never lock;
+ * writers must be serialized by the owner.
+ */
+final class FlightBuckets<K> {
+
+    private final Function<Flight, K> keyFunction;
+
+    private volatile Map<K, Departures> buckets = new ConcurrentHashMap<>();
+    private volatile Map<Long, Placed<K>> placed = new ConcurrentHashMap<>();
+
+    FlightBuckets(Function<Flight, K> keyFunction) {
+        this.keyFunction = keyFunction;
+    }
+
+    Departures get(K key) {
+        return buckets.getOrDefault(key, Departures.EMPTY);
+    }
+
+    Map<K, Departures> snapshot() {
+        return buckets;
+    }
+
+    int flightCount() {
+        return placed.size();
+    }
+
+    int bucketCount() {
+        return buckets.size();
+    }
+
+    K keyOf(Flight flight) {
+        return keyFunction.apply(flight);
+    }
+
+    /**
+     * Replaces the whole content in one step, so readers see either the old or the new set.
+     */
+    void load(Collection<Flight> flights) {
+        Map<K, List<Flight>> grouped = new HashMap<>();
+        for (Flight flight : flights) {
+            grouped.computeIfAbsent(keyFunction.apply(flight), key -> new ArrayList<>()).add(flight);
+        }
+        Map<K, Departures> loadedBuckets = new ConcurrentHashMap<>();
+        Map<Long, Placed<K>> loadedPlaced = new ConcurrentHashMap<>();
+        grouped.forEach((key, bucket) -> {
+            loadedBuckets.put(key, Departures.of(bucket));
+            bucket.forEach(flight -> loadedPlaced.put(flight.getId(), new Placed<>(key, flight)));
+        });
+        buckets = loadedBuckets;
+        placed = loadedPlaced;
+    }
+
+    /**
+     * Adds or replaces a flight. Every affected bucket is published with a single write, and a
+     * moved flight reaches its new bucket before it leaves the old one, so readers never see a
+     * bucket that is missing it.
+     */
+    void put(Flight flight) {
+        K key = keyFunction.apply(flight);
+        Placed<K> previous = placed.put(flight.getId(), new Placed<>(key, flight));
+        if (previous == null || !previous.key().equals(key)) {
+            update(key, null, flight);
+            if (previous != null) {
+                update(previous.key(), previous.flight(), null);
+            }
+        } else {
+            update(key, previous.flight(), flight);
+        }
+    }
+
+    /**
+     * Adds many flights, merging the new ones into each affected bucket once. Flights already
+     * held are replaced one by one.
+     */
+    void putAll(Collection<Flight> flights) {
+        Map<K, List<Flight>> addedByKey = new HashMap<>();
+        for (Flight flight : flights) {
+            if (placed.containsKey(flight.getId())) {
+                put(flight);
+                continue;
+            }
+            K key = keyFunction.apply(flight);
+            placed.put(flight.getId(), new Placed<>(key, flight));
+            addedByKey.computeIfAbsent(key, k -> new ArrayList<>()).add(flight);
+        }
+        addedByKey.forEach((key, added) -> publish(key, get(key).with(added)));
+    }
+
+    void remove(Long id) {
+        Placed<K> previous = placed.remove(id);
+        if (previous != null) {
+            update(previous.key(), previous.flight(), null);
+        }
+    }
+
+    /**
+     * Removes many flights, rebuilding each affected bucket once.
+     */
+    void removeAll(Collection<Long> ids) {
+        Map<K, Set<Long>> removedByKey = new HashMap<>();
+        for (Long id : ids) {
+            Placed<K> previous = placed.remove(id);
+            if (previous != null) {
+                removedByKey.computeIfAbsent(previous.key(), key -> new HashSet<>()).add(id);
+            }
+        }
+        removedByKey.forEach((key, removed) -> publish(key, get(key).without(removed)));
+    }
+
+    private void update(K key, Flight previous, Flight replacement) {
+        publish(key, get(key).replace(previous, replacement));
+    }
+
+    private void publish(K key, Departures bucket) {
+        if (bucket.size() == 0) {
+            buckets.remove(key);
+        } else {
+            buckets.put(key, bucket);
+        }
+    }
+
+    // The bucket a flight is in and the copy it is held as, which locates it there
+    private record Placed<K>(K key, Flight flight) {
+    }
+}
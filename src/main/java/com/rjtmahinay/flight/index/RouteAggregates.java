@@ -0,0 +1,109 @@
+package com.rjtmahinay.flight.index;
+
+import com.rjtmahinay.flight.dto.RouteAggregate;
+import com.rjtmahinay.flight.model.Flight;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per route and day aggregates (fares, seats, statuses) over the route index.
+ * <p>
+ * Each aggregate is cached together with the bucket it was computed from. Buckets are replaced
+ * on every write, so a scan only recomputes the route-days whose bucket changed since the
+ * last scan and reuses all others; its cost grows with the number of route-days, not the
+ * number of flights. Recomputation runs as a parallel stream on the common fork-join pool,
+ * which after a reload means every bucket.
+ */
+@Component
+public class RouteAggregates {
+
+    static final Comparator<RouteAggregate> ORDER = Comparator
+            .comparing(RouteAggregate::getOrigin)
+            .thenComparing(RouteAggregate::getDestination)
+            .thenComparing(RouteAggregate::getDate);
+
+    private final RouteIndex routeIndex;
+    private final Map<RouteKey, Cached> cache = new ConcurrentHashMap<>();
+
+    public RouteAggregates(RouteIndex routeIndex) {
+        this.routeIndex = routeIndex;
+    }
+
+    /**
+     * Aggregates of the route-days matching the filters, in route and day order. Every filter
+     * is optional; the day range includes both ends.
+     */
+    public List<RouteAggregate> scan(String origin, String destination, LocalDate from, LocalDate to) {
+        Map<RouteKey, Departures> buckets = routeIndex.routeDays();
+        List<Map.Entry<RouteKey, Departures>> matching = new ArrayList<>();
+        buckets.forEach((key, departures) -> {
+            if ((origin == null || origin.equals(key.origin()))
+                    && (destination == null || destination.equals(key.destination()))
+                    && (from == null || !key.day().isBefore(from))
+                    && (to == null || !key.day().isAfter(to))) {
+                matching.add(Map.entry(key, departures));
+            }
+        });
+        List<RouteAggregate> aggregates = matching.parallelStream()
+                .map(entry -> aggregate(entry.getKey(), entry.getValue()))
+                .sorted(ORDER)
+                .toList();
+        if (cache.size() > buckets.size()) {
+            cache.keySet().retainAll(buckets.keySet());
+        }
+        return aggregates;
+    }
+
+    private RouteAggregate aggregate(RouteKey key, Departures departures) {
+        Cached cached = cache.get(key);
+        if (cached != null && cached.source == departures) {
+            return cached.aggregate;
+        }
+        RouteAggregate aggregate = compute(key, departures.flights());
+        cache.put(key, new Cached(departures, aggregate));
+        return aggregate;
+    }
+
+    static RouteAggregate compute(RouteKey key, Flight[] flights) {
+        double minPrice = Double.POSITIVE_INFINITY;
+        double totalPrice = 0;
+        int priced = 0;
+        long seats = 0;
+        Map<String, Long> statusCounts = new TreeMap<>();
+        for (Flight flight : flights) {
+            if (flight.getPrice() != null) {
+                minPrice = Math.min(minPrice, flight.getPrice());
+                totalPrice += flight.getPrice();
+                priced++;
+            }
+            if (flight.getAvailableSeats() != null) {
+                seats += flight.getAvailableSeats();
+            }
+            if (flight.getStatus() != null) {
+                statusCounts.merge(flight.getStatus(), 1L, Long::sum);
+            }
+        }
+        return of(key.origin(), key.destination(), key.day(), flights.length,
+                priced == 0 ? null : minPrice, priced == 0 ? null : totalPrice / priced, seats, statusCounts);
+    }
+
+    /**
+     * Builds an aggregate, rounding the average fare to cents so that aggregates computed in
+     * memory and by the database compare equal.
+     */
+    public static RouteAggregate of(String origin, String destination, LocalDate date, long flights,
+                                    Double minPrice, Double avgPrice, long seats, Map<String, Long> statusCounts) {
+        Double roundedAverage = avgPrice == null ? null : Math.round(avgPrice * 100) / 100.0;
+        return new RouteAggregate(origin, destination, date, flights, minPrice, roundedAverage, seats, statusCounts);
+    }
+
+    private record Cached(Departures source, RouteAggregate aggregate) {
+    }
+}
@@ -0,0 +1,262 @@
+package com.rjtmahinay.flight.index;
+
+import com.rjtmahinay.flight.event.FlightChangedEvent;
+import com.rjtmahinay.flight.event.FlightsArchivedEvent;
+import com.rjtmahinay.flight.event.FlightsCreatedEvent;
+import com.rjtmahinay.flight.model.Flight;
+import com.rjtmahinay.flight.repository.FlightRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-process index of flights keyed by (origin, destination, departure day).
+ * <p>
+ * Each bucket is an immutable array sorted by departure time, replaced on every write so
+ * readers never need a lock; a change copies the affected buckets with the one flight put in
+ * or taken out at its place rather than sorting them again. The index is loaded once the
+ * application is ready and kept current through {@link FlightChangedEvent}s published by the
+ * service layer, with ingested flights merged in a batch at a time, applied in order on a thread of its own so publishers never wait on index
+ * upkeep. Writers that need their change visible to searches wait for {@link #settled()}.
+ * Next to the per-day buckets it keeps every airport's departures and every route's
+ * departures across all days, which the connection search walks.
+ */
+@Slf4j
+@Component
+public class RouteIndex {
+
+    private final FlightRepository flightRepository;
+    private final RouteIndexProperties properties;
+    private final Counter hits;
+    private final Counter misses;
+
+    private final FlightBuckets<RouteKey> routeDays = new FlightBuckets<>(RouteKey::of);
+    private final FlightBuckets<RouteKey> routes = new FlightBuckets<>(RouteKey::anyDay);
+    private final FlightBuckets<String> airports = new FlightBuckets<>(Flight::getOrigin);
+
+    // Applies changes one at a time, in the order they were published
+    private final Scheduler updates = Schedulers.newSingle("route-index", true);
+
+    // Changes seen while a (re)load is in flight, replayed on top of the loaded snapshot
+    private List<FlightChangedEvent> pending;
+    private volatile boolean ready;
+
+    public RouteIndex(FlightRepository flightRepository, RouteIndexProperties properties, MeterRegistry registry) {
+        this.flightRepository = flightRepository;
+        this.properties = properties;
+        this.hits = Counter.builder("flight.route.index.lookups").tag("result", "hit")
+                .description("Route searches served from the in-memory index").register(registry);
+        this.misses = Counter.builder("flight.route.index.lookups").tag("result", "miss")
+                .description("Route searches that fell through to the database").register(registry);
+        Gauge.builder("flight.route.index.size", routeDays, FlightBuckets::flightCount)
+                .description("Flights held in the route index").register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (properties.isEnabled()) {
+            reload().subscribe();
+        }
+    }
+
+    /**
+     * Rebuilds the index from the database. Searches keep falling through to the database
+     * until the first load has completed.
+     */
+    public Mono<Integer> reload() {
+        synchronized (this) {
+            if (pending == null) {
+                pending = new ArrayList<>();
+            }
+        }
+        return flightRepository.findAll()
+                .collectList()
+                .map(flights -> {
+                    install(flights);
+                    log.info("Route index loaded with {} flights across {} routes",
+                            flights.size(), routeDays.bucketCount());
+                    return flights.size();
+                })
+                .doOnError(e -> {
+                    synchronized (this) {
+                        pending = null;
+                    }
+                    log.warn("Route index load failed, searches will use the database", e);
+                });
+    }
+
+    private synchronized void install(List<Flight> flights) {
+        routeDays.load(flights);
+        routes.load(flights);
+        airports.load(flights);
+        List<FlightChangedEvent> replay = pending;
+        pending = null;
+        if (replay != null) {
+            replay.forEach(this::apply);
+        }
+        ready = true;
+    }
+
+    /**
+     * Whether the index has been loaded and is kept current.
+     */
+    public boolean isLoaded() {
+        return ready;
+    }
+
+    /**
+     * Whether searches can currently be answered from the index.
+     */
+    public boolean isServing() {
+        return ready && properties.isEnabled();
+    }
+
+    /**
+     * Returns the flights of one route on one day, or {@code null} when the index cannot
+     * answer and the caller has to query the database.
+     */
+    public Flight[] find(String origin, String destination, LocalDate day) {
+        if (!isServing()) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return routeDays.get(new RouteKey(origin, destination, day)).flights();
+    }
+
+    /**
+     * Every departure from {@code airport}, in departure order.
+     */
+    public Departures departuresFrom(String airport) {
+        return airports.get(airport);
+    }
+
+    /**
+     * Every departure from {@code origin} to {@code destination}, in departure order.
+     */
+    public Departures departures(String origin, String destination) {
+        return routes.get(new RouteKey(origin, destination, null));
+    }
+
+    /**
+     * The per-day buckets as of now, keyed by route and day.
+     */
+    Map<RouteKey, Departures> routeDays() {
+        return routeDays.snapshot();
+    }
+
+    /**
+     * Completes once every change published before the call has been applied.
+     */
+    public Mono<Void> settled() {
+        return Mono.<Void>fromRunnable(() -> {
+        }).subscribeOn(updates);
+    }
+
+    @PreDestroy
+    void stop() {
+        updates.dispose();
+    }
+
+    @EventListener
+    public void onFlightChanged(FlightChangedEvent event) {
+        updates.schedule(() -> changed(event));
+    }
+
+    @EventListener
+    public void onFlightsCreated(FlightsCreatedEvent event) {
+        updates.schedule(() -> created(event));
+    }
+
+    @EventListener
+    public void onFlightsArchived(FlightsArchivedEvent event) {
+        updates.schedule(() -> archived(event));
+    }
+
+    private synchronized void changed(FlightChangedEvent event) {
+        if (pending != null) {
+            pending.add(event);
+            return;
+        }
+        apply(event);
+    }
+
+    private synchronized void created(FlightsCreatedEvent event) {
+        if (pending != null) {
+            event.getFlights().forEach(flight -> pending.add(new FlightChangedEvent(FlightChangedEvent.Type.CREATED, flight)));
+            return;
+        }
+        routeDays.putAll(event.getFlights());
+        routes.putAll(event.getFlights());
+        airports.putAll(event.getFlights());
+    }
+
+    private synchronized void archived(FlightsArchivedEvent event) {
+        if (pending != null) {
+            event.getFlights().forEach(flight -> pending.add(new FlightChangedEvent(FlightChangedEvent.Type.DELETED, flight)));
+            return;
+        }
+        List<Long> ids = event.getFlights().stream().map(Flight::getId).toList();
+        routeDays.removeAll(ids);
+        routes.removeAll(ids);
+        airports.removeAll(ids);
+    }
+
+    private void apply(FlightChangedEvent event) {
+        Flight flight = event.getFlight();
+        if (event.getType() == FlightChangedEvent.Type.DELETED) {
+            routeDays.remove(flight.getId());
+            routes.remove(flight.getId());
+            airports.remove(flight.getId());
+        } else {
+            routeDays.put(flight);
+            routes.put(flight);
+            airports.put(flight);
+        }
+    }
+
+    /**
+     * Compares the index against the database and reports the routes that disagree.
+     */
+    public Mono<Map<String, Object>> verify() {
+        return flightRepository.findAll()
+                .collectMultimap(RouteKey::of)
+                .map(expected -> {
+                    Map<RouteKey, Departures> indexed = routeDays.snapshot();
+                    List<String> mismatched = new ArrayList<>();
+                    expected.forEach((key, flights) -> {
+                        Flight[] actual = indexed.getOrDefault(key, Departures.EMPTY).flights();
+                        if (!Arrays.asList(Departures.of(flights).flights()).equals(Arrays.asList(actual))) {
+                            mismatched.add(key.toString());
+                        }
+                    });
+                    indexed.keySet().stream()
+                            .filter(key -> !expected.containsKey(key))
+                            .forEach(key -> mismatched.add(key.toString()));
+
+                    Map<String, Object> report = new HashMap<>();
+                    report.put("serving", isServing());
+                    report.put("consistent", mismatched.isEmpty());
+                    report.put("indexedFlights", routeDays.flightCount());
+                    report.put("indexedRoutes", indexed.size());
+                    report.put("databaseRoutes", expected.size());
+                    report.put("mismatchedRoutes", mismatched);
+                    return report;
+                });
+    }
+}
@@ -0,0 +1,32 @@
+package com.rjtmahinay.flight.index;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint at {@code /actuator/routeindex} for checking the route index against
+ * the database and forcing a rebuild.
+ */
+@Component
+@Endpoint(id = "routeindex")
+@RequiredArgsConstructor
+public class RouteIndexEndpoint {
+
+    private final RouteIndex routeIndex;
+
+    @ReadOperation
+    public Mono<Map<String, Object>> consistency() {
+        return routeIndex.verify();
+    }
+
+    @WriteOperation
+    public Mono<Map<String, Object>> rebuild() {
+        return routeIndex.reload().then(routeIndex.verify());
+    }
+}
@@ -0,0 +1,16 @@
+package com.rjtmahinay.flight.index;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "flight.route-index")
+public class RouteIndexProperties {
+
+    /**
+     * Serve route searches from the in-memory index instead of the database.
+     */
+    private boolean enabled = true;
+}
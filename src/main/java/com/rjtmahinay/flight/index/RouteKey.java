@@ -0,0 +1,22 @@
+package com.rjtmahinay.flight.index;
+
+import com.rjtmahinay.flight.model.Flight;
+
+import java.time.LocalDate;
+
+/**
+ * Key of a route index bucket: one direction of a route on one departure day
+ */
+public record RouteKey(String origin, String destination, LocalDate day) {
+
+    public static RouteKey of(Flight flight) {
+        return new RouteKey(flight.getOrigin(), flight.getDestination(), flight.getDepartureTime().toLocalDate());
+    }
+
+    /**
+     * Key of the bucket holding every departure of a route, regardless of day.
+     */
+    static RouteKey anyDay(Flight flight) {
+        return new RouteKey(flight.getOrigin(), flight.getDestination(), null);
+    }
+}
@@ -0,0 +1,143 @@
+package com.rjtmahinay.flight.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.web.filter.reactive.ServerWebExchangeContextFilter;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.util.pattern.PathPattern;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.util.context.ContextView;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Times reactive pipelines from subscription to termination, which is when their work actually
+ * happens, rather than the call that merely assembles them.
+ * <p>
+ * Service calls are recorded in {@code flight.service.calls} and repository queries in
+ * {@code flight.repository.queries}, tagged with the method, the HTTP endpoint that triggered them
+ * ({@code none} outside a request) and the outcome. Repository queries also count the rows they
+ * emitted in {@code flight.repository.rows}, and {@code flight.pipelines.active} gauges the
+ * pipelines of each layer currently running. Meters are cached, so recording costs two map lookups.
+ */
+public class PipelineMetrics {
+
+    public static final String SERVICE = "service";
+    public static final String REPOSITORY = "repository";
+
+    private static final String NO_ENDPOINT = "none";
+
+    private final MeterRegistry registry;
+    private final Map<String, AtomicInteger> active = Map.of(SERVICE, new AtomicInteger(), REPOSITORY, new AtomicInteger());
+    private final Map<MeterKey, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<MeterKey, Counter> rowCounters = new ConcurrentHashMap<>();
+
+    public PipelineMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        active.forEach((layer, count) -> Gauge.builder("flight.pipelines.active", count, AtomicInteger::get)
+                .description("Reactive pipelines subscribed to and not yet terminated")
+                .tag("layer", layer)
+                .register(registry));
+    }
+
+    public <T> Flux<T> time(Flux<T> source, String layer, String method) {
+        return Flux.deferContextual(context -> {
+            Recording recording = start(layer, method, context);
+            return source.doOnNext(item -> recording.rows++)
+                    .doFinally(recording::stop);
+        });
+    }
+
+    public <T> Mono<T> time(Mono<T> source, String layer, String method) {
+        return Mono.deferContextual(context -> {
+            Recording recording = start(layer, method, context);
+            return source.doOnNext(item -> recording.rows++)
+                    .doFinally(recording::stop);
+        });
+    }
+
+    /**
+     * Records a call that did its work before returning.
+     */
+    public void record(String layer, String method, long startNanos, boolean failed) {
+        timer(new MeterKey(layer, method, NO_ENDPOINT, failed ? "error" : "success"))
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Recording start(String layer, String method, ContextView context) {
+        active.get(layer).incrementAndGet();
+        return new Recording(layer, method, endpoint(context), System.nanoTime());
+    }
+
+    private static String endpoint(ContextView context) {
+        return ServerWebExchangeContextFilter.getExchange(context)
+                .map(exchange -> {
+                    PathPattern pattern = exchange.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                    return pattern == null ? NO_ENDPOINT
+                            : exchange.getRequest().getMethod().name() + ' ' + pattern.getPatternString();
+                })
+                .orElse(NO_ENDPOINT);
+    }
+
+    private static String outcome(SignalType signal) {
+        return switch (signal) {
+            case ON_COMPLETE -> "success";
+            case ON_ERROR -> "error";
+            default -> "cancelled";
+        };
+    }
+
+    private Timer timer(MeterKey key) {
+        return timers.computeIfAbsent(key, k -> Timer.builder(REPOSITORY.equals(k.layer())
+                        ? "flight.repository.queries" : "flight.service.calls")
+                .description(REPOSITORY.equals(k.layer())
+                        ? "Repository queries from subscription until the last row" : "Service calls from subscription until completion")
+                .tag("method", k.method())
+                .tag("endpoint", k.endpoint())
+                .tag("outcome", k.outcome())
+                .register(registry));
+    }
+
+    private Counter rows(MeterKey key) {
+        return rowCounters.computeIfAbsent(key, k -> Counter.builder("flight.repository.rows")
+                .description("Rows emitted by repository queries")
+                .tag("method", k.method())
+                .tag("endpoint", k.endpoint())
+                .register(registry));
+    }
+
+    private record MeterKey(String layer, String method, String endpoint, String outcome) {
+    }
+
+    private final class Recording {
+        private final String layer;
+        private final String method;
+        private final String endpoint;
+        private final long startNanos;
+        // Signals of one subscription are serialized, so a plain field is enough
+        private long rows;
+
+        Recording(String layer, String method, String endpoint, long startNanos) {
+            this.layer = layer;
+            this.method = method;
+            this.endpoint = endpoint;
+            this.startNanos = startNanos;
+        }
+
+        void stop(SignalType signal) {
+            active.get(layer).decrementAndGet();
+            timer(new MeterKey(layer, method, endpoint, outcome(signal)))
+                    .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            if (REPOSITORY.equals(layer) && rows > 0) {
+                rows(new MeterKey(layer, method, endpoint, null)).increment(rows);
+            }
+        }
+    }
+}
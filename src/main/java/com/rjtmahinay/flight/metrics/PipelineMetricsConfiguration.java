@@ -0,0 +1,67 @@
+package com.rjtmahinay.flight.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.netty.NettyServerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.reactive.ServerWebExchangeContextFilter;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Hot-path metrics beyond Spring Boot's defaults: service and repository timers, Reactor
+ * scheduler executors and the Netty event loops. Everything is scraped from /actuator/prometheus.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "flight.metrics.pipelines", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class PipelineMetricsConfiguration {
+
+    private static final String SCHEDULER_METRICS = "flight-metrics";
+
+    @Bean
+    static PipelineMetricsPostProcessor pipelineMetricsPostProcessor(ObjectProvider<PipelineMetrics> metrics) {
+        // Post processors are created before any scheduler is used, so every executor gets decorated.
+        // The global registry is used because the application's registry does not exist yet;
+        // Spring Boot adds its registries to it. Executors of one scheduler share their meters,
+        // so task timings aggregate per scheduler and workers coming and going add no new series.
+        Schedulers.addExecutorServiceDecorator(SCHEDULER_METRICS, (scheduler, executor) ->
+                ExecutorServiceMetrics.monitor(Metrics.globalRegistry, executor, schedulerName(scheduler),
+                        "reactor.scheduler", Tags.empty()));
+        return new PipelineMetricsPostProcessor(metrics);
+    }
+
+    // "parallel(4,\"parallel\")" -> "parallel"
+    private static String schedulerName(Scheduler scheduler) {
+        String description = scheduler.toString();
+        int arguments = description.indexOf('(');
+        return arguments < 0 ? description : description.substring(0, arguments);
+    }
+
+    @Bean
+    PipelineMetrics pipelineMetrics(MeterRegistry registry) {
+        return new PipelineMetrics(registry);
+    }
+
+    /**
+     * Exposes the exchange to the Reactor context, which is where pipelines look up their endpoint tag.
+     */
+    @Bean
+    ServerWebExchangeContextFilter serverWebExchangeContextFilter() {
+        return new ServerWebExchangeContextFilter();
+    }
+
+    /**
+     * Turns on Reactor Netty's own meters, among them event-loop pending tasks and buffer
+     * allocator usage. Per-URI request timings already come from http.server.requests, so the
+     * URI tag is collapsed to keep these low-cardinality.
+     */
+    @Bean
+    NettyServerCustomizer nettyMetricsCustomizer() {
+        return server -> server.metrics(true, uri -> "/");
+    }
+}
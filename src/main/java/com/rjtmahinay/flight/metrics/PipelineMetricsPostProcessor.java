@@ -0,0 +1,63 @@
+package com.rjtmahinay.flight.metrics;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.SmartInstantiationAwareBeanPostProcessor;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.stereotype.Service;
+
+/**
+ * Instruments {@code @Service} beans and Spring Data repositories with a {@link PipelineTimingInterceptor}.
+ * <p>
+ * Repositories get the interceptor added to the proxy Spring Data already builds for them;
+ * services are wrapped in a class-based proxy. The proxy class is also reported from
+ * {@link #determineBeanType} so that AOT processing generates it ahead of time for native images.
+ */
+class PipelineMetricsPostProcessor implements SmartInstantiationAwareBeanPostProcessor {
+
+    private final ObjectProvider<PipelineMetrics> metrics;
+
+    PipelineMetricsPostProcessor(ObjectProvider<PipelineMetrics> metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+            factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                    (proxyFactory, information) -> proxyFactory.addAdvice(new PipelineTimingInterceptor(
+                            metrics, PipelineMetrics.REPOSITORY, information.getRepositoryInterface().getSimpleName()))));
+        }
+        return bean;
+    }
+
+    @Override
+    public Class<?> determineBeanType(Class<?> beanClass, String beanName) {
+        if (!AnnotatedElementUtils.hasAnnotation(beanClass, Service.class)) {
+            return beanClass;
+        }
+        ProxyFactory proxyFactory = serviceProxyFactory(beanClass);
+        proxyFactory.setTargetClass(beanClass);
+        return proxyFactory.getProxyClass(beanClass.getClassLoader());
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        Class<?> type = AopUtils.getTargetClass(bean);
+        if (!AnnotatedElementUtils.hasAnnotation(type, Service.class)) {
+            return bean;
+        }
+        ProxyFactory proxyFactory = serviceProxyFactory(type);
+        proxyFactory.setTarget(bean);
+        return proxyFactory.getProxy(type.getClassLoader());
+    }
+
+    private ProxyFactory serviceProxyFactory(Class<?> type) {
+        ProxyFactory proxyFactory = new ProxyFactory();
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(new PipelineTimingInterceptor(metrics, PipelineMetrics.SERVICE, type.getSimpleName()));
+        return proxyFactory;
+    }
+}
@@ -0,0 +1,68 @@
+package com.rjtmahinay.flight.metrics;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Wraps every public method of one bean in {@link PipelineMetrics}. Reactive results are timed
+ * when subscribed; anything else is timed around the call itself.
+ */
+class PipelineTimingInterceptor implements MethodInterceptor {
+
+    private final ObjectProvider<PipelineMetrics> metricsProvider;
+    private final String layer;
+    private final String owner;
+    private final Map<Method, String> methodNames = new ConcurrentHashMap<>();
+    private volatile PipelineMetrics metrics;
+
+    PipelineTimingInterceptor(ObjectProvider<PipelineMetrics> metricsProvider, String layer, String owner) {
+        this.metricsProvider = metricsProvider;
+        this.layer = layer;
+        this.owner = owner;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Method method = invocation.getMethod();
+        if (method.getDeclaringClass() == Object.class) {
+            return invocation.proceed();
+        }
+        String name = methodNames.computeIfAbsent(method, m -> owner + '.' + m.getName());
+        PipelineMetrics pipelineMetrics = metrics();
+        if (Flux.class.isAssignableFrom(method.getReturnType()) || Mono.class.isAssignableFrom(method.getReturnType())) {
+            Object result = invocation.proceed();
+            if (result instanceof Flux<?> flux) {
+                return pipelineMetrics.time(flux, layer, name);
+            }
+            if (result instanceof Mono<?> mono) {
+                return pipelineMetrics.time(mono, layer, name);
+            }
+            return result;
+        }
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            Object result = invocation.proceed();
+            failed = false;
+            return result;
+        } finally {
+            pipelineMetrics.record(layer, name, start, failed);
+        }
+    }
+
+    private PipelineMetrics metrics() {
+        PipelineMetrics resolved = metrics;
+        if (resolved == null) {
+            resolved = metricsProvider.getObject();
+            metrics = resolved;
+        }
+        return resolved;
+    }
+}
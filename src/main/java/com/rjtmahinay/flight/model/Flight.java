@@ -26,4 +26,6 @@ public class Flight {
     private Integer availableSeats;
     private Double price;
     private String status;
+    // Last change to the row; drives Last-Modified and ETag headers
+    private LocalDateTime updatedAt;
 }
@@ -0,0 +1,53 @@
+package com.rjtmahinay.flight.offload;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "flight.offload")
+public class OffloadProperties {
+
+    /**
+     * Where heavy response mapping and encoding runs instead of the Netty event loop.
+     */
+    private Mode mode = Mode.BOUNDED_ELASTIC;
+
+    /**
+     * Requests of one endpoint mapped and encoded at once, unless overridden in max-concurrency.
+     */
+    private int defaultMaxConcurrency = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Per-endpoint overrides of default-max-concurrency, keyed by endpoint (status, flights, connections).
+     */
+    private Map<String, Integer> maxConcurrency = new HashMap<>();
+
+    /**
+     * Requests of one endpoint waiting for a free slot; beyond this they are answered with 503.
+     */
+    private int queueCapacity = 1_000;
+
+    public int maxConcurrency(String endpoint) {
+        return maxConcurrency.getOrDefault(endpoint, defaultMaxConcurrency);
+    }
+
+    public enum Mode {
+        /**
+         * Everything stays on the event loop.
+         */
+        NONE,
+        /**
+         * One bounded elastic scheduler per endpoint, capped at its concurrency limit.
+         */
+        BOUNDED_ELASTIC,
+        /**
+         * Virtual threads, capped per endpoint at its concurrency limit. Needs Java 21.
+         */
+        VIRTUAL
+    }
+}
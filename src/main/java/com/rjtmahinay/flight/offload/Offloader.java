@@ -0,0 +1,97 @@
+package com.rjtmahinay.flight.offload;
+
+import com.rjtmahinay.flight.exception.OffloadCapacityExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Moves the tail of a response pipeline off the Netty event loop, so that mapping a large
+ * result and encoding it to the response body do not stall other requests on the same loop.
+ * <p>
+ * Every endpoint gets its own scheduler, capped at its concurrency limit, so one endpoint
+ * under load cannot take the offload capacity of the others. Requests beyond the limit
+ * wait in a bounded queue and are rejected with 503 once it is full.
+ */
+@Slf4j
+@Component
+public class Offloader {
+
+    private final OffloadProperties properties;
+    private final ThreadFactory virtualThreads;
+    private final Map<String, Scheduler> schedulers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> rejections = new ConcurrentHashMap<>();
+    private final MeterRegistry registry;
+
+    public Offloader(OffloadProperties properties, MeterRegistry registry) {
+        this.properties = properties;
+        this.registry = registry;
+        // Fails at startup rather than on the first request when the JDK has no virtual threads
+        this.virtualThreads = properties.getMode() == OffloadProperties.Mode.VIRTUAL ? virtualThreadFactory() : null;
+        log.info("Offloading response mapping: {}", properties.getMode());
+    }
+
+    /**
+     * Continues the pipeline on the endpoint's offload scheduler; operators after this one,
+     * and the encoding of the emitted value, run there.
+     */
+    public <T> Function<Mono<T>, Mono<T>> on(String endpoint) {
+        if (properties.getMode() == OffloadProperties.Mode.NONE) {
+            return Function.identity();
+        }
+        return mono -> mono.publishOn(scheduler(endpoint))
+                .onErrorMap(RejectedExecutionException.class, e -> {
+                    rejections.computeIfAbsent(endpoint, name -> Counter.builder("flight.offload.rejected")
+                            .description("Requests rejected because the endpoint's offload queue was full")
+                            .tag("endpoint", name)
+                            .register(registry)).increment();
+                    return new OffloadCapacityExceededException(endpoint);
+                });
+    }
+
+    private Scheduler scheduler(String endpoint) {
+        return schedulers.computeIfAbsent(endpoint, name -> {
+            int maxConcurrency = properties.maxConcurrency(name);
+            if (virtualThreads == null) {
+                return Schedulers.newBoundedElastic(maxConcurrency, properties.getQueueCapacity(), "offload-" + name);
+            }
+            // A fixed pool only caps concurrency here: its threads are virtual, so the cap
+            // costs no platform threads and idle ones are let go after a minute
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency,
+                    60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(properties.getQueueCapacity()), virtualThreads);
+            executor.allowCoreThreadTimeOut(true);
+            return Schedulers.fromExecutorService(executor, "offload-" + name);
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        schedulers.values().forEach(Scheduler::dispose);
+    }
+
+    // Thread.ofVirtual() is looked up reflectively so that the build keeps targeting Java 17
+    private static ThreadFactory virtualThreadFactory() {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, "offload-", 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("flight.offload.mode=virtual needs Java 21 or later", e);
+        }
+    }
+}
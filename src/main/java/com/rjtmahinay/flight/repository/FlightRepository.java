@@ -1,12 +1,15 @@
 package com.rjtmahinay.flight.repository;
 
 import com.rjtmahinay.flight.model.Flight;
+import org.springframework.data.r2dbc.repository.Modifying;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 
 @Repository
 public interface FlightRepository extends R2dbcRepository<Flight, Long> {
@@ -23,4 +26,26 @@ public interface FlightRepository extends R2dbcRepository<Flight, Long> {
            "AND departure_time >= :startDate AND departure_time < :endDate")
     Flux<Flight> findByFlightNumberAndDepartureTimeBetween(
         String flightNumber, LocalDateTime startDate, LocalDateTime endDate);
+
+    @Query("SELECT * FROM flights WHERE flight_number IN (:flightNumbers) " +
+           "AND departure_time >= :startDate AND departure_time < :endDate ORDER BY flight_number, departure_time")
+    Flux<Flight> findByFlightNumberInAndDepartureTimeBetween(
+        Collection<String> flightNumbers, LocalDateTime startDate, LocalDateTime endDate);
+
+    @Query("SELECT * FROM flights WHERE id > :afterId ORDER BY id LIMIT :limit")
+    Flux<Flight> findPageAfter(long afterId, int limit);
+
+    /**
+     * Takes seats in a single conditional update, returning 0 when the flight does not
+     * exist or has fewer than {@code seats} left.
+     */
+    @Modifying
+    @Query("UPDATE flights SET available_seats = available_seats - :seats, updated_at = CURRENT_TIMESTAMP " +
+           "WHERE id = :id AND available_seats >= :seats")
+    Mono<Integer> reserveSeats(Long id, int seats);
+
+    @Modifying
+    @Query("UPDATE flights SET available_seats = available_seats + :seats, updated_at = CURRENT_TIMESTAMP " +
+           "WHERE id = :id")
+    Mono<Integer> releaseSeats(Long id, int seats);
 }
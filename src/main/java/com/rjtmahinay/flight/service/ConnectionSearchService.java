@@ -0,0 +1,149 @@
+package com.rjtmahinay.flight.service;
+
+import com.rjtmahinay.flight.exception.ConnectionSearchUnavailableException;
+import com.rjtmahinay.flight.index.Departures;
+import com.rjtmahinay.flight.index.RouteIndex;
+import com.rjtmahinay.flight.model.Flight;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Finds itineraries of up to {@link #MAX_STOPS} connections over the departures held in the
+ * {@link RouteIndex}.
+ * <p>
+ * The search is a depth-first walk of the time-expanded schedule: from each departure it only
+ * looks at departures from the arrival airport inside the allowed connection window, found by
+ * binary search, and the last leg is drawn from the departures towards the destination only.
+ * Itineraries are ranked by total travel time, then stops, then price, and a branch is dropped
+ * as soon as it is already slower than the worst itinerary that would be returned.
+ */
+@Service
+@RequiredArgsConstructor
+public class ConnectionSearchService {
+
+    public static final int MAX_STOPS = 3;
+    public static final int MAX_RESULTS = 100;
+
+    private static final long SECONDS_PER_DAY = 24 * 60 * 60;
+
+    private static final Comparator<Itinerary> RANKING = Comparator
+            .comparingLong(Itinerary::travelSeconds)
+            .thenComparingInt(Itinerary::stops)
+            .thenComparingDouble(Itinerary::price);
+
+    private final RouteIndex routeIndex;
+
+    /**
+     * A sequence of flights, each departing from the airport the previous one arrived at.
+     */
+    public record Itinerary(List<Flight> legs, long travelSeconds, double price) {
+
+        public int stops() {
+            return legs.size() - 1;
+        }
+    }
+
+    public List<Itinerary> search(String origin, String destination, LocalDate day, int maxStops,
+                                  Duration minConnection, Duration maxConnection, int limit) {
+        if (!routeIndex.isLoaded()) {
+            throw new ConnectionSearchUnavailableException("Connection search is not available until the route index has loaded");
+        }
+        Search search = new Search(destination, Math.max(0, Math.min(maxStops, MAX_STOPS)),
+                minConnection.toSeconds(), maxConnection.toSeconds(), Math.max(1, Math.min(limit, MAX_RESULTS)));
+        search.visited[0] = origin;
+
+        long dayStart = Departures.epochSecond(day.atStartOfDay());
+        Departures first = search.maxStops == 0
+                ? routeIndex.departures(origin, destination)
+                : routeIndex.departuresFrom(origin);
+        for (int i = first.firstAtOrAfter(dayStart); i < first.size() && first.departureSecond(i) < dayStart + SECONDS_PER_DAY; i++) {
+            search.extend(0, first.get(i), first.departureSecond(i));
+        }
+
+        List<Itinerary> results = new ArrayList<>(search.best);
+        results.sort(RANKING);
+        return results;
+    }
+
+    private final class Search {
+
+        private final String destination;
+        private final int maxStops;
+        private final long minConnection;
+        private final long maxConnection;
+        private final int limit;
+
+        private final Flight[] path;
+        private final String[] visited;
+        // Worst kept itinerary at the head, so it can be compared against and evicted cheaply
+        private final PriorityQueue<Itinerary> best;
+
+        Search(String destination, int maxStops, long minConnection, long maxConnection, int limit) {
+            this.destination = destination;
+            this.maxStops = maxStops;
+            this.minConnection = minConnection;
+            this.maxConnection = maxConnection;
+            this.limit = limit;
+            this.path = new Flight[maxStops + 1];
+            this.visited = new String[maxStops + 2];
+            this.best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+        }
+
+        void extend(int depth, Flight flight, long startSecond) {
+            path[depth] = flight;
+            visited[depth + 1] = flight.getDestination();
+            long arrival = Departures.epochSecond(flight.getArrivalTime());
+            long travelSeconds = arrival - startSecond;
+            if (best.size() == limit && travelSeconds > best.peek().travelSeconds()) {
+                return;
+            }
+            if (destination.equals(flight.getDestination())) {
+                offer(depth, travelSeconds);
+                return;
+            }
+            if (depth == maxStops) {
+                return;
+            }
+
+            Departures next = depth + 1 == maxStops
+                    ? routeIndex.departures(flight.getDestination(), destination)
+                    : routeIndex.departuresFrom(flight.getDestination());
+            long windowEnd = arrival + maxConnection;
+            for (int i = next.firstAtOrAfter(arrival + minConnection); i < next.size() && next.departureSecond(i) <= windowEnd; i++) {
+                Flight candidate = next.get(i);
+                if (!isVisited(candidate.getDestination(), depth + 1)) {
+                    extend(depth + 1, candidate, startSecond);
+                }
+            }
+        }
+
+        private boolean isVisited(String airport, int upTo) {
+            for (int i = 0; i <= upTo; i++) {
+                if (airport.equals(visited[i])) {
+                    return !airport.equals(destination);
+                }
+            }
+            return false;
+        }
+
+        private void offer(int depth, long travelSeconds) {
+            double price = 0;
+            for (int i = 0; i <= depth; i++) {
+                price += path[i].getPrice() != null ? path[i].getPrice() : 0;
+            }
+            Itinerary itinerary = new Itinerary(List.copyOf(Arrays.asList(path).subList(0, depth + 1)), travelSeconds, price);
+            best.offer(itinerary);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.rjtmahinay.flight.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rjtmahinay.flight.config.IngestProperties;
+import com.rjtmahinay.flight.datasource.ReadRouting;
+import com.rjtmahinay.flight.dto.BulkIngestResponse;
+import com.rjtmahinay.flight.event.FlightsCreatedEvent;
+import com.rjtmahinay.flight.model.Flight;
+import io.r2dbc.spi.Statement;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes large numbers of flights through batched R2DBC inserts.
+ * <p>
+ * Records are validated one by one as they arrive, grouped into batches of
+ * {@code flight.ingest.batch-size} and written with one {@link Statement} per batch, each batch
+ * in its own transaction. A batch the database rejects fails as a whole and every record in it
+ * is reported; the remaining batches are still written.
+ * <p>
+ * NDJSON bodies are decoded line by line, so a malformed line is reported like any other
+ * invalid record. JSON arrays are decoded element by element as they arrive, so neither body
+ * is ever held in memory. A syntax error in an array cannot be skipped past: reading stops at
+ * it and it is reported as the last record, and the records decoded before it are still written.
+ * <p>
+ * Each committed batch is announced with one {@link FlightsCreatedEvent}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FlightIngestService {
+
+    static final String INSERT_SQL = "INSERT INTO flights (airline_name, flight_number, origin, destination, "
+            + "departure_time, arrival_time, available_seats, price, status, updated_at) "
+            + "VALUES ($1, $2, $3, $4, $5, $6, $7, $8, $9, $10)";
+
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final IngestProperties properties;
+    private final ObjectMapper objectMapper;
+
+    public Mono<BulkIngestResponse> ingest(Flux<Flight> flights) {
+        return ingestDecoded(flights.map(flight -> new Decoded(flight, null)));
+    }
+
+    /**
+     * Ingests an NDJSON body, one record per non-blank line.
+     */
+    public Mono<BulkIngestResponse> ingestLines(Flux<String> lines) {
+        return ingestDecoded(lines.filter(line -> !line.isBlank()).map(line -> {
+            try {
+                return new Decoded(objectMapper.readValue(line, Flight.class), null);
+            } catch (JsonProcessingException e) {
+                return malformed(e);
+            }
+        }));
+    }
+
+    /**
+     * Ingests the elements of a JSON array body as they are decoded.
+     */
+    public Mono<BulkIngestResponse> ingestArray(Flux<JsonNode> elements) {
+        Flux<Decoded> records = elements.map(element -> {
+            try {
+                return new Decoded(objectMapper.treeToValue(element, Flight.class), null);
+            } catch (JsonProcessingException e) {
+                return malformed(e);
+            }
+        });
+        // The body cannot be read past a syntax error, which becomes the last record
+        return ingestDecoded(records.onErrorResume(e -> Mono.just(unreadable(e))));
+    }
+
+    private Mono<BulkIngestResponse> ingestDecoded(Flux<Decoded> records) {
+        return Mono.defer(() -> {
+            long started = System.nanoTime();
+            AtomicLong received = new AtomicLong();
+            AtomicLong inserted = new AtomicLong();
+            Queue<BulkIngestResponse.RecordError> errors = new ConcurrentLinkedQueue<>();
+
+            return records.index()
+                    .doOnNext(record -> received.incrementAndGet())
+                    .filter(record -> {
+                        Decoded decoded = record.getT2();
+                        String problem = decoded.problem() != null ? decoded.problem() : validate(decoded.flight());
+                        if (problem != null) {
+                            errors.add(error(record.getT1(), decoded.flight(), problem));
+                        }
+                        return problem == null;
+                    })
+                    .map(record -> Tuples.of(record.getT1(), record.getT2().flight()))
+                    .buffer(properties.getBatchSize())
+                    .flatMap(batch -> insertBatch(batch)
+                            .transform(ReadRouting::recordWrite)
+                            .doOnNext(inserted::addAndGet)
+                            .onErrorResume(e -> {
+                                log.warn("Bulk insert of {} flights failed: {}", batch.size(), e.getMessage());
+                                batch.forEach(record -> errors.add(error(record.getT1(), record.getT2(), e.getMessage())));
+                                return Mono.empty();
+                            }), properties.getConcurrency())
+                    .then(Mono.fromSupplier(() -> {
+                        long elapsedNanos = System.nanoTime() - started;
+                        List<BulkIngestResponse.RecordError> sorted = new ArrayList<>(errors);
+                        sorted.sort(Comparator.comparingLong(BulkIngestResponse.RecordError::getIndex));
+                        double rowsPerSecond = elapsedNanos == 0 ? 0 : inserted.get() * 1_000_000_000d / elapsedNanos;
+                        return new BulkIngestResponse(received.get(), inserted.get(), sorted.size(),
+                                elapsedNanos / 1_000_000, Math.round(rowsPerSecond * 10) / 10d, sorted);
+                    }));
+        });
+    }
+
+    private Mono<Long> insertBatch(List<Tuple2<Long, Flight>> batch) {
+        return databaseClient.inConnectionMany(connection -> {
+                    Statement statement = connection.createStatement(INSERT_SQL).returnGeneratedValues("id");
+                    LocalDateTime now = FlightService.now();
+                    for (int i = 0; i < batch.size(); i++) {
+                        if (i > 0) {
+                            statement.add();
+                        }
+                        Flight flight = batch.get(i).getT2();
+                        flight.setUpdatedAt(now);
+                        bind(statement, flight);
+                    }
+                    return Flux.from(statement.execute())
+                            .concatMap(result -> result.map((row, metadata) -> row.get("id", Long.class)));
+                })
+                .collectList()
+                // Checked inside the transaction, so a mismatch rolls the batch back
+                .flatMap(ids -> ids.size() == batch.size() ? Mono.just(ids) : Mono.error(new IllegalStateException(
+                        "Inserted " + batch.size() + " flights but got " + ids.size() + " generated ids")))
+                .as(transactionalOperator::transactional)
+                .map(ids -> {
+                    List<Flight> created = new ArrayList<>(batch.size());
+                    for (int i = 0; i < batch.size(); i++) {
+                        Flight flight = batch.get(i).getT2();
+                        flight.setId(ids.get(i));
+                        created.add(flight);
+                    }
+                    eventPublisher.publishEvent(new FlightsCreatedEvent(created));
+                    return (long) batch.size();
+                });
+    }
+
+    private static void bind(Statement statement, Flight flight) {
+        statement.bind(0, flight.getAirlineName())
+                .bind(1, flight.getFlightNumber())
+                .bind(2, flight.getOrigin())
+                .bind(3, flight.getDestination())
+                .bind(4, flight.getDepartureTime())
+                .bind(5, flight.getArrivalTime())
+                .bind(6, flight.getAvailableSeats())
+                .bind(7, flight.getPrice())
+                .bind(8, flight.getStatus())
+                .bind(9, flight.getUpdatedAt());
+    }
+
+    /**
+     * Returns why the flight cannot be inserted, or {@code null} if it is valid.
+     */
+    static String validate(Flight flight) {
+        if (flight == null) {
+            return "Record is empty";
+        }
+        if (flight.getId() != null) {
+            return "A new flight cannot already have an ID";
+        }
+        if (isBlank(flight.getAirlineName())) {
+            return "airlineName is required";
+        }
+        if (isBlank(flight.getFlightNumber())) {
+            return "flightNumber is required";
+        }
+        if (flight.getOrigin() == null || flight.getOrigin().length() != 3) {
+            return "origin must be a 3-letter airport code";
+        }
+        if (flight.getDestination() == null || flight.getDestination().length() != 3) {
+            return "destination must be a 3-letter airport code";
+        }
+        if (flight.getDepartureTime() == null || flight.getArrivalTime() == null) {
+            return "departureTime and arrivalTime are required";
+        }
+        if (!flight.getArrivalTime().isAfter(flight.getDepartureTime())) {
+            return "arrivalTime must be after departureTime";
+        }
+        if (flight.getAvailableSeats() == null || flight.getAvailableSeats() < 0) {
+            return "availableSeats must be zero or more";
+        }
+        if (flight.getPrice() == null || flight.getPrice() < 0) {
+            return "price must be zero or more";
+        }
+        if (isBlank(flight.getStatus())) {
+            return "status is required";
+        }
+        return null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static BulkIngestResponse.RecordError error(long index, Flight flight, String message) {
+        return new BulkIngestResponse.RecordError(index, flight != null ? flight.getFlightNumber() : null, message);
+    }
+
+    private static Decoded malformed(JsonProcessingException e) {
+        return new Decoded(null, "Malformed record: " + e.getOriginalMessage());
+    }
+
+    private static Decoded unreadable(Throwable e) {
+        Throwable cause = NestedExceptionUtils.getMostSpecificCause(e);
+        String message = cause instanceof JsonProcessingException json ? json.getOriginalMessage() : cause.getMessage();
+        return new Decoded(null, "Malformed JSON, the rest of the array was not read: " + message);
+    }
+
+    // A record as read from the body: the flight, or why it could not be decoded
+    private record Decoded(Flight flight, String problem) {
+    }
+}
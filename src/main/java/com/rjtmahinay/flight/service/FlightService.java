@@ -1,51 +1,194 @@
 package com.rjtmahinay.flight.service;
 
+import com.rjtmahinay.flight.archive.FlightArchive;
+import com.rjtmahinay.flight.availability.AvailabilityCache;
+import com.rjtmahinay.flight.config.PagingProperties;
+import com.rjtmahinay.flight.config.StatusBatchProperties;
+import com.rjtmahinay.flight.datasource.ReadRouting;
+import com.rjtmahinay.flight.dto.FlightAvailability;
+import com.rjtmahinay.flight.dto.FlightSearchRequest;
+import com.rjtmahinay.flight.dto.FlightStatusRequest;
+import com.rjtmahinay.flight.event.FlightChangedEvent;
+import com.rjtmahinay.flight.exception.InvalidSearchRequestException;
+import com.rjtmahinay.flight.exception.InvalidStatusBatchException;
 import com.rjtmahinay.flight.exception.FlightNotFoundException;
+import com.rjtmahinay.flight.exception.SeatsUnavailableException;
+import com.rjtmahinay.flight.index.RouteIndex;
 import com.rjtmahinay.flight.model.Flight;
 import com.rjtmahinay.flight.repository.FlightRepository;
+import com.rjtmahinay.flight.service.QueryCoalescer.RouteQuery;
+import com.rjtmahinay.flight.service.QueryCoalescer.StatusQuery;
+import com.rjtmahinay.flight.snapshot.ScheduleSnapshotStore;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class FlightService {
 
+    static final int MAX_SEARCH_LIMIT = 500;
+
+    // The columns are NOT NULL but the fields of an in-memory copy are not checked, so a
+    // missing value sorts last instead of failing the whole search
+    private static final Map<String, Comparator<Flight>> SEARCH_ORDER = Map.of(
+            "price", orderBy(Flight::getPrice),
+            "departureTime", orderBy(Flight::getDepartureTime),
+            "arrivalTime", orderBy(Flight::getArrivalTime));
+
     private final FlightRepository flightRepository;
+    private final RouteIndex routeIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PagingProperties pagingProperties;
+    private final R2dbcEntityTemplate entityTemplate;
+    private final QueryCoalescer queryCoalescer;
+    private final AvailabilityCache availabilityCache;
+    private final ScheduleSnapshotStore scheduleSnapshots;
+    private final StatusBatchProperties statusBatchProperties;
+    private final FlightArchive flightArchive;
 
     public Flux<Flight> searchFlights(String origin, String destination, LocalDateTime date) {
         if (date == null) {
-            return flightRepository.findByOriginAndDestination(origin, destination);
+            return queryCoalescer.execute(QueryCoalescer.ROUTE, new RouteQuery(origin, destination, null),
+                    () -> flightRepository.findByOriginAndDestination(origin, destination))
+                    .contextWrite(ReadRouting::readOnly);
+        }
+        Flight[] indexed = findInMemory(origin, destination, date.toLocalDate());
+        if (indexed != null) {
+            return Flux.fromArray(indexed);
         }
         // Find flights for the same day
         LocalDateTime startOfDay = date.toLocalDate().atStartOfDay();
         LocalDateTime endOfDay = startOfDay.plusDays(1);
-        return flightRepository.findByOriginAndDestinationAndDepartureTimeBetween(
-            origin, destination, startOfDay, endOfDay);
+        return queryCoalescer.execute(QueryCoalescer.ROUTE, new RouteQuery(origin, destination, startOfDay.toLocalDate()),
+                () -> flightRepository.findByOriginAndDestinationAndDepartureTimeBetween(
+                        origin, destination, startOfDay, endOfDay))
+                .contextWrite(ReadRouting::readOnly);
+    }
+
+    /**
+     * Searches one route on one day, keeping only flights with enough seats for the party and,
+     * if given, of the requested airline. Filtering, ordering and the result limit are applied
+     * in the index lookup or pushed down into the SQL query, never after fetching every row.
+     * The class of service is accepted but not used, since flights carry a single fare. A request
+     * without a route or with a malformed departure date fails with a 400.
+     */
+    public Flux<Flight> searchFlights(FlightSearchRequest request) {
+        if (isBlank(request.getOrigin()) || isBlank(request.getDestination())) {
+            return Flux.error(new InvalidSearchRequestException("Origin and destination are required"));
+        }
+        LocalDate day;
+        try {
+            day = LocalDate.parse(request.getDepartureDate());
+        } catch (DateTimeParseException | NullPointerException e) {
+            return Flux.error(new InvalidSearchRequestException("Departure date must be in YYYY-MM-DD format"));
+        }
+        int passengers = Math.max(1, request.getPassengers());
+        int limit = Math.max(1, Math.min(request.getLimit(), MAX_SEARCH_LIMIT));
+        String sortBy = SEARCH_ORDER.containsKey(request.getSortBy()) ? request.getSortBy() : "departureTime";
+        String airline = isBlank(request.getAirline()) ? null : request.getAirline();
+
+        Flight[] indexed = findInMemory(request.getOrigin(), request.getDestination(), day);
+        if (indexed != null) {
+            return Flux.fromStream(() -> Arrays.stream(indexed)
+                    .filter(flight -> flight.getAvailableSeats() >= passengers)
+                    .filter(flight -> airline == null || airline.equalsIgnoreCase(flight.getAirlineName()))
+                    .sorted(SEARCH_ORDER.get(sortBy))
+                    .limit(limit));
+        }
+
+        Criteria criteria = Criteria.where("origin").is(request.getOrigin())
+                .and("destination").is(request.getDestination())
+                .and("departureTime").greaterThanOrEquals(day.atStartOfDay())
+                .and("departureTime").lessThan(day.plusDays(1).atStartOfDay())
+                .and("availableSeats").greaterThanOrEquals(passengers);
+        if (airline != null) {
+            criteria = criteria.and("airlineName").is(airline).ignoreCase(true);
+        }
+        return entityTemplate.select(Query.query(criteria)
+                .sort(Sort.by(sortBy, "id"))
+                .limit(limit), Flight.class)
+                .contextWrite(ReadRouting::readOnly);
     }
 
     public Flux<Flight> getAllFlights() {
-        return flightRepository.findAll();
+        return flightRepository.findAll().contextWrite(ReadRouting::readOnly);
+    }
+
+    /**
+     * Returns at most {@code size} flights with an id greater than {@code cursor}, in id order.
+     * The requested size is clamped to the configured maximum.
+     */
+    public Flux<Flight> getFlightsPage(Long cursor, Integer size) {
+        int limit = size == null ? pagingProperties.getDefaultSize()
+                : Math.max(1, Math.min(size, pagingProperties.getMaxSize()));
+        return flightRepository.findPageAfter(cursor == null ? 0L : cursor, limit)
+                .contextWrite(ReadRouting::readOnly);
+    }
+
+    /**
+     * Streams every flight in id order by walking the table one keyset page at a time.
+     * The next page is queried while the subscriber reads the current one, and no further until
+     * it asks for more, so memory stays bounded by two batches no matter how slowly it reads.
+     */
+    public Flux<Flight> streamAllFlights() {
+        int batchSize = pagingProperties.getStreamBatchSize();
+        return flightRepository.findPageAfter(0L, batchSize)
+                .collectList()
+                .expand(page -> page.size() < batchSize ? Mono.empty()
+                        : flightRepository.findPageAfter(page.get(page.size() - 1).getId(), batchSize).collectList())
+                .concatMapIterable(page -> page, 1)
+                .contextWrite(ReadRouting::readOnly);
     }
     
     public Mono<Flight> getFlightById(Long id) {
         return flightRepository.findById(id)
-                .switchIfEmpty(Mono.error(new FlightNotFoundException("Flight not found with id: " + id)));
+                .map(availabilityCache::withCurrentSeats)
+                .switchIfEmpty(Mono.error(new FlightNotFoundException("Flight not found with id: " + id)))
+                .contextWrite(ReadRouting::readOnly);
     }
     
     public Mono<Flight> saveFlight(Flight flight) {
         if (flight.getId() != null) {
             return Mono.error(new IllegalArgumentException("A new flight cannot already have an ID"));
         }
-        return flightRepository.save(flight);
+        flight.setUpdatedAt(now());
+        return flightRepository.save(flight)
+                .flatMap(saved -> publish(FlightChangedEvent.Type.CREATED, saved));
     }
     
     public Mono<Flight> updateFlight(Long id, Flight flight) {
         return flightRepository.findById(id)
                 .flatMap(existingFlight -> {
+                    // What caches keyed on the old route, day or flight number need to drop
+                    Flight previous = Flight.builder()
+                            .id(existingFlight.getId())
+                            .flightNumber(existingFlight.getFlightNumber())
+                            .origin(existingFlight.getOrigin())
+                            .destination(existingFlight.getDestination())
+                            .departureTime(existingFlight.getDepartureTime())
+                            .build();
                     existingFlight.setFlightNumber(flight.getFlightNumber());
                     existingFlight.setOrigin(flight.getOrigin());
                     existingFlight.setDestination(flight.getDestination());
@@ -54,24 +197,200 @@ public class FlightService {
                     existingFlight.setAvailableSeats(flight.getAvailableSeats());
                     existingFlight.setPrice(flight.getPrice());
                     existingFlight.setStatus(flight.getStatus());
-                    return flightRepository.save(existingFlight);
+                    existingFlight.setUpdatedAt(now());
+                    return flightRepository.save(existingFlight)
+                            .flatMap(updated -> publish(
+                                    new FlightChangedEvent(FlightChangedEvent.Type.UPDATED, updated, false, previous)));
                 });
     }
     
     public Mono<Void> deleteFlight(Long id) {
         return flightRepository.findById(id)
-                .flatMap(flightRepository::delete)
-                .switchIfEmpty(Mono.error(new FlightNotFoundException("Flight not found with id: " + id)));
+                .switchIfEmpty(Mono.error(new FlightNotFoundException("Flight not found with id: " + id)))
+                .flatMap(existingFlight -> flightRepository.delete(existingFlight)
+                        .then(Mono.defer(() -> publish(FlightChangedEvent.Type.DELETED, existingFlight)))
+                        .then());
     }
     
+    /**
+     * Atomically takes seats from a flight. With write-behind on, cached flights are reserved in
+     * memory and the database, and the views that follow change events, catch up within one flush
+     * interval. Otherwise the check and the
+     * decrement happen in one conditional UPDATE. Either way concurrent reservations can never
+     * oversell and no lock is held between the read and the write.
+     */
+    public Mono<Flight> reserveSeats(Long id, int seats) {
+        if (seats <= 0) {
+            return Mono.error(new IllegalArgumentException("Number of seats must be positive"));
+        }
+        return availabilityCache.reserve(id, seats)
+                .transform(ReadRouting::recordWrite)
+                .switchIfEmpty(Mono.defer(() -> flightRepository.reserveSeats(id, seats)
+                        .flatMap(updated -> updated > 0
+                                ? flightRepository.findById(id)
+                                : flightRepository.findById(id)
+                                        .switchIfEmpty(Mono.error(new FlightNotFoundException("Flight not found with id: " + id)))
+                                        .flatMap(flight -> Mono.<Flight>error(new SeatsUnavailableException(
+                                                "Only " + flight.getAvailableSeats() + " seats left on flight " + id))))
+                        .flatMap(flight -> publish(FlightChangedEvent.Type.UPDATED, flight))));
+    }
+
+    public Mono<Flight> releaseSeats(Long id, int seats) {
+        if (seats <= 0) {
+            return Mono.error(new IllegalArgumentException("Number of seats must be positive"));
+        }
+        return availabilityCache.release(id, seats)
+                .transform(ReadRouting::recordWrite)
+                .switchIfEmpty(Mono.defer(() -> flightRepository.releaseSeats(id, seats)
+                        .flatMap(updated -> updated > 0
+                                ? flightRepository.findById(id)
+                                : Mono.error(new FlightNotFoundException("Flight not found with id: " + id)))
+                        .flatMap(flight -> publish(FlightChangedEvent.Type.UPDATED, flight))));
+    }
+
+    /**
+     * Current fare and seats of a flight, answered from memory for cached flights.
+     */
+    public Mono<FlightAvailability> getAvailability(Long id) {
+        return availabilityCache.availability(id);
+    }
+
     public Flux<Flight> searchFlightsByNumberAndDate(String flightNumber, LocalDateTime date) {
         if (date == null) {
-            return flightRepository.findByFlightNumber(flightNumber);
+            return queryCoalescer.execute(QueryCoalescer.STATUS, new StatusQuery(flightNumber, null),
+                    () -> flightRepository.findByFlightNumber(flightNumber)
+                            .switchIfEmpty(flightArchive.findByFlightNumber(flightNumber)))
+                    .contextWrite(ReadRouting::readOnly);
         }
         // Find flights for the same day
         LocalDateTime startOfDay = date.toLocalDate().atStartOfDay();
         LocalDateTime endOfDay = startOfDay.plusDays(1);
-        return flightRepository.findByFlightNumberAndDepartureTimeBetween(
-            flightNumber, startOfDay, endOfDay);
+        return queryCoalescer.execute(QueryCoalescer.STATUS, new StatusQuery(flightNumber, startOfDay.toLocalDate()),
+                () -> flightRepository.findByFlightNumberAndDepartureTimeBetween(flightNumber, startOfDay, endOfDay)
+                        .switchIfEmpty(flightArchive.findByFlightNumberAndDepartureTimeBetween(
+                                flightNumber, startOfDay, endOfDay)))
+                .contextWrite(ReadRouting::readOnly);
+    }
+
+    /**
+     * Looks up many (flight number, day) pairs at once. Pairs are deduplicated, ordered by day
+     * and looked up {@code chunk-size} at a time, one query per chunk covering its flight
+     * numbers and days, with a chunk spanning at most {@code max-day-span} days; rows outside
+     * the requested pairs are dropped. Each chunk's results are
+     * emitted as soon as its query completes, one lookup per pair, with no flights for pairs
+     * that matched nothing.
+     */
+    public Flux<StatusLookup> searchFlightsByNumbersAndDates(Collection<FlightStatusRequest> requests) {
+        if (requests.size() > statusBatchProperties.getMaxSize()) {
+            return Flux.error(new InvalidStatusBatchException("At most " + statusBatchProperties.getMaxSize()
+                    + " flights can be looked up at once"));
+        }
+        if (requests.stream().anyMatch(request -> request.getFlightNumber() == null
+                || request.getFlightNumber().isBlank() || request.getDate() == null)) {
+            return Flux.error(new InvalidStatusBatchException("Every entry needs a flight number and a date"));
+        }
+        List<StatusQuery> queries = requests.stream()
+                .map(request -> new StatusQuery(request.getFlightNumber(), request.getDate().toLocalDate()))
+                .distinct()
+                .sorted(Comparator.comparing(StatusQuery::day).thenComparing(StatusQuery::flightNumber))
+                .toList();
+        return Flux.fromIterable(chunk(queries, statusBatchProperties.getChunkSize(),
+                        statusBatchProperties.getMaxDaySpan()))
+                .flatMap(this::lookUpStatuses, statusBatchProperties.getConcurrency())
+                .contextWrite(ReadRouting::readOnly);
+    }
+
+    /**
+     * Splits queries sorted by day into chunks of at most {@code chunkSize} that each cover at
+     * most {@code maxDaySpan} consecutive days, since a chunk is looked up by its flight numbers
+     * across its whole day range.
+     */
+    static List<List<StatusQuery>> chunk(List<StatusQuery> queries, int chunkSize, int maxDaySpan) {
+        List<List<StatusQuery>> chunks = new ArrayList<>();
+        List<StatusQuery> current = new ArrayList<>();
+        for (StatusQuery query : queries) {
+            if (current.size() == chunkSize
+                    || !current.isEmpty() && !query.day().isBefore(current.get(0).day().plusDays(maxDaySpan))) {
+                chunks.add(current);
+                current = new ArrayList<>();
+            }
+            current.add(query);
+        }
+        if (!current.isEmpty()) {
+            chunks.add(current);
+        }
+        return chunks;
+    }
+
+    private Flux<StatusLookup> lookUpStatuses(List<StatusQuery> chunk) {
+        List<String> flightNumbers = List.copyOf(chunk.stream()
+                .map(StatusQuery::flightNumber)
+                .collect(Collectors.toCollection(TreeSet::new)));
+        LocalDateTime start = chunk.get(0).day().atStartOfDay();
+        LocalDateTime end = chunk.get(chunk.size() - 1).day().plusDays(1).atStartOfDay();
+        return flightRepository.findByFlightNumberInAndDepartureTimeBetween(flightNumbers, start, end)
+                .collectMultimap(FlightService::statusQueryOf)
+                .flatMap(found -> {
+                    // Pairs the flights table has nothing for may have been archived
+                    List<String> missing = chunk.stream()
+                            .filter(query -> !found.containsKey(query))
+                            .map(StatusQuery::flightNumber)
+                            .distinct()
+                            .toList();
+                    if (missing.isEmpty()) {
+                        return Mono.just(found);
+                    }
+                    return flightArchive.findByFlightNumberInAndDepartureTimeBetween(missing, start, end)
+                            .filter(flight -> !found.containsKey(statusQueryOf(flight)))
+                            .collectMultimap(FlightService::statusQueryOf, flight -> flight, () -> new HashMap<>(found));
+                })
+                .flatMapIterable(found -> chunk.stream()
+                        .map(query -> new StatusLookup(query.flightNumber(), query.day(),
+                                List.copyOf(found.getOrDefault(query, List.of()))))
+                        .toList());
+    }
+
+    private static StatusQuery statusQueryOf(Flight flight) {
+        return new StatusQuery(flight.getFlightNumber(), flight.getDepartureTime().toLocalDate());
+    }
+
+    /**
+     * The flights found for one (flight number, day) pair of a batch lookup, in departure order.
+     */
+    public record StatusLookup(String flightNumber, LocalDate day, List<Flight> flights) {
+    }
+
+    // The route index once loaded, the schedule snapshot while it is still loading after a restart
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private Flight[] findInMemory(String origin, String destination, LocalDate day) {
+        Flight[] indexed = routeIndex.find(origin, destination, day);
+        return indexed != null ? indexed : scheduleSnapshots.find(origin, destination, day);
+    }
+
+    /**
+     * Current time at the microsecond precision the database stores, so in-memory copies of a
+     * flight compare equal to the row read back.
+     */
+    public static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    private Mono<Flight> publish(FlightChangedEvent.Type type, Flight flight) {
+        return publish(new FlightChangedEvent(type, flight));
+    }
+
+    // The route index applies changes on its own thread; answering once it has applied this
+    // one means the writer's next search sees the change, and so does its next replica read
+    private Mono<Flight> publish(FlightChangedEvent event) {
+        eventPublisher.publishEvent(event);
+        return routeIndex.settled().thenReturn(event.getFlight()).transform(ReadRouting::recordWrite);
+    }
+
+    private static <T extends Comparable<? super T>> Comparator<Flight> orderBy(Function<Flight, T> key) {
+        return Comparator.comparing(key, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(Flight::getId, Comparator.nullsLast(Comparator.naturalOrder()));
     }
 }
@@ -0,0 +1,163 @@
+package com.rjtmahinay.flight.service;
+
+import com.rjtmahinay.flight.dto.FlightSearchResponse;
+import com.rjtmahinay.flight.dto.FlightStatusResponse;
+import com.rjtmahinay.flight.model.Flight;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps {@link Flight} rows to the {@link FlightStatusResponse.FlightStatus} view, and connection
+ * search itineraries to the {@link FlightSearchResponse.FlightDetails} view.
+ * <p>
+ * Every string this produces for a time of day or a typical duration is computed once up
+ * front, and dates are cached, so mapping a flight allocates little beyond the result object.
+ */
+@Component
+public class FlightStatusProjection {
+
+    private static final String UNKNOWN_AIRLINE = "Unknown Airline";
+    private static final String NO_LAYOVERS = "None";
+    private static final String DELAYED = "Delayed";
+    private static final String DEFAULT_DELAY = "30 min";
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int CACHED_DURATION_MINUTES = 2 * MINUTES_PER_DAY;
+    private static final int MAX_CACHED_DATES = 4096;
+
+    private static final String[] TIMES_OF_DAY = new String[MINUTES_PER_DAY];
+    private static final String[] DURATIONS = new String[CACHED_DURATION_MINUTES];
+
+    // Stored status values, in any case, mapped to the values documented on FlightStatus.status
+    private static final Map<String, String> STATUS_LABELS = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+    static {
+        DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("hh:mm a", Locale.US);
+        LocalDateTime midnight = LocalDate.of(2000, 1, 1).atStartOfDay();
+        for (int minute = 0; minute < MINUTES_PER_DAY; minute++) {
+            TIMES_OF_DAY[minute] = midnight.plusMinutes(minute).format(timeFormatter);
+        }
+        for (int minutes = 0; minutes < CACHED_DURATION_MINUTES; minutes++) {
+            DURATIONS[minutes] = formatDuration(minutes);
+        }
+
+        STATUS_LABELS.put("SCHEDULED", "On Time");
+        STATUS_LABELS.put("ON TIME", "On Time");
+        STATUS_LABELS.put("ON_TIME", "On Time");
+        STATUS_LABELS.put("DELAYED", DELAYED);
+        STATUS_LABELS.put("CANCELLED", "Cancelled");
+        STATUS_LABELS.put("CANCELED", "Cancelled");
+        STATUS_LABELS.put("BOARDING", "Boarding");
+        STATUS_LABELS.put("DEPARTED", "Departed");
+        STATUS_LABELS.put("ARRIVED", "Arrived");
+    }
+
+    private final Map<LocalDate, String> dates = new ConcurrentHashMap<>();
+
+    public FlightStatusResponse.FlightStatus toStatus(Flight flight) {
+        FlightStatusResponse.FlightStatus status = new FlightStatusResponse.FlightStatus();
+        status.setAirlineName(flight.getAirlineName() != null ? flight.getAirlineName() : UNKNOWN_AIRLINE);
+        status.setFlightNumber(flight.getFlightNumber());
+        status.setDepartureTime(timeOfDay(flight.getDepartureTime()));
+        status.setDepartureDate(date(flight.getDepartureTime().toLocalDate()));
+        status.setArrivalTime(timeOfDay(flight.getArrivalTime()));
+        status.setArrivalDate(date(flight.getArrivalTime().toLocalDate()));
+        status.setPrice(flight.getPrice() != null ? flight.getPrice() : 0);
+        status.setDuration(duration(flight.getDepartureTime(), flight.getArrivalTime()));
+        status.setLayovers(NO_LAYOVERS);
+
+        String label = statusLabel(flight.getStatus());
+        status.setStatus(label);
+        status.setDelay(DELAYED.equals(label) ? DEFAULT_DELAY : null);
+        return status;
+    }
+
+    public FlightSearchResponse.FlightDetails toDetails(ConnectionSearchService.Itinerary itinerary) {
+        List<Flight> legs = itinerary.legs();
+        Flight first = legs.get(0);
+        Flight last = legs.get(legs.size() - 1);
+
+        FlightSearchResponse.FlightDetails details = new FlightSearchResponse.FlightDetails();
+        details.setDepartureTime(timeOfDay(first.getDepartureTime()));
+        details.setArrivalTime(timeOfDay(last.getArrivalTime()));
+        details.setPrice(itinerary.price());
+        details.setDuration(duration(itinerary.travelSeconds() / 60));
+        if (legs.size() == 1) {
+            details.setAirlineName(first.getAirlineName() != null ? first.getAirlineName() : UNKNOWN_AIRLINE);
+            details.setFlightNumber(first.getFlightNumber());
+            details.setLayovers(NO_LAYOVERS);
+            return details;
+        }
+
+        StringJoiner airlines = new StringJoiner(" / ");
+        StringJoiner flightNumbers = new StringJoiner(" / ");
+        StringJoiner layovers = new StringJoiner(", ");
+        Flight previous = null;
+        for (Flight leg : legs) {
+            String airline = leg.getAirlineName() != null ? leg.getAirlineName() : UNKNOWN_AIRLINE;
+            if (previous == null || !airline.equals(previous.getAirlineName())) {
+                airlines.add(airline);
+            }
+            flightNumbers.add(leg.getFlightNumber());
+            if (previous != null) {
+                layovers.add(leg.getOrigin() + " (" + duration(previous.getArrivalTime(), leg.getDepartureTime()) + ")");
+            }
+            previous = leg;
+        }
+        details.setAirlineName(airlines.toString());
+        details.setFlightNumber(flightNumbers.toString());
+        details.setLayovers(layovers.toString());
+        return details;
+    }
+
+    /**
+     * Returns the display label for a stored status, matching case-insensitively.
+     * Unrecognised values are passed through unchanged.
+     */
+    public static String statusLabel(String status) {
+        if (status == null) {
+            return null;
+        }
+        return STATUS_LABELS.getOrDefault(status, status);
+    }
+
+    static String timeOfDay(LocalDateTime time) {
+        return TIMES_OF_DAY[time.getHour() * 60 + time.getMinute()];
+    }
+
+    static String duration(LocalDateTime from, LocalDateTime to) {
+        return duration(ChronoUnit.MINUTES.between(from, to));
+    }
+
+    static String duration(long minutes) {
+        return minutes >= 0 && minutes < CACHED_DURATION_MINUTES ? DURATIONS[(int) minutes] : formatDuration(minutes);
+    }
+
+    private String date(LocalDate date) {
+        String formatted = dates.get(date);
+        if (formatted == null) {
+            formatted = date.toString();
+            if (dates.size() < MAX_CACHED_DATES) {
+                dates.put(date, formatted);
+            }
+        }
+        return formatted;
+    }
+
+    private static String formatDuration(long minutes) {
+        // The sign goes in front on its own, as hours are zero for anything under an hour
+        long hours = Math.abs(minutes / 60);
+        long remainder = Math.abs(minutes % 60);
+        return (minutes < 0 ? "-" : "") + hours + "h " + (remainder < 10 ? "0" : "") + remainder + "m";
+    }
+}
@@ -0,0 +1,178 @@
+package com.rjtmahinay.flight.service;
+
+import com.rjtmahinay.flight.config.CoalescingProperties;
+import com.rjtmahinay.flight.datasource.ReadRouting;
+import com.rjtmahinay.flight.event.FlightChangedEvent;
+import com.rjtmahinay.flight.event.FlightsArchivedEvent;
+import com.rjtmahinay.flight.event.FlightsCreatedEvent;
+import com.rjtmahinay.flight.model.Flight;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Collapses identical concurrent queries into one.
+ * <p>
+ * The first caller for a key runs the query; callers arriving while it is in flight, or within
+ * {@code flight.coalescing.ttl} after it completed, receive the same result. Failed queries are
+ * forgotten straight away so the next caller retries, and a flight change discards the route
+ * and status results the flight could appear in, before and after the change. Expired results
+ * are swept out every {@code ttl}, so they do not stay on the heap until the map fills up.
+ * Clients pinned to the primary after a write never join a query that may be running on a
+ * replica. The {@code flight.coalescing.requests} counter is tagged with
+ * {@code role=leader|follower|bypass}; followers divided by all requests is the collapse ratio.
+ */
+@Component
+public class QueryCoalescer {
+
+    static final String ROUTE = "route";
+    static final String STATUS = "status";
+
+    private final CoalescingProperties properties;
+    private final MeterRegistry registry;
+    private final Map<Key, Entry<?>> entries = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private Disposable sweeper;
+
+    public QueryCoalescer(CoalescingProperties properties, MeterRegistry registry) {
+        this.properties = properties;
+        this.registry = registry;
+        Gauge.builder("flight.coalescing.size", entries, Map::size)
+                .description("Query results held for coalescing, in flight or completed").register(registry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (properties.isEnabled()) {
+            Duration ttl = properties.getTtl();
+            sweeper = Flux.interval(ttl, ttl).subscribe(tick -> evictExpired());
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (sweeper != null) {
+            sweeper.dispose();
+        }
+    }
+
+    /**
+     * Runs {@code query}, or joins the identical query already issued under {@code name} and
+     * {@code key}.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Flux<T> execute(String name, Object key, Supplier<Flux<T>> query) {
+        if (!properties.isEnabled()) {
+            return query.get();
+        }
+        return Flux.deferContextual(context -> {
+            Key entryKey = new Key(name, key, ReadRouting.isPinnedToPrimary(context));
+            Entry<?> existing = entries.get(entryKey);
+            if (existing != null && !existing.isExpired(properties.getTtl().toNanos())) {
+                count(name, "follower");
+                return ((Entry<T>) existing).result.flatMapIterable(list -> list);
+            }
+            if (existing == null && entries.size() >= properties.getMaxEntries() && !evictExpired()) {
+                count(name, "bypass");
+                return query.get();
+            }
+
+            Entry<T> created = new Entry<>();
+            created.result = query.get()
+                    .collectList()
+                    .doOnSuccess(list -> created.completedAt = System.nanoTime())
+                    .doOnError(e -> entries.remove(entryKey, created))
+                    .cache();
+            Entry<?> winner = existing == null
+                    ? entries.putIfAbsent(entryKey, created)
+                    : entries.replace(entryKey, existing, created) ? null : entries.get(entryKey);
+            if (winner != null && winner != created) {
+                count(name, "follower");
+                return ((Entry<T>) winner).result.flatMapIterable(list -> list);
+            }
+            count(name, "leader");
+            return created.result.flatMapIterable(list -> list);
+        });
+    }
+
+    private boolean evictExpired() {
+        long ttl = properties.getTtl().toNanos();
+        entries.values().removeIf(entry -> entry.isExpired(ttl));
+        return entries.size() < properties.getMaxEntries();
+    }
+
+    /**
+     * Drops the cached results a changed flight could be part of, so callers read their own
+     * writes while queries about other routes and flights stay coalesced.
+     */
+    @EventListener
+    public void onFlightChanged(FlightChangedEvent event) {
+        evict(event.getFlight());
+        if (event.getPrevious() != null) {
+            evict(event.getPrevious());
+        }
+    }
+
+    @EventListener
+    public void onFlightsCreated(FlightsCreatedEvent event) {
+        event.getFlights().forEach(this::evict);
+    }
+
+    @EventListener
+    public void onFlightsArchived(FlightsArchivedEvent event) {
+        event.getFlights().forEach(this::evict);
+    }
+
+    private void evict(Flight flight) {
+        LocalDate day = flight.getDepartureTime() == null ? null : flight.getDepartureTime().toLocalDate();
+        for (boolean primaryOnly : new boolean[]{false, true}) {
+            entries.remove(new Key(ROUTE, new RouteQuery(flight.getOrigin(), flight.getDestination(), day), primaryOnly));
+            entries.remove(new Key(ROUTE, new RouteQuery(flight.getOrigin(), flight.getDestination(), null), primaryOnly));
+            entries.remove(new Key(STATUS, new StatusQuery(flight.getFlightNumber(), day), primaryOnly));
+            entries.remove(new Key(STATUS, new StatusQuery(flight.getFlightNumber(), null), primaryOnly));
+        }
+    }
+
+    private void count(String name, String role) {
+        counters.computeIfAbsent(name + '.' + role, k -> Counter.builder("flight.coalescing.requests")
+                        .description("Queries by whether they ran, joined an identical one, or bypassed coalescing")
+                        .tag("query", name)
+                        .tag("role", role)
+                        .register(registry))
+                .increment();
+    }
+
+    private record Key(String name, Object key, boolean primaryOnly) {
+    }
+
+    // Keys of the flight queries: searches at different times of the same day share one query
+    record RouteQuery(String origin, String destination, LocalDate day) {
+    }
+
+    record StatusQuery(String flightNumber, LocalDate day) {
+    }
+
+    private static final class Entry<T> {
+        private Mono<List<T>> result;
+        private volatile long completedAt;
+
+        boolean isExpired(long ttlNanos) {
+            long completed = completedAt;
+            return completed != 0 && System.nanoTime() - completed > ttlNanos;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.rjtmahinay.flight.service;
+
+import com.rjtmahinay.flight.datasource.ReadRouting;
+import com.rjtmahinay.flight.dto.RouteAggregate;
+import com.rjtmahinay.flight.index.RouteAggregates;
+import com.rjtmahinay.flight.index.RouteIndex;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Fares, seats and statuses per route and departure day. Answered from the route index while
+ * it is serving, otherwise by one grouped query that returns a row per route, day and status.
+ */
+@Service
+@RequiredArgsConstructor
+public class RouteAggregateService {
+
+    private static final String DAY = "CAST(departure_time AS DATE)";
+
+    private final RouteIndex routeIndex;
+    private final RouteAggregates routeAggregates;
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Aggregates of the route-days matching the filters, in route and day order. Every filter
+     * is optional; the day range includes both ends.
+     */
+    public Flux<RouteAggregate> aggregates(String origin, String destination, LocalDate from, LocalDate to) {
+        if (from != null && to != null && to.isBefore(from)) {
+            return Flux.error(new IllegalArgumentException("The end of the date range must not be before its start"));
+        }
+        if (routeIndex.isServing()) {
+            return Flux.defer(() -> Flux.fromIterable(routeAggregates.scan(origin, destination, from, to)));
+        }
+        return fromDatabase(origin, destination, from, to);
+    }
+
+    Flux<RouteAggregate> fromDatabase(String origin, String destination, LocalDate from, LocalDate to) {
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        List<String> conditions = new ArrayList<>();
+        if (origin != null) {
+            conditions.add("origin = :origin");
+            parameters.put("origin", origin);
+        }
+        if (destination != null) {
+            conditions.add("destination = :destination");
+            parameters.put("destination", destination);
+        }
+        // Bounds on departure_time itself rather than the day, so its index can be used
+        if (from != null) {
+            conditions.add("departure_time >= :from");
+            parameters.put("from", from.atStartOfDay());
+        }
+        if (to != null) {
+            conditions.add("departure_time < :to");
+            parameters.put("to", to.plusDays(1).atStartOfDay());
+        }
+        String sql = "SELECT origin, destination, " + DAY + " AS departure_day, status, COUNT(*) AS flights,"
+                + " MIN(price) AS min_price, SUM(price) AS total_price, SUM(available_seats) AS seats"
+                + " FROM flights"
+                + (conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions))
+                + " GROUP BY origin, destination, " + DAY + ", status"
+                + " ORDER BY origin, destination, departure_day";
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql);
+        for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+            spec = spec.bind(parameter.getKey(), parameter.getValue());
+        }
+        return spec.map(StatusRow::of)
+                .all()
+                .bufferUntilChanged(StatusRow::routeDay)
+                .map(RouteAggregateService::combine)
+                .contextWrite(ReadRouting::readOnly);
+    }
+
+    private static RouteAggregate combine(List<StatusRow> rows) {
+        StatusRow first = rows.get(0);
+        long flights = 0;
+        double minPrice = Double.POSITIVE_INFINITY;
+        double totalPrice = 0;
+        long seats = 0;
+        Map<String, Long> statusCounts = new TreeMap<>();
+        for (StatusRow row : rows) {
+            flights += row.flights;
+            minPrice = Math.min(minPrice, row.minPrice);
+            totalPrice += row.totalPrice;
+            seats += row.seats;
+            statusCounts.merge(row.status, row.flights, Long::sum);
+        }
+        return RouteAggregates.of(first.origin, first.destination, first.day, flights,
+                minPrice, totalPrice / flights, seats, statusCounts);
+    }
+
+    private record StatusRow(String origin, String destination, LocalDate day, String status,
+                             long flights, double minPrice, double totalPrice, long seats) {
+
+        static StatusRow of(Readable row) {
+            return new StatusRow(row.get("origin", String.class), row.get("destination", String.class),
+                    row.get("departure_day", LocalDate.class), row.get("status", String.class),
+                    number(row, "flights").longValue(), number(row, "min_price").doubleValue(),
+                    number(row, "total_price").doubleValue(), number(row, "seats").longValue());
+        }
+
+        List<Object> routeDay() {
+            return List.of(origin, destination, day);
+        }
+
+        // COUNT and SUM come back as different numeric types in H2 and PostgreSQL
+        private static Number number(Readable row, String column) {
+            return (Number) row.get(column);
+        }
+    }
+}
@@ -0,0 +1,372 @@
+package com.rjtmahinay.flight.snapshot;
+
+import com.rjtmahinay.flight.index.Departures;
+import com.rjtmahinay.flight.model.Flight;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Read-only, columnar copy of the {@code flights} table in a memory-mapped file.
+ * <p>
+ * Airports, airlines, flight numbers and statuses are stored once each in sorted dictionaries
+ * and referenced by int ids; times are epoch seconds (schedule times are treated as UTC), seats
+ * and prices are primitive columns. Rows are sorted by (origin, destination, departure), so one
+ * route on one day is a contiguous range found by binary search. Opening a snapshot only reads
+ * the header and the dictionaries; the columns stay in the page cache rather than on the heap,
+ * and {@link Flight} objects are only created for the rows a search returns.
+ * <p>
+ * Layout: a header (magic, version, write time, row count), the four dictionaries as
+ * length-prefixed UTF-8 strings, then one column after the other, each aligned to 8 bytes.
+ */
+public final class ScheduleSnapshot {
+
+    static final int MAGIC = 0x464C5343;
+    static final int VERSION = 1;
+
+    private static final int NO_VALUE = -1;
+    private static final int NO_SEATS = Integer.MIN_VALUE;
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    private static final Comparator<Flight> ROW_ORDER = Comparator
+            .comparing(Flight::getOrigin)
+            .thenComparing(Flight::getDestination)
+            .thenComparing(Flight::getDepartureTime)
+            .thenComparing(Flight::getId, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final Path path;
+    private final Instant writtenAt;
+    private final int rows;
+    private final String[] airports;
+    private final String[] airlines;
+    private final String[] flightNumbers;
+    private final String[] statuses;
+    private final LongBuffer ids;
+    private final LongBuffer departures;
+    private final LongBuffer arrivals;
+    private final LongBuffer updates;
+    private final DoubleBuffer prices;
+    private final IntBuffer origins;
+    private final IntBuffer destinations;
+    private final IntBuffer airlineIds;
+    private final IntBuffer flightNumberIds;
+    private final IntBuffer statusIds;
+    private final IntBuffer seats;
+
+    private ScheduleSnapshot(Path path, ByteBuffer buffer) {
+        if (buffer.getInt() != MAGIC) {
+            throw new IllegalStateException(path + " is not a schedule snapshot");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IllegalStateException(path + " has snapshot version " + version + ", expected " + VERSION);
+        }
+        this.path = path;
+        this.writtenAt = Instant.ofEpochMilli(buffer.getLong());
+        this.rows = buffer.getInt();
+        // Header padding
+        buffer.getInt();
+        this.airports = readDictionary(buffer);
+        this.airlines = readDictionary(buffer);
+        this.flightNumbers = readDictionary(buffer);
+        this.statuses = readDictionary(buffer);
+        align(buffer);
+        this.ids = longColumn(buffer);
+        this.departures = longColumn(buffer);
+        this.arrivals = longColumn(buffer);
+        this.updates = longColumn(buffer);
+        this.prices = buffer.slice(buffer.position(), rows * Double.BYTES).asDoubleBuffer();
+        buffer.position(buffer.position() + rows * Double.BYTES);
+        this.origins = intColumn(buffer);
+        this.destinations = intColumn(buffer);
+        this.airlineIds = intColumn(buffer);
+        this.flightNumberIds = intColumn(buffer);
+        this.statusIds = intColumn(buffer);
+        this.seats = intColumn(buffer);
+    }
+
+    /**
+     * Maps an existing snapshot file. The mapping stays valid after the file is replaced.
+     */
+    public static ScheduleSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new ScheduleSnapshot(path, buffer);
+        }
+    }
+
+    /**
+     * Writes {@code flights} as a snapshot to {@code path}. The file is written next to the
+     * target and moved into place, so readers never see a partial snapshot.
+     */
+    public static void write(Path path, Collection<Flight> flights, Instant writtenAt) throws IOException {
+        Flight[] sorted = flights.toArray(new Flight[0]);
+        Arrays.sort(sorted, ROW_ORDER);
+        String[] airports = dictionary(sorted, Flight::getOrigin, Flight::getDestination);
+        String[] airlines = dictionary(sorted, Flight::getAirlineName);
+        String[] flightNumbers = dictionary(sorted, Flight::getFlightNumber);
+        String[] statuses = dictionary(sorted, Flight::getStatus);
+
+        long dictionaryBytes = dictionarySize(airports) + dictionarySize(airlines)
+                + dictionarySize(flightNumbers) + dictionarySize(statuses);
+        long size = aligned(24 + dictionaryBytes) + (long) sorted.length * (5 * Long.BYTES + 6 * Integer.BYTES);
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many flights for one snapshot: " + sorted.length);
+        }
+
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                buffer.putInt(MAGIC).putInt(VERSION).putLong(writtenAt.toEpochMilli()).putInt(sorted.length).putInt(0);
+                writeDictionary(buffer, airports);
+                writeDictionary(buffer, airlines);
+                writeDictionary(buffer, flightNumbers);
+                writeDictionary(buffer, statuses);
+                align(buffer);
+                for (Flight flight : sorted) {
+                    buffer.putLong(flight.getId());
+                }
+                for (Flight flight : sorted) {
+                    buffer.putLong(Departures.epochSecond(flight.getDepartureTime()));
+                }
+                for (Flight flight : sorted) {
+                    buffer.putLong(flight.getArrivalTime() == null ? NO_TIME : Departures.epochSecond(flight.getArrivalTime()));
+                }
+                for (Flight flight : sorted) {
+                    buffer.putLong(flight.getUpdatedAt() == null ? NO_TIME : epochMicros(flight.getUpdatedAt()));
+                }
+                for (Flight flight : sorted) {
+                    buffer.putDouble(flight.getPrice() == null ? Double.NaN : flight.getPrice());
+                }
+                for (Flight flight : sorted) {
+                    buffer.putInt(Arrays.binarySearch(airports, flight.getOrigin()));
+                }
+                for (Flight flight : sorted) {
+                    buffer.putInt(Arrays.binarySearch(airports, flight.getDestination()));
+                }
+                for (Flight flight : sorted) {
+                    buffer.putInt(idOf(airlines, flight.getAirlineName()));
+                }
+                for (Flight flight : sorted) {
+                    buffer.putInt(idOf(flightNumbers, flight.getFlightNumber()));
+                }
+                for (Flight flight : sorted) {
+                    buffer.putInt(idOf(statuses, flight.getStatus()));
+                }
+                for (Flight flight : sorted) {
+                    buffer.putInt(flight.getAvailableSeats() == null ? NO_SEATS : flight.getAvailableSeats());
+                }
+                buffer.force();
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public Instant writtenAt() {
+        return writtenAt;
+    }
+
+    /**
+     * Number of flights in the snapshot.
+     */
+    public int size() {
+        return rows;
+    }
+
+    /**
+     * The flights of one route on one day, in departure order.
+     */
+    public Flight[] find(String origin, String destination, LocalDate day) {
+        int originId = Arrays.binarySearch(airports, origin);
+        int destinationId = Arrays.binarySearch(airports, destination);
+        if (originId < 0 || destinationId < 0) {
+            return new Flight[0];
+        }
+        int from = firstAtOrAfter(originId, destinationId, Departures.epochSecond(day.atStartOfDay()));
+        int to = firstAtOrAfter(originId, destinationId, Departures.epochSecond(day.plusDays(1).atStartOfDay()));
+        Flight[] flights = new Flight[to - from];
+        for (int row = from; row < to; row++) {
+            flights[row - from] = flight(row);
+        }
+        return flights;
+    }
+
+    /**
+     * Materializes one row.
+     */
+    public Flight flight(int row) {
+        long updated = updates.get(row);
+        long arrival = arrivals.get(row);
+        return Flight.builder()
+                .id(id(row))
+                .airlineName(lookup(airlines, airlineIds.get(row)))
+                .flightNumber(lookup(flightNumbers, flightNumberIds.get(row)))
+                .origin(origin(row))
+                .destination(destination(row))
+                .departureTime(LocalDateTime.ofEpochSecond(departureSecond(row), 0, ZoneOffset.UTC))
+                .arrivalTime(arrival == NO_TIME ? null : LocalDateTime.ofEpochSecond(arrival, 0, ZoneOffset.UTC))
+                .availableSeats(hasSeats(row) ? seats(row) : null)
+                .price(Double.isNaN(price(row)) ? null : price(row))
+                .status(status(row))
+                .updatedAt(updated == NO_TIME ? null
+                        : LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC).plus(updated, ChronoUnit.MICROS))
+                .build();
+    }
+
+    // Column accessors for scans that should not materialize flights
+
+    public long id(int row) {
+        return ids.get(row);
+    }
+
+    public String origin(int row) {
+        return airports[origins.get(row)];
+    }
+
+    public String destination(int row) {
+        return airports[destinations.get(row)];
+    }
+
+    public String status(int row) {
+        return lookup(statuses, statusIds.get(row));
+    }
+
+    public long departureSecond(int row) {
+        return departures.get(row);
+    }
+
+    public boolean hasSeats(int row) {
+        return seats.get(row) != NO_SEATS;
+    }
+
+    public int seats(int row) {
+        return seats.get(row);
+    }
+
+    /**
+     * The fare of a row, or {@link Double#NaN} if it has none.
+     */
+    public double price(int row) {
+        return prices.get(row);
+    }
+
+    // Position of the first row of the route departing at or after epochSecond
+    private int firstAtOrAfter(int originId, int destinationId, long epochSecond) {
+        int low = 0;
+        int high = rows;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int compared = Integer.compare(origins.get(mid), originId);
+            if (compared == 0) {
+                compared = Integer.compare(destinations.get(mid), destinationId);
+            }
+            if (compared == 0) {
+                compared = Long.compare(departures.get(mid), epochSecond);
+            }
+            if (compared < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private LongBuffer longColumn(ByteBuffer buffer) {
+        LongBuffer column = buffer.slice(buffer.position(), rows * Long.BYTES).asLongBuffer();
+        buffer.position(buffer.position() + rows * Long.BYTES);
+        return column;
+    }
+
+    private IntBuffer intColumn(ByteBuffer buffer) {
+        IntBuffer column = buffer.slice(buffer.position(), rows * Integer.BYTES).asIntBuffer();
+        buffer.position(buffer.position() + rows * Integer.BYTES);
+        return column;
+    }
+
+    private static String lookup(String[] dictionary, int id) {
+        return id == NO_VALUE ? null : dictionary[id];
+    }
+
+    private static int idOf(String[] dictionary, String value) {
+        return value == null ? NO_VALUE : Arrays.binarySearch(dictionary, value);
+    }
+
+    @SafeVarargs
+    private static String[] dictionary(Flight[] flights, Function<Flight, String>... columns) {
+        return Arrays.stream(flights)
+                .flatMap(flight -> Arrays.stream(columns).map(column -> column.apply(flight)))
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted()
+                .toArray(String[]::new);
+    }
+
+    private static long dictionarySize(String[] dictionary) {
+        long size = Integer.BYTES;
+        for (String value : dictionary) {
+            size += Short.BYTES + value.getBytes(StandardCharsets.UTF_8).length;
+        }
+        return size;
+    }
+
+    private static void writeDictionary(ByteBuffer buffer, String[] dictionary) {
+        buffer.putInt(dictionary.length);
+        for (String value : dictionary) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            buffer.putShort((short) bytes.length).put(bytes);
+        }
+    }
+
+    private static String[] readDictionary(ByteBuffer buffer) {
+        String[] dictionary = new String[buffer.getInt()];
+        for (int i = 0; i < dictionary.length; i++) {
+            byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+            buffer.get(bytes);
+            dictionary[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return dictionary;
+    }
+
+    private static void align(ByteBuffer buffer) {
+        buffer.position((int) aligned(buffer.position()));
+    }
+
+    private static long aligned(long position) {
+        return (position + Long.BYTES - 1) & -Long.BYTES;
+    }
+
+    private static long epochMicros(LocalDateTime time) {
+        Instant instant = time.toInstant(ZoneOffset.UTC);
+        return instant.getEpochSecond() * 1_000_000 + instant.getNano() / 1_000;
+    }
+}
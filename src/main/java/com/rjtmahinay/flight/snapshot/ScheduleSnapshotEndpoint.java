@@ -0,0 +1,32 @@
+package com.rjtmahinay.flight.snapshot;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint at {@code /actuator/snapshot} showing the current schedule snapshot and
+ * writing a new one on demand.
+ */
+@Component
+@Endpoint(id = "snapshot")
+@RequiredArgsConstructor
+public class ScheduleSnapshotEndpoint {
+
+    private final ScheduleSnapshotStore store;
+
+    @ReadOperation
+    public Map<String, Object> state() {
+        return store.state();
+    }
+
+    @WriteOperation
+    public Mono<Map<String, Object>> write() {
+        return store.write().map(written -> store.state());
+    }
+}
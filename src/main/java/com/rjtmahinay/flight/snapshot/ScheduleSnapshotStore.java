@@ -0,0 +1,189 @@
+package com.rjtmahinay.flight.snapshot;
+
+import com.rjtmahinay.flight.datasource.ReadRouting;
+import com.rjtmahinay.flight.event.FlightChangedEvent;
+import com.rjtmahinay.flight.event.FlightsCreatedEvent;
+import com.rjtmahinay.flight.index.RouteIndex;
+import com.rjtmahinay.flight.index.RouteIndexProperties;
+import com.rjtmahinay.flight.model.Flight;
+import com.rjtmahinay.flight.repository.FlightRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps a {@link ScheduleSnapshot} of the {@code flights} table on local disk.
+ * <p>
+ * A snapshot no older than {@code max-age} is mapped while the context starts, which takes
+ * milliseconds, and answers route searches until the route index has loaded from the
+ * database. The snapshot is as old as the last write, so it stops answering as soon as this
+ * instance changes a flight. Once the application is ready a new snapshot is written every
+ * {@code interval}, read from the replica.
+ */
+@Slf4j
+@Component
+public class ScheduleSnapshotStore {
+
+    private final FlightRepository flightRepository;
+    private final RouteIndex routeIndex;
+    private final RouteIndexProperties routeIndexProperties;
+    private final SnapshotProperties properties;
+    private final AtomicBoolean writing = new AtomicBoolean();
+    private final Counter hits;
+    private Disposable writer;
+
+    private volatile ScheduleSnapshot snapshot;
+    private volatile boolean serving;
+
+    public ScheduleSnapshotStore(FlightRepository flightRepository, RouteIndex routeIndex,
+                                 RouteIndexProperties routeIndexProperties, SnapshotProperties properties,
+                                 MeterRegistry registry) {
+        this.flightRepository = flightRepository;
+        this.routeIndex = routeIndex;
+        this.routeIndexProperties = routeIndexProperties;
+        this.properties = properties;
+        this.hits = Counter.builder("flight.snapshot.lookups")
+                .description("Route searches served from the schedule snapshot")
+                .register(registry);
+        Gauge.builder("flight.snapshot.size", this, store -> store.snapshot == null ? 0 : store.snapshot.size())
+                .description("Flights in the current schedule snapshot").register(registry);
+    }
+
+    @PostConstruct
+    void start() {
+        Path path = properties.getPath();
+        if (!properties.isEnabled() || !Files.exists(path)) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            ScheduleSnapshot existing = ScheduleSnapshot.open(path);
+            Duration age = Duration.between(existing.writtenAt(), Instant.now());
+            snapshot = existing;
+            serving = age.compareTo(properties.getMaxAge()) <= 0;
+            log.info("Mapped schedule snapshot of {} flights from {} in {} ms, written {} ago{}",
+                    existing.size(), path, (System.nanoTime() - start) / 1_000_000, age,
+                    serving ? "" : ", too old to serve");
+        } catch (IOException | RuntimeException e) {
+            log.warn("Schedule snapshot {} could not be read, searches will wait for the route index", path, e);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Duration interval = properties.getInterval();
+        // Without a usable snapshot the next restart would have nothing to map, so write one now
+        Duration first = serving ? interval : Duration.ZERO;
+        writer = Flux.interval(first, interval).subscribe(tick -> {
+            if (!writing.get()) {
+                write().subscribe(null, e -> log.warn("Schedule snapshot write failed", e));
+            }
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        if (writer != null) {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * Writes a new snapshot of the database and maps it in place of the current one.
+     */
+    public Mono<ScheduleSnapshot> write() {
+        return Mono.defer(() -> {
+            if (!writing.compareAndSet(false, true)) {
+                return Mono.error(new IllegalStateException("A snapshot write is already in progress"));
+            }
+            Instant writtenAt = Instant.now();
+            return flightRepository.findAll()
+                    .collectList()
+                    .contextWrite(ReadRouting::readOnly)
+                    .publishOn(Schedulers.boundedElastic())
+                    .map(flights -> {
+                        long start = System.nanoTime();
+                        try {
+                            ScheduleSnapshot.write(properties.getPath(), flights, writtenAt);
+                            snapshot = ScheduleSnapshot.open(properties.getPath());
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        log.info("Wrote schedule snapshot of {} flights to {} in {} ms",
+                                flights.size(), properties.getPath(), (System.nanoTime() - start) / 1_000_000);
+                        return snapshot;
+                    })
+                    .doFinally(signal -> writing.set(false));
+        });
+    }
+
+    /**
+     * Returns the flights of one route on one day from the snapshot, or {@code null} when the
+     * snapshot must not answer and the caller has to query the database.
+     */
+    public Flight[] find(String origin, String destination, LocalDate day) {
+        ScheduleSnapshot current = snapshot;
+        if (!serving || current == null || routeIndex.isLoaded() || !routeIndexProperties.isEnabled()) {
+            return null;
+        }
+        hits.increment();
+        return current.find(origin, destination, day);
+    }
+
+    /**
+     * The most recently written or mapped snapshot, or {@code null} if there is none.
+     */
+    public ScheduleSnapshot current() {
+        return snapshot;
+    }
+
+    @EventListener
+    public void onFlightChanged(FlightChangedEvent event) {
+        serving = false;
+    }
+
+    @EventListener
+    public void onFlightsCreated(FlightsCreatedEvent event) {
+        serving = false;
+    }
+
+    /**
+     * Path, age and size of the current snapshot, for the snapshot endpoint.
+     */
+    public Map<String, Object> state() {
+        ScheduleSnapshot current = snapshot;
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("enabled", properties.isEnabled());
+        state.put("path", properties.getPath().toAbsolutePath().toString());
+        state.put("serving", serving && current != null && !routeIndex.isLoaded());
+        if (current != null) {
+            state.put("writtenAt", current.writtenAt().toString());
+            state.put("flights", current.size());
+        }
+        return state;
+    }
+}
@@ -0,0 +1,35 @@
+package com.rjtmahinay.flight.snapshot;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "flight.snapshot")
+public class SnapshotProperties {
+
+    /**
+     * Write a columnar snapshot of the schedule periodically and serve route searches from it
+     * after a restart, until the route index has loaded from the database.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Local file holding the snapshot.
+     */
+    private Path path = Path.of("snapshot", "flights.snapshot");
+
+    /**
+     * Interval between snapshot writes.
+     */
+    private Duration interval = Duration.ofMinutes(5);
+
+    /**
+     * Snapshots older than this are not served at startup.
+     */
+    private Duration maxAge = Duration.ofHours(1);
+}
@@ -0,0 +1,22 @@
+-- Portable between H2 and PostgreSQL: the same script runs in development, tests and production
+CREATE TABLE flights (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    airline_name VARCHAR(100) NOT NULL,
+    flight_number VARCHAR(20) NOT NULL,
+    origin VARCHAR(3) NOT NULL,
+    destination VARCHAR(3) NOT NULL,
+    departure_time TIMESTAMP NOT NULL,
+    arrival_time TIMESTAMP NOT NULL,
+    available_seats INT NOT NULL,
+    price DECIMAL(10, 2) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    -- Stamped by the application on every write
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Route search: origin = ? AND destination = ? [AND departure_time in one day]
+CREATE INDEX idx_flight_route_departure ON flights(origin, destination, departure_time);
+-- Status lookup: flight_number = ? [AND departure_time in one day]
+CREATE INDEX idx_flight_number_departure ON flights(flight_number, departure_time);
+CREATE INDEX idx_flight_departure_time ON flights(departure_time);
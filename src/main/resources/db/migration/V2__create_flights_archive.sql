@@ -0,0 +1,22 @@
+-- Departed flights moved out of the hot table by the archival job; same columns plus the move time
+CREATE TABLE flights_archive (
+    id BIGINT PRIMARY KEY,
+    airline_name VARCHAR(100) NOT NULL,
+    flight_number VARCHAR(20) NOT NULL,
+    origin VARCHAR(3) NOT NULL,
+    destination VARCHAR(3) NOT NULL,
+    departure_time TIMESTAMP NOT NULL,
+    arrival_time TIMESTAMP NOT NULL,
+    available_seats INT NOT NULL,
+    price DECIMAL(10, 2) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    created_at TIMESTAMP,
+    updated_at TIMESTAMP,
+    archived_at TIMESTAMP NOT NULL
+);
+
+-- Status lookup fallback: flight_number = ? [AND departure_time in one day]
+CREATE INDEX idx_flight_archive_number_departure ON flights_archive(flight_number, departure_time);
+
+-- Archival job: arrival_time < ? ORDER BY arrival_time LIMIT ?
+CREATE INDEX idx_flight_arrival_time ON flights(arrival_time);
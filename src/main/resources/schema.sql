@@ -1,17 +0,0 @@
-CREATE TABLE IF NOT EXISTS flights (
-    id BIGINT AUTO_INCREMENT PRIMARY KEY,
-    airline_name VARCHAR(100) NOT NULL,
-    flight_number VARCHAR(20) NOT NULL,
-    origin VARCHAR(3) NOT NULL,
-    destination VARCHAR(3) NOT NULL,
-    departure_time TIMESTAMP NOT NULL,
-    arrival_time TIMESTAMP NOT NULL,
-    available_seats INT NOT NULL,
-    price DECIMAL(10, 2) NOT NULL,
-    status VARCHAR(20) NOT NULL,
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
-);
-
-CREATE INDEX IF NOT EXISTS idx_flight_origin_destination ON flights(origin, destination);
-CREATE INDEX IF NOT EXISTS idx_flight_departure_time ON flights(departure_time);
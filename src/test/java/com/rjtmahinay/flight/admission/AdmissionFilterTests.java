@@ -0,0 +1,109 @@
+package com.rjtmahinay.flight.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdmissionFilterTests {
+
+    // Requests through this chain stay in progress until the sink completes
+    private final Sinks.Empty<Void> inProgress = Sinks.empty();
+    private final WebFilterChain slowChain = exchange -> inProgress.asMono();
+
+    @Test
+    void shedsRequestsBeyondTheGroupLimitWith429() {
+        AdmissionProperties properties = new AdmissionProperties();
+        properties.setScan(new AdmissionProperties.Group(1, 1, 1, Duration.ofSeconds(1)));
+        AdmissionFilter filter = new AdmissionFilter(properties, new SimpleMeterRegistry());
+
+        filter.filter(get("/api/flights"), slowChain).subscribe();
+        MockServerWebExchange shed = get("/api/flights");
+        filter.filter(shed, slowChain).block();
+
+        assertThat(shed.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(shed.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+
+        inProgress.tryEmitEmpty();
+        MockServerWebExchange admitted = get("/api/flights");
+        filter.filter(admitted, exchange -> Mono.empty()).block();
+        assertThat(admitted.getResponse().getStatusCode()).isNotEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    @Test
+    void shedsScansBeforeStatusLookupsWhenBusy() {
+        AdmissionProperties properties = new AdmissionProperties();
+        properties.setStatus(new AdmissionProperties.Group(8, 1, 8, Duration.ofMillis(50)));
+        properties.setSearch(new AdmissionProperties.Group(1, 1, 1, Duration.ofMillis(200)));
+        properties.setWrite(new AdmissionProperties.Group(1, 1, 1, Duration.ofMillis(200)));
+        properties.setScan(new AdmissionProperties.Group(4, 1, 4, Duration.ofSeconds(1)));
+        properties.setShedLowPriorityAbove(0.3);
+        AdmissionFilter filter = new AdmissionFilter(properties, new SimpleMeterRegistry());
+
+        List<Disposable> requests = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            requests.add(filter.filter(get("/api/flights/" + i), slowChain).subscribe());
+        }
+        MockServerWebExchange scan = get("/api/flights");
+        filter.filter(scan, slowChain).subscribe();
+        MockServerWebExchange status = get("/api/flights/7");
+        requests.add(filter.filter(status, slowChain).subscribe());
+
+        assertThat(scan.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(status.getResponse().getStatusCode()).isNull();
+        assertThat(filter.state()).extractingByKey("status").hasFieldOrPropertyWithValue("inFlight", 7);
+        inProgress.tryEmitEmpty();
+        requests.forEach(Disposable::dispose);
+    }
+
+    @Test
+    void limitBacksOffOnSlowRequestsAndGrowsOnFastOnes() {
+        AdaptiveLimit limit = new AdaptiveLimit(new AdmissionProperties.Group(10, 2, 20, Duration.ofMillis(50)), 0.5);
+
+        for (int i = 0; i < 8; i++) {
+            assertThat(limit.tryAcquire()).isTrue();
+        }
+        limit.release(Duration.ofMillis(500).toNanos(), false);
+        assertThat(limit.limit()).isEqualTo(5);
+
+        // A second slow request straight after does not back off again
+        limit.release(Duration.ofMillis(500).toNanos(), false);
+        assertThat(limit.limit()).isEqualTo(5);
+
+        for (int i = 0; i < 4; i++) {
+            limit.release();
+        }
+        assertThat(limit.tryAcquire()).isTrue();
+        limit.release(Duration.ofMillis(5).toNanos(), false);
+        assertThat(limit.limit()).isEqualTo(6);
+    }
+
+    @Test
+    void slowRequestsAtLowConcurrencyKeepTheLimit() throws InterruptedException {
+        AdaptiveLimit limit = new AdaptiveLimit(new AdmissionProperties.Group(10, 2, 20, Duration.ofMillis(1)), 0.5);
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(limit.tryAcquire()).isTrue();
+            // Past the once-per-target-latency guard, so only the low load prevents backing off
+            Thread.sleep(2);
+            limit.release(Duration.ofMillis(500).toNanos(), i % 2 == 0);
+        }
+        assertThat(limit.limit()).isEqualTo(10);
+    }
+
+    private static MockServerWebExchange get(String path) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(path));
+    }
+}
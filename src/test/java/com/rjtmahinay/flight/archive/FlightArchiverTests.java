@@ -0,0 +1,90 @@
+package com.rjtmahinay.flight.archive;
+
+import com.rjtmahinay.flight.dto.FlightStatusRequest;
+import com.rjtmahinay.flight.index.RouteIndex;
+import com.rjtmahinay.flight.model.Flight;
+import com.rjtmahinay.flight.repository.FlightRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs on its own H2 database, so archiving does not take away the past flights other test
+ * classes created.
+ */
+@SpringBootTest(properties = {
+        "spring.r2dbc.url=r2dbc:h2:mem:///archivetest;DB_CLOSE_DELAY=-1",
+        "spring.flyway.url=jdbc:h2:mem:archivetest;DB_CLOSE_DELAY=-1",
+        "flight.archive.batch-size=2"
+})
+@AutoConfigureWebTestClient
+@DirtiesContext
+class FlightArchiverTests {
+
+    private static final LocalDateTime PAST = LocalDateTime.of(2020, 3, 2, 6, 0);
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private FlightArchiver flightArchiver;
+
+    @Autowired
+    private FlightRepository flightRepository;
+
+    @Autowired
+    private RouteIndex routeIndex;
+
+    @Test
+    void movesDepartedFlightsInBatchesAndKeepsThemFindable() {
+        routeIndex.reload().block();
+        Flight departed = create("SK901", PAST);
+        create("SK903", PAST.plusHours(3));
+        create("SK905", PAST.plusDays(1));
+        Flight upcoming = create("SK907", LocalDateTime.now().plusDays(7));
+        assertThat(routeIndex.find("CPH", "OSL", PAST.toLocalDate())).hasSize(2);
+
+        assertThat(flightArchiver.archive().block()).isEqualTo(3L);
+        routeIndex.settled().block();
+
+        assertThat(flightRepository.findById(departed.getId()).block()).isNull();
+        assertThat(flightRepository.findById(upcoming.getId()).block()).isNotNull();
+        assertThat(routeIndex.find("CPH", "OSL", PAST.toLocalDate())).isEmpty();
+        assertThat(flightArchiver.archive().block()).isZero();
+
+        webTestClient.post().uri("/api/flights/status")
+                .bodyValue(new FlightStatusRequest("SK901", PAST))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo("Success")
+                .jsonPath("$.flights.length()").isEqualTo(1);
+    }
+
+    private Flight create(String flightNumber, LocalDateTime departure) {
+        return webTestClient.post().uri("/api/flights")
+                .bodyValue(Flight.builder()
+                        .airlineName("Scandinavian Airlines")
+                        .flightNumber(flightNumber)
+                        .origin("CPH")
+                        .destination("OSL")
+                        .departureTime(departure)
+                        .arrivalTime(departure.plusMinutes(70))
+                        .availableSeats(150)
+                        .price(120.0)
+                        .status("SCHEDULED")
+                        .build())
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(Flight.class)
+                .returnResult()
+                .getResponseBody();
+    }
+}
@@ -0,0 +1,168 @@
+package com.rjtmahinay.flight.availability;
+
+import com.rjtmahinay.flight.event.FlightChangedEvent;
+import com.rjtmahinay.flight.exception.SeatsUnavailableException;
+import com.rjtmahinay.flight.model.Flight;
+import com.rjtmahinay.flight.repository.FlightRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Flushes only when the tests ask for one
+@SpringBootTest(properties = "flight.availability.flush-interval=1h")
+@RecordApplicationEvents
+class AvailabilityCacheTests {
+
+    @Autowired
+    private AvailabilityCache availabilityCache;
+
+    @Autowired
+    private FlightRepository flightRepository;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    @Autowired
+    private AvailabilityProperties properties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void reservationsAreServedFromMemoryAndWrittenBehind() {
+        Flight flight = save(LocalDateTime.now().plusDays(3), 10);
+
+        assertThat(availabilityCache.reserve(flight.getId(), 4).block().getAvailableSeats()).isEqualTo(6);
+        assertThat(availabilityCache.release(flight.getId(), 1).block().getAvailableSeats()).isEqualTo(7);
+        StepVerifier.create(availabilityCache.reserve(flight.getId(), 8))
+                .expectError(SeatsUnavailableException.class)
+                .verify();
+
+        // Reads see the counter at once, the database once the changes are flushed
+        assertThat(availabilityCache.availability(flight.getId()).block().getAvailableSeats()).isEqualTo(7);
+        availabilityCache.flush().block();
+        assertThat(flightRepository.findById(flight.getId()).block().getAvailableSeats()).isEqualTo(7);
+    }
+
+    @Test
+    void aFlushAnnouncesEachFlightOnce() {
+        Flight flight = save(LocalDateTime.now().plusDays(3), 10);
+        availabilityCache.reserve(flight.getId(), 1).block();
+        availabilityCache.reserve(flight.getId(), 2).block();
+        availabilityCache.release(flight.getId(), 1).block();
+        assertThat(changesOf(flight)).isEmpty();
+
+        availabilityCache.flush().block();
+
+        assertThat(changesOf(flight)).singleElement().satisfies(event -> {
+            assertThat(event.isWriteBehind()).isTrue();
+            assertThat(event.getFlight().getAvailableSeats()).isEqualTo(8);
+        });
+    }
+
+    @Test
+    void changesMadeElsewhereKeepPendingReservations() {
+        Flight flight = save(LocalDateTime.now().plusDays(3), 10);
+        availabilityCache.reserve(flight.getId(), 2).block();
+
+        // An update written straight to the database, as PUT /api/flights/{id} does
+        flight.setAvailableSeats(20);
+        flight.setPrice(500.0);
+        flightRepository.save(flight).block();
+        availabilityCache.onFlightChanged(new FlightChangedEvent(FlightChangedEvent.Type.UPDATED, flight));
+
+        assertThat(availabilityCache.availability(flight.getId()).block())
+                .satisfies(availability -> {
+                    assertThat(availability.getAvailableSeats()).isEqualTo(18);
+                    assertThat(availability.getPrice()).isEqualTo(500.0);
+                });
+        availabilityCache.flush().block();
+        assertThat(flightRepository.findById(flight.getId()).block().getAvailableSeats()).isEqualTo(18);
+    }
+
+    @Test
+    void readsAreCachedButReservationsCheckThePrimaryFirst() {
+        Flight flight = save(LocalDateTime.now().plusDays(3), 10);
+        assertThat(availabilityCache.availability(flight.getId()).block().getAvailableSeats()).isEqualTo(10);
+
+        // A row the read may have missed, as on a lagging replica
+        flight.setAvailableSeats(3);
+        flightRepository.save(flight).block();
+        double hits = lookups("hit");
+        assertThat(availabilityCache.availability(flight.getId()).block().getAvailableSeats()).isEqualTo(10);
+        assertThat(lookups("hit")).isEqualTo(hits + 1);
+
+        StepVerifier.create(availabilityCache.reserve(flight.getId(), 4))
+                .expectError(SeatsUnavailableException.class)
+                .verify();
+        assertThat(availabilityCache.reserve(flight.getId(), 3).block().getAvailableSeats()).isZero();
+    }
+
+    @Test
+    void theOldestEntriesMakeRoomBeyondMaxEntries() {
+        Flight oldest = save(LocalDateTime.now().plusDays(3), 10);
+        Flight newer = save(LocalDateTime.now().plusDays(3), 10);
+        Flight newest = save(LocalDateTime.now().plusDays(3), 10);
+        // Entries of other tests with unflushed changes could not make room
+        availabilityCache.flush().block();
+        int maxEntries = properties.getMaxEntries();
+        properties.setMaxEntries(2);
+        try {
+            availabilityCache.availability(oldest.getId()).block();
+            availabilityCache.availability(newer.getId()).block();
+            availabilityCache.availability(newest.getId()).block();
+            assertThat(meterRegistry.get("flight.availability.size").gauge().value()).isEqualTo(2);
+
+            double hits = lookups("hit");
+            availabilityCache.availability(newest.getId()).block();
+            assertThat(lookups("hit")).isEqualTo(hits + 1);
+            double misses = lookups("miss");
+            availabilityCache.availability(oldest.getId()).block();
+            assertThat(lookups("miss")).isEqualTo(misses + 1);
+        } finally {
+            properties.setMaxEntries(maxEntries);
+        }
+    }
+
+    @Test
+    void departedFlightsAreNotCached() {
+        Flight flight = save(LocalDateTime.now().minusHours(1), 10);
+
+        // Completes empty: the caller reserves in the database instead
+        StepVerifier.create(availabilityCache.reserve(flight.getId(), 1)).verifyComplete();
+        assertThat(availabilityCache.availability(flight.getId()).block().getAvailableSeats()).isEqualTo(10);
+    }
+
+    private double lookups(String result) {
+        return meterRegistry.get("flight.availability.lookups").tag("result", result).counter().count();
+    }
+
+    private List<FlightChangedEvent> changesOf(Flight flight) {
+        return events.stream(FlightChangedEvent.class)
+                .filter(event -> event.getFlight().getId().equals(flight.getId()))
+                .toList();
+    }
+
+    private Flight save(LocalDateTime departure, int seats) {
+        return flightRepository.save(Flight.builder()
+                .airlineName("JetBlue")
+                .flightNumber("B6100")
+                .origin("JFK")
+                .destination("MCO")
+                .departureTime(departure)
+                .arrivalTime(departure.plusHours(3))
+                .availableSeats(seats)
+                .price(150.0)
+                .status("SCHEDULED")
+                .build()).block();
+    }
+}
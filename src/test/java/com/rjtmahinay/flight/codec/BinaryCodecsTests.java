@@ -0,0 +1,119 @@
+package com.rjtmahinay.flight.codec;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rjtmahinay.flight.dto.FlightSearchRequest;
+import com.rjtmahinay.flight.dto.FlightStatusRequest;
+import com.rjtmahinay.flight.dto.FlightStatusResponse;
+import com.rjtmahinay.flight.model.Flight;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@AutoConfigureWebTestClient
+class BinaryCodecsTests {
+
+    private static final LocalDateTime DEPARTURE = LocalDateTime.of(2030, 4, 2, 8, 30);
+
+    private final ObjectMapper cbor = BinaryCodecs.cborMapper(new Jackson2ObjectMapperBuilder());
+    private final ObjectMapper smile = BinaryCodecs.smileMapper(new Jackson2ObjectMapperBuilder());
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    private Flight flight;
+
+    @BeforeEach
+    void setUp() {
+        flight = webTestClient.post().uri("/api/flights")
+                .bodyValue(Flight.builder()
+                        .airlineName("JetBlue")
+                        .flightNumber("B6615")
+                        .origin("BOS")
+                        .destination("MCO")
+                        .departureTime(DEPARTURE)
+                        .arrivalTime(DEPARTURE.plusHours(3))
+                        .availableSeats(150)
+                        .price(99.0)
+                        .status("SCHEDULED")
+                        .build())
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(Flight.class)
+                .returnResult()
+                .getResponseBody();
+    }
+
+    @Test
+    void servesCborWithEpochTimestamps() throws IOException {
+        byte[] body = webTestClient.get().uri("/api/flights/{id}", flight.getId())
+                .accept(MediaType.APPLICATION_CBOR)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_CBOR)
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+
+        JsonNode tree = cbor.readTree(body);
+        assertThat(tree.get("departureTime").isNumber()).isTrue();
+        assertThat(tree.get("departureTime").asLong()).isEqualTo(DEPARTURE.toInstant(ZoneOffset.UTC).toEpochMilli());
+        assertThat(cbor.readValue(body, Flight.class).getDepartureTime()).isEqualTo(DEPARTURE);
+    }
+
+    @Test
+    void encodesStreamedResultsAsOneCborArray() throws IOException {
+        FlightSearchRequest request = new FlightSearchRequest();
+        request.setOrigin("BOS");
+        request.setDestination("MCO");
+        request.setDepartureDate(DEPARTURE.toLocalDate().toString());
+        request.setPassengers(1);
+
+        byte[] body = webTestClient.post().uri("/api/flights/search")
+                .accept(MediaType.APPLICATION_CBOR)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+
+        Flight[] flights = cbor.readValue(body, Flight[].class);
+        assertThat(flights).extracting(Flight::getId).contains(flight.getId());
+    }
+
+    @Test
+    void servesSmileAndKeepsJsonAsDefault() throws IOException {
+        FlightStatusRequest request = new FlightStatusRequest("B6615", DEPARTURE);
+        byte[] body = webTestClient.post().uri("/api/flights/status")
+                .accept(BinaryCodecs.APPLICATION_SMILE)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(BinaryCodecs.APPLICATION_SMILE)
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+        assertThat(smile.readValue(body, FlightStatusResponse.class).getFlights())
+                .extracting(FlightStatusResponse.FlightStatus::getDepartureTime)
+                .isNotEmpty()
+                .containsOnly("08:30 AM");
+
+        webTestClient.get().uri("/api/flights?size=1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON);
+    }
+}
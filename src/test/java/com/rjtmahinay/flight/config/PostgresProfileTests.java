@@ -0,0 +1,75 @@
+package com.rjtmahinay.flight.config;
+
+import com.rjtmahinay.flight.model.Flight;
+import com.rjtmahinay.flight.repository.FlightRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Boots the {@code postgres} profile against H2 in PostgreSQL mode, so the pool settings,
+ * migrations and pool metrics are exercised without a database server.
+ */
+@SpringBootTest(properties = {
+        "spring.r2dbc.url=r2dbc:h2:mem:///pgcompat;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.username=sa",
+        "spring.r2dbc.password=",
+        "spring.flyway.url=jdbc:h2:mem:pgcompat;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("postgres")
+class PostgresProfileTests {
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private FlightRepository flightRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void schemaIsMigratedAndServedThroughThePool() {
+        assertThat(connectionFactory).isInstanceOf(ConnectionPool.class);
+
+        Long applied = databaseClient.sql("SELECT COUNT(*) FROM \"flyway_schema_history\" WHERE success")
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .block();
+        assertThat(applied).isPositive();
+
+        Flight saved = flightRepository.save(Flight.builder()
+                        .airlineName("Delta Air Lines")
+                        .flightNumber("DL100")
+                        .origin("ATL")
+                        .destination("BOS")
+                        .departureTime(LocalDateTime.of(2030, 3, 1, 9, 0))
+                        .arrivalTime(LocalDateTime.of(2030, 3, 1, 11, 30))
+                        .availableSeats(80)
+                        .price(199.0)
+                        .status("SCHEDULED")
+                        .build())
+                .block();
+        assertThat(flightRepository.findById(saved.getId()).block()).isNotNull();
+    }
+
+    @Test
+    void poolMetricsAreExported() {
+        assertThat(meterRegistry.find("r2dbc.pool.max.allocated").gauge())
+                .isNotNull()
+                .satisfies(gauge -> assertThat(gauge.value()).isEqualTo(50));
+        assertThat(meterRegistry.find("r2dbc.pool.acquired").gauge()).isNotNull();
+    }
+}
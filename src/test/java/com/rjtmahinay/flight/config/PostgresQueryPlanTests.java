@@ -0,0 +1,42 @@
+package com.rjtmahinay.flight.config;
+
+import com.rjtmahinay.flight.repository.FlightRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the repository query plans on a real PostgreSQL server. Runs when {@code FLIGHT_DB_HOST}
+ * (and, as needed, the other {@code FLIGHT_DB_*} variables of the {@code postgres} profile)
+ * points at one.
+ */
+@SpringBootTest(properties = "flight.snapshot.enabled=false")
+@ActiveProfiles("postgres")
+@EnabledIfEnvironmentVariable(named = "FLIGHT_DB_HOST", matches = ".+")
+class PostgresQueryPlanTests {
+
+    @Autowired
+    private QueryPlanVerifier queryPlanVerifier;
+
+    @Test
+    void repositoryQueriesUseTheCompositeIndexes() {
+        Map<String, String> plans = queryPlanVerifier.verify(FlightRepository.class)
+                .collectMap(QueryPlanVerifier.PlanReport::method, QueryPlanVerifier.PlanReport::plan)
+                .block();
+
+        assertThat(plans).isNotEmpty();
+        assertThat(plans).allSatisfy((method, plan) -> assertThat(plan).as(method).doesNotContain("Seq Scan"));
+        assertThat(plans.get("findByOriginAndDestinationAndDepartureTimeBetween"))
+                .containsPattern("Index (Only )?Scan (using|on) idx_flight_route_departure");
+        assertThat(plans.get("findByFlightNumberAndDepartureTimeBetween"))
+                .containsPattern("Index (Only )?Scan (using|on) idx_flight_number_departure");
+        assertThat(plans.get("findByFlightNumberInAndDepartureTimeBetween"))
+                .containsPattern("Index (Only )?Scan (using|on) idx_flight_number_departure");
+    }
+}
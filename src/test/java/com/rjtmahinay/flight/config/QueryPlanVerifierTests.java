@@ -0,0 +1,27 @@
+package com.rjtmahinay.flight.config;
+
+import com.rjtmahinay.flight.repository.FlightRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class QueryPlanVerifierTests {
+
+    @Autowired
+    private QueryPlanVerifier queryPlanVerifier;
+
+    @Test
+    void repositoryQueriesUseIndexes() {
+        List<QueryPlanVerifier.PlanReport> reports = queryPlanVerifier.verify(FlightRepository.class).collectList().block();
+
+        assertThat(reports).isNotEmpty();
+        assertThat(reports).allSatisfy(report -> assertThat(report.tableScan())
+                .as("%s: %s", report.method(), report.plan())
+                .isFalse());
+    }
+}
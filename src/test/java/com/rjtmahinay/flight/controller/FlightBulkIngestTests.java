@@ -0,0 +1,127 @@
+package com.rjtmahinay.flight.controller;
+
+import com.rjtmahinay.flight.dto.BulkIngestResponse;
+import com.rjtmahinay.flight.event.FlightsCreatedEvent;
+import com.rjtmahinay.flight.index.RouteIndex;
+import com.rjtmahinay.flight.repository.FlightRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"flight.ingest.batch-size=2", "flight.ingest.concurrency=1"})
+@AutoConfigureWebTestClient
+@Import(FlightBulkIngestTests.Batches.class)
+class FlightBulkIngestTests {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private FlightRepository flightRepository;
+
+    @Autowired
+    private RouteIndex routeIndex;
+
+    @Autowired
+    private Batches batches;
+
+    @Test
+    void malformedNdjsonLinesAreReportedAsRecords() {
+        String body = record("NZ101") + "\n"
+                + "{\"flightNumber\": \"NZ102\", \"price\": \n"
+                + record("NZ103") + "\n";
+
+        BulkIngestResponse response = webTestClient.post().uri("/api/flights/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(BulkIngestResponse.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(response.getReceived()).isEqualTo(3);
+        assertThat(response.getInserted()).isEqualTo(2);
+        assertThat(response.getErrors()).singleElement().satisfies(error -> {
+            assertThat(error.getIndex()).isEqualTo(1);
+            assertThat(error.getMessage()).startsWith("Malformed record");
+        });
+        assertThat(flightRepository.findByFlightNumber("NZ103").collectList().block()).hasSize(1);
+    }
+
+    @Test
+    void malformedJsonArraysStopAtTheSyntaxError() {
+        // Sent in two chunks, so the first record is decoded before the error arrives
+        BulkIngestResponse response = webTestClient.post().uri("/api/flights/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Flux.just("[" + record("NZ201") + ",", " {\"flightNumber\": ], " + record("NZ203") + "]"),
+                        String.class)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(BulkIngestResponse.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(response.getReceived()).isEqualTo(2);
+        assertThat(response.getInserted()).isEqualTo(1);
+        assertThat(response.getErrors()).singleElement().satisfies(error -> {
+            assertThat(error.getIndex()).isEqualTo(1);
+            assertThat(error.getMessage()).startsWith("Malformed JSON");
+        });
+        assertThat(flightRepository.findByFlightNumber("NZ201").collectList().block()).hasSize(1);
+        assertThat(flightRepository.findByFlightNumber("NZ203").collectList().block()).isEmpty();
+    }
+
+    @Test
+    void eachBatchIsAnnouncedOnceAndIndexed() {
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < 5; i++) {
+            body.append(i == 0 ? "" : ", ").append(record("NZ3" + i).replace("AKL", "CHC"));
+        }
+        body.append("]");
+
+        webTestClient.post().uri("/api/flights/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body.toString())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(BulkIngestResponse.class)
+                .value(response -> assertThat(response.getInserted()).isEqualTo(5));
+
+        assertThat(batches.events)
+                .filteredOn(event -> event.getFlights().get(0).getOrigin().equals("CHC"))
+                .extracting(event -> event.getFlights().size())
+                .containsExactly(2, 2, 1);
+        routeIndex.settled().block();
+        assertThat(routeIndex.find("CHC", "WLG", LocalDate.of(2030, 3, 1))).hasSize(5);
+    }
+
+    // Ingest publishes from the insert threads, which application event recording does not see
+    static class Batches {
+        final List<FlightsCreatedEvent> events = new CopyOnWriteArrayList<>();
+
+        @EventListener
+        void onFlightsCreated(FlightsCreatedEvent event) {
+            events.add(event);
+        }
+    }
+
+    private static String record(String flightNumber) {
+        return "{\"airlineName\": \"Air New Zealand\", \"flightNumber\": \"" + flightNumber + "\", "
+                + "\"origin\": \"AKL\", \"destination\": \"WLG\", \"departureTime\": \"2030-03-01T07:00:00\", "
+                + "\"arrivalTime\": \"2030-03-01T08:05:00\", \"availableSeats\": 150, \"price\": 129.0, "
+                + "\"status\": \"SCHEDULED\"}";
+    }
+}
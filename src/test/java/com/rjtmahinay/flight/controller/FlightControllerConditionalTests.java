@@ -0,0 +1,171 @@
+package com.rjtmahinay.flight.controller;
+
+import com.rjtmahinay.flight.availability.AvailabilityCache;
+import com.rjtmahinay.flight.dto.FlightStatusRequest;
+import com.rjtmahinay.flight.model.Flight;
+import com.rjtmahinay.flight.repository.FlightRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@AutoConfigureWebTestClient
+class FlightControllerConditionalTests {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private FlightRepository flightRepository;
+
+    @Autowired
+    private AvailabilityCache availabilityCache;
+
+    private Flight flight;
+
+    @BeforeEach
+    void setUp() {
+        flight = webTestClient.post().uri("/api/flights")
+                .bodyValue(Flight.builder()
+                        .airlineName("United Airlines")
+                        .flightNumber("UA777")
+                        .origin("SFO")
+                        .destination("SEA")
+                        .departureTime(LocalDateTime.of(2030, 1, 10, 8, 0))
+                        .arrivalTime(LocalDateTime.of(2030, 1, 10, 10, 0))
+                        .availableSeats(50)
+                        .price(120.0)
+                        .status("SCHEDULED")
+                        .build())
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(Flight.class)
+                .returnResult()
+                .getResponseBody();
+    }
+
+    @Test
+    void getByIdAnswers304UntilTheFlightChanges() {
+        String etag = webTestClient.get().uri("/api/flights/{id}", flight.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(HttpHeaders.LAST_MODIFIED)
+                .returnResult(Flight.class)
+                .getResponseHeaders().getETag();
+
+        webTestClient.get().uri("/api/flights/{id}", flight.getId())
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+
+        webTestClient.post().uri("/api/flights/{id}/reserve", flight.getId())
+                .bodyValue("{\"seats\":1}")
+                .header(HttpHeaders.CONTENT_TYPE, "application/json")
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.get().uri("/api/flights/{id}", flight.getId())
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Flight.class)
+                .value(updated -> org.assertj.core.api.Assertions.assertThat(updated.getAvailableSeats()).isEqualTo(49));
+    }
+
+    @Test
+    void eachRepresentationHasItsOwnTag() {
+        String jsonTag = webTestClient.get().uri("/api/flights/{id}", flight.getId())
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .returnResult(Flight.class)
+                .getResponseHeaders().getETag();
+        String cborTag = webTestClient.get().uri("/api/flights/{id}", flight.getId())
+                .accept(MediaType.APPLICATION_CBOR)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .expectBody().returnResult()
+                .getResponseHeaders().getETag();
+
+        assertThat(cborTag).isNotEqualTo(jsonTag);
+        webTestClient.get().uri("/api/flights/{id}", flight.getId())
+                .accept(MediaType.APPLICATION_CBOR)
+                .header(HttpHeaders.IF_NONE_MATCH, jsonTag)
+                .exchange()
+                .expectStatus().isOk();
+        webTestClient.get().uri("/api/flights/{id}", flight.getId())
+                .accept(MediaType.APPLICATION_CBOR)
+                .header(HttpHeaders.IF_NONE_MATCH, cborTag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+    }
+
+    @Test
+    void writtenBehindReservationsMoveLastModified() {
+        // Last-Modified has whole seconds, so the row must be older than the reservation by more
+        flight.setUpdatedAt(LocalDateTime.now().minusHours(1).withNano(0));
+        flightRepository.save(flight).block();
+        String lastModified = webTestClient.get().uri("/api/flights/{id}", flight.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(Flight.class)
+                .getResponseHeaders().getFirst(HttpHeaders.LAST_MODIFIED);
+
+        webTestClient.post().uri("/api/flights/{id}/reserve", flight.getId())
+                .bodyValue("{\"seats\":2}")
+                .header(HttpHeaders.CONTENT_TYPE, "application/json")
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.get().uri("/api/flights/{id}", flight.getId())
+                .header(HttpHeaders.IF_MODIFIED_SINCE, lastModified)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Flight.class)
+                .value(updated -> org.assertj.core.api.Assertions.assertThat(updated.getAvailableSeats()).isEqualTo(48));
+    }
+
+    @Test
+    void searchAndStatusAnswer304ForUnchangedResults() {
+        // Reservations other tests made on UA777 would otherwise land between the requests
+        availabilityCache.flush().block();
+        String searchTag = webTestClient.get()
+                .uri("/api/flights/search?origin=SFO&destination=SEA&date=2030-01-10T00:00:00")
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(Flight.class)
+                .getResponseHeaders().getETag();
+        webTestClient.get()
+                .uri("/api/flights/search?origin=SFO&destination=SEA&date=2030-01-10T00:00:00")
+                .header(HttpHeaders.IF_NONE_MATCH, searchTag)
+                .exchange()
+                .expectStatus().isNotModified();
+
+        FlightStatusRequest request = new FlightStatusRequest("UA777", LocalDateTime.of(2030, 1, 10, 0, 0));
+        String statusTag = webTestClient.post().uri("/api/flights/status")
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class)
+                .getResponseHeaders().getETag();
+        webTestClient.post().uri("/api/flights/status")
+                .header(HttpHeaders.IF_NONE_MATCH, statusTag)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+    }
+}
@@ -0,0 +1,108 @@
+package com.rjtmahinay.flight.controller;
+
+import com.rjtmahinay.flight.model.Flight;
+import com.rjtmahinay.flight.repository.FlightRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"flight.paging.default-size=2", "flight.paging.max-size=3",
+        "flight.paging.stream-batch-size=2"})
+@AutoConfigureWebTestClient
+class FlightPagingTests {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private FlightRepository flightRepository;
+
+    private List<Long> ids;
+
+    @BeforeEach
+    void setUp() {
+        ids = flightRepository.saveAll(List.of(flight("PG1"), flight("PG2"), flight("PG3"), flight("PG4")))
+                .map(Flight::getId)
+                .collectList()
+                .block();
+    }
+
+    @Test
+    void pagesFollowTheNextCursorUntilAnEmptyPage() {
+        Long cursor = ids.get(0) - 1;
+
+        EntityExchangeResult<List<Flight>> first = page("/api/flights?cursor={cursor}", cursor);
+        assertThat(first.getResponseBody()).extracting(Flight::getId).containsExactly(ids.get(0), ids.get(1));
+        cursor = Long.valueOf(first.getResponseHeaders().getFirst(FlightController.NEXT_CURSOR_HEADER));
+        assertThat(cursor).isEqualTo(ids.get(1));
+
+        EntityExchangeResult<List<Flight>> second = page("/api/flights?cursor={cursor}&size=10", cursor);
+        assertThat(second.getResponseBody()).extracting(Flight::getId).containsExactly(ids.get(2), ids.get(3));
+        cursor = Long.valueOf(second.getResponseHeaders().getFirst(FlightController.NEXT_CURSOR_HEADER));
+
+        EntityExchangeResult<List<Flight>> last = page("/api/flights?cursor={cursor}", cursor);
+        assertThat(last.getResponseBody()).isEmpty();
+        assertThat(last.getResponseHeaders().containsKey(FlightController.NEXT_CURSOR_HEADER)).isFalse();
+    }
+
+    @Test
+    void pageSizesAreClamped() {
+        Long cursor = ids.get(0) - 1;
+
+        assertThat(page("/api/flights?cursor={cursor}&size=10", cursor).getResponseBody()).hasSize(3);
+        assertThat(page("/api/flights?cursor={cursor}&size=0", cursor).getResponseBody()).hasSize(1);
+    }
+
+    @Test
+    void exportStreamsEveryFlightInIdOrder() {
+        List<Long> exported = webTestClient.get().uri("/api/flights")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(Flight.class)
+                .getResponseBody()
+                .map(Flight::getId)
+                .collectList()
+                .block();
+
+        assertThat(exported).hasSize(flightRepository.count().block().intValue())
+                .isSorted()
+                .containsSequence(ids);
+    }
+
+    private EntityExchangeResult<List<Flight>> page(String uri, Long cursor) {
+        return webTestClient.get().uri(uri, cursor)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Flight.class)
+                .returnResult();
+    }
+
+    private static Flight flight(String flightNumber) {
+        LocalDateTime departure = LocalDateTime.of(2031, 5, 1, 8, 0);
+        return Flight.builder()
+                .airlineName("United Airlines")
+                .flightNumber(flightNumber)
+                .origin("DEN")
+                .destination("PHX")
+                .departureTime(departure)
+                .arrivalTime(departure.plusHours(2))
+                .availableSeats(30)
+                .price(180.0)
+                .status("SCHEDULED")
+                .updatedAt(departure.minusDays(30))
+                .build();
+    }
+}
@@ -0,0 +1,132 @@
+package com.rjtmahinay.flight.controller;
+
+import com.rjtmahinay.flight.dto.FlightSearchRequest;
+import com.rjtmahinay.flight.index.RouteIndex;
+import com.rjtmahinay.flight.model.Flight;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.NestedTestConfiguration;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Searches one route through the route index here and through the SQL query in
+ * {@link WithoutRouteIndex}. Each test searches its own week, since the contexts share a database
+ * and every test also schedules a flight on the following day.
+ */
+@SpringBootTest
+@AutoConfigureWebTestClient
+class FlightSearchTests {
+
+    private static final LocalDate DAY = LocalDate.of(2031, 3, 4);
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private RouteIndex routeIndex;
+
+    @Test
+    void searchesTheRouteIndex() {
+        routeIndex.reload().block();
+        assertThat(routeIndex.isServing()).isTrue();
+
+        filtersSortsAndLimits(webTestClient, DAY);
+    }
+
+    @Test
+    void malformedDepartureDatesAreRejected() {
+        FlightSearchRequest request = request("4 March 2031");
+
+        webTestClient.post().uri("/api/flights/search")
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Nested
+    @NestedTestConfiguration(NestedTestConfiguration.EnclosingConfiguration.OVERRIDE)
+    @SpringBootTest(properties = "flight.route-index.enabled=false")
+    @AutoConfigureWebTestClient
+    class WithoutRouteIndex {
+
+        @Autowired
+        private WebTestClient webTestClient;
+
+        @Autowired
+        private RouteIndex routeIndex;
+
+        @Test
+        void searchesTheDatabase() {
+            assertThat(routeIndex.isServing()).isFalse();
+
+            filtersSortsAndLimits(webTestClient, DAY.plusWeeks(1));
+        }
+    }
+
+    private static void filtersSortsAndLimits(WebTestClient webTestClient, LocalDate day) {
+        create(webTestClient, "UA100", "United Airlines", day.atTime(7, 0), 1, 150.0);
+        create(webTestClient, "UA200", "United Airlines", day.atTime(9, 0), 20, 300.0);
+        create(webTestClient, "DL300", "Delta Air Lines", day.atTime(11, 0), 20, 200.0);
+        create(webTestClient, "UA400", "United Airlines", day.atTime(13, 0), 2, 250.0);
+        create(webTestClient, "UA500", "United Airlines", day.plusDays(1).atTime(7, 0), 20, 100.0);
+
+        FlightSearchRequest request = request(day.toString());
+        request.setPassengers(2);
+        assertThat(search(webTestClient, request)).containsExactly("UA200", "DL300", "UA400");
+
+        request.setAirline("united airlines");
+        request.setSortBy("price");
+        assertThat(search(webTestClient, request)).containsExactly("UA400", "UA200");
+
+        request.setLimit(1);
+        assertThat(search(webTestClient, request)).containsExactly("UA400");
+    }
+
+    private static FlightSearchRequest request(String departureDate) {
+        FlightSearchRequest request = new FlightSearchRequest();
+        request.setOrigin("BOS");
+        request.setDestination("ORD");
+        request.setDepartureDate(departureDate);
+        return request;
+    }
+
+    private static List<String> search(WebTestClient webTestClient, FlightSearchRequest request) {
+        return webTestClient.post().uri("/api/flights/search")
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Flight.class)
+                .returnResult()
+                .getResponseBody()
+                .stream()
+                .map(Flight::getFlightNumber)
+                .toList();
+    }
+
+    private static void create(WebTestClient webTestClient, String flightNumber, String airline,
+                               LocalDateTime departure, int seats, double price) {
+        webTestClient.post().uri("/api/flights")
+                .bodyValue(Flight.builder()
+                        .airlineName(airline)
+                        .flightNumber(flightNumber)
+                        .origin("BOS")
+                        .destination("ORD")
+                        .departureTime(departure)
+                        .arrivalTime(departure.plusHours(3))
+                        .availableSeats(seats)
+                        .price(price)
+                        .status("SCHEDULED")
+                        .build())
+                .exchange()
+                .expectStatus().isCreated();
+    }
+}
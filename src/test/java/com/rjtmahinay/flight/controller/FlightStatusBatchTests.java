@@ -0,0 +1,98 @@
+package com.rjtmahinay.flight.controller;
+
+import com.rjtmahinay.flight.dto.FlightStatusBatchItem;
+import com.rjtmahinay.flight.dto.FlightStatusRequest;
+import com.rjtmahinay.flight.dto.FlightStatusResponse;
+import com.rjtmahinay.flight.model.Flight;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"flight.status-batch.chunk-size=2", "flight.status-batch.max-size=5"})
+@AutoConfigureWebTestClient
+class FlightStatusBatchTests {
+
+    private static final LocalDateTime MORNING = LocalDateTime.of(2030, 6, 1, 9, 0);
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    void setUp() {
+        create("HA10", MORNING);
+        create("HA12", MORNING.plusHours(4));
+        create("HA10", MORNING.plusDays(1));
+    }
+
+    @Test
+    void streamsOneEntryPerPairWithNotFoundMarkers() {
+        List<FlightStatusRequest> requests = List.of(
+                new FlightStatusRequest("HA10", MORNING),
+                new FlightStatusRequest("HA12", MORNING.plusHours(1)),
+                new FlightStatusRequest("HA10", MORNING.plusDays(1)),
+                new FlightStatusRequest("HA99", MORNING),
+                new FlightStatusRequest("HA10", MORNING.plusMinutes(30)));
+
+        List<FlightStatusBatchItem> items = webTestClient.post().uri("/api/flights/status/batch")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(requests)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(FlightStatusBatchItem.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        assertThat(items).extracting(item -> item.getFlightNumber() + "@" + item.getDate() + "=" + item.getStatus())
+                .containsExactlyInAnyOrder("HA10@2030-06-01=Success", "HA12@2030-06-01=Success",
+                        "HA10@2030-06-02=Success", "HA99@2030-06-01=Error");
+        assertThat(items).filteredOn(item -> item.getFlightNumber().equals("HA12"))
+                .flatExtracting(FlightStatusBatchItem::getFlights)
+                .extracting(FlightStatusResponse.FlightStatus::getDepartureTime)
+                .containsOnly("01:00 PM");
+        assertThat(items).filteredOn(item -> item.getStatus().equals("Error"))
+                .allSatisfy(item -> assertThat(item.getFlights()).isEmpty());
+    }
+
+    @Test
+    void rejectsInvalidAndOversizedBatches() {
+        webTestClient.post().uri("/api/flights/status/batch")
+                .bodyValue(List.of(new FlightStatusRequest(null, MORNING)))
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        webTestClient.post().uri("/api/flights/status/batch")
+                .bodyValue(List.of(
+                        new FlightStatusRequest("HA1", MORNING), new FlightStatusRequest("HA2", MORNING),
+                        new FlightStatusRequest("HA3", MORNING), new FlightStatusRequest("HA4", MORNING),
+                        new FlightStatusRequest("HA5", MORNING), new FlightStatusRequest("HA6", MORNING)))
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    private void create(String flightNumber, LocalDateTime departure) {
+        webTestClient.post().uri("/api/flights")
+                .bodyValue(Flight.builder()
+                        .airlineName("Hawaiian Airlines")
+                        .flightNumber(flightNumber)
+                        .origin("HNL")
+                        .destination("OGG")
+                        .departureTime(departure)
+                        .arrivalTime(departure.plusMinutes(40))
+                        .availableSeats(120)
+                        .price(89.0)
+                        .status("SCHEDULED")
+                        .build())
+                .exchange()
+                .expectStatus().isCreated();
+    }
+}
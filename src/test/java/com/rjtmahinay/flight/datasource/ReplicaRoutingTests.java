@@ -0,0 +1,112 @@
+package com.rjtmahinay.flight.datasource;
+
+import com.rjtmahinay.flight.model.Flight;
+import io.r2dbc.pool.ConnectionPool;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.LocalDateTime;
+
+/**
+ * Primary and replica are two unconnected H2 databases, so which one served a read is visible
+ * from whether it found the row.
+ */
+@SpringBootTest(properties = {
+        "flight.replica.enabled=true",
+        "flight.replica.url=r2dbc:h2:mem:///routingreplica;DB_CLOSE_DELAY=-1",
+        "flight.replica.migration-url=jdbc:h2:mem:routingreplica;DB_CLOSE_DELAY=-1",
+        "flight.replica.probe-interval=1h",
+        "flight.route-index.enabled=false",
+        "flight.coalescing.enabled=false"
+})
+@AutoConfigureWebTestClient
+@DirtiesContext
+class ReplicaRoutingTests {
+
+    private static final long REPLICA_ONLY_ID = 1_000_000L;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    @Qualifier("replicaConnectionPool")
+    private ConnectionPool replica;
+
+    @Autowired
+    private ReplicaHealth replicaHealth;
+
+    @Test
+    void readsUseTheReplicaUntilTheClientWritesOrTheReplicaGoesDown() {
+        DatabaseClient.create(replica)
+                .sql("INSERT INTO flights (id, airline_name, flight_number, origin, destination, departure_time, "
+                        + "arrival_time, available_seats, price, status) VALUES (:id, 'Replica Air', 'RA1', 'JFK', "
+                        + "'BOS', :departure, :arrival, 10, 99.0, 'SCHEDULED')")
+                .bind("id", REPLICA_ONLY_ID)
+                .bind("departure", LocalDateTime.of(2030, 5, 1, 8, 0))
+                .bind("arrival", LocalDateTime.of(2030, 5, 1, 9, 0))
+                .then()
+                .block();
+
+        webTestClient.get().uri("/api/flights/{id}", REPLICA_ONLY_ID)
+                .exchange()
+                .expectStatus().isOk();
+
+        var created = webTestClient.post().uri("/api/flights")
+                .bodyValue(Flight.builder()
+                        .airlineName("Primary Air")
+                        .flightNumber("PA1")
+                        .origin("JFK")
+                        .destination("BOS")
+                        .departureTime(LocalDateTime.of(2030, 5, 1, 10, 0))
+                        .arrivalTime(LocalDateTime.of(2030, 5, 1, 11, 0))
+                        .availableSeats(10)
+                        .price(120.0)
+                        .status("SCHEDULED")
+                        .build())
+                .exchange()
+                .expectStatus().isCreated()
+                .expectCookie().exists(ReadYourWritesFilter.COOKIE)
+                .returnResult(Flight.class);
+        Long createdId = created.getResponseBody().blockFirst().getId();
+        String sticky = created.getResponseCookies().getFirst(ReadYourWritesFilter.COOKIE).getValue();
+
+        // The writer reads its own write from the primary; everyone else still reads the replica
+        webTestClient.get().uri("/api/flights/{id}", createdId)
+                .cookie(ReadYourWritesFilter.COOKIE, sticky)
+                .exchange()
+                .expectStatus().isOk();
+        webTestClient.get().uri("/api/flights/{id}", createdId)
+                .exchange()
+                .expectStatus().isNotFound();
+
+        // Checking the seats runs on the primary, but only a reservation that went through pins
+        webTestClient.post().uri("/api/flights/{id}/reserve", createdId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"seats\":11}")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.CONFLICT)
+                .expectCookie().doesNotExist(ReadYourWritesFilter.COOKIE);
+        webTestClient.post().uri("/api/flights/{id}/reserve", createdId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"seats\":1}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectCookie().exists(ReadYourWritesFilter.COOKIE);
+
+        replicaHealth.markDown(new IllegalStateException("replica stopped"));
+        webTestClient.get().uri("/api/flights/{id}", createdId)
+                .exchange()
+                .expectStatus().isOk();
+        webTestClient.get().uri("/api/flights/{id}", REPLICA_ONLY_ID)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+}
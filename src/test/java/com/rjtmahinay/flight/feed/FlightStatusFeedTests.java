@@ -0,0 +1,132 @@
+package com.rjtmahinay.flight.feed;
+
+import com.rjtmahinay.flight.dto.FlightStatusUpdate;
+import com.rjtmahinay.flight.event.FlightChangedEvent;
+import com.rjtmahinay.flight.model.Flight;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+class FlightStatusFeedTests {
+
+    private FlightStatusFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        StatusFeedProperties properties = new StatusFeedProperties();
+        properties.setCoalesceWindow(Duration.ofMillis(50));
+        properties.setMaxPendingPerSubscriber(2);
+        properties.setHeartbeatInterval(Duration.ofMillis(20));
+        feed = new FlightStatusFeed(properties, new SimpleMeterRegistry());
+        feed.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        feed.stop();
+    }
+
+    @Test
+    void coalescesRapidChangesToTheLatestState() {
+        StepVerifier.create(feed.subscribe(Set.of("UA1"), Set.of()))
+                .then(() -> {
+                    feed.onFlightChanged(changed(1L, "UA1", "JFK", "LAX", "SCHEDULED"));
+                    feed.onFlightChanged(changed(1L, "UA1", "JFK", "LAX", "BOARDING"));
+                    feed.onFlightChanged(changed(1L, "UA1", "JFK", "LAX", "DELAYED"));
+                })
+                .expectNextMatches(update -> update.getStatus().equals("Delayed"))
+                .expectNoEvent(Duration.ofMillis(200))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void deliversOnlyFollowedFlightsAndRoutes() {
+        StepVerifier.create(feed.subscribe(List.of("UA1"), List.of("ORD-DEN")).map(FlightStatusUpdate::getFlightNumber))
+                .then(() -> {
+                    feed.onFlightChanged(changed(1L, "UA1", "JFK", "LAX", "SCHEDULED"));
+                    feed.onFlightChanged(changed(2L, "DL2", "JFK", "LAX", "SCHEDULED"));
+                    feed.onFlightChanged(changed(3L, "AA3", "ORD", "DEN", "SCHEDULED"));
+                })
+                .expectNextCount(2)
+                .expectNoEvent(Duration.ofMillis(200))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void dropsUpdatesForSubscribersThatFallBehind() {
+        StepVerifier.create(feed.subscribe(Set.of(), Set.of()), 0)
+                .then(() -> {
+                    for (long id = 1; id <= 10; id++) {
+                        feed.onFlightChanged(changed(id, "UA" + id, "JFK", "LAX", "SCHEDULED"));
+                    }
+                })
+                .expectNoEvent(Duration.ofMillis(200))
+                .thenRequest(Long.MAX_VALUE)
+                .expectNextMatches(update -> update.getFlightNumber().equals("UA9"))
+                .expectNextMatches(update -> update.getFlightNumber().equals("UA10"))
+                .expectNoEvent(Duration.ofMillis(100))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void subscribersThatFallBehindGetTheLatestStateOfEachFlight() {
+        StepVerifier.create(feed.subscribe(Set.of("UA1"), Set.of()), 0)
+                .then(() -> feed.onFlightChanged(changed(1L, "UA1", "JFK", "LAX", "BOARDING")))
+                // Past the coalesce window, so both changes reach the subscriber's queue
+                .expectNoEvent(Duration.ofMillis(150))
+                .then(() -> feed.onFlightChanged(changed(1L, "UA1", "JFK", "LAX", "DELAYED")))
+                .expectNoEvent(Duration.ofMillis(150))
+                .thenRequest(Long.MAX_VALUE)
+                .expectNextMatches(update -> update.getStatus().equals("Delayed"))
+                .expectNoEvent(Duration.ofMillis(100))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void aStalledStreamDoesNotHoldBackHeartbeats() {
+        BaseSubscriber<Long> stalled = new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                // Never requests anything
+            }
+        };
+        feed.heartbeats().subscribe(stalled);
+        try {
+            StepVerifier.create(feed.heartbeats().take(5))
+                    .expectNextCount(5)
+                    .expectComplete()
+                    .verify(Duration.ofSeconds(5));
+        } finally {
+            stalled.dispose();
+        }
+    }
+
+    private static FlightChangedEvent changed(Long id, String flightNumber, String origin, String destination, String status) {
+        LocalDateTime departure = LocalDateTime.of(2025, 9, 15, 8, 0);
+        return new FlightChangedEvent(FlightChangedEvent.Type.UPDATED, Flight.builder()
+                .id(id)
+                .airlineName("United Airlines")
+                .flightNumber(flightNumber)
+                .origin(origin)
+                .destination(destination)
+                .departureTime(departure)
+                .arrivalTime(departure.plusHours(5))
+                .availableSeats(100)
+                .price(300.0)
+                .status(status)
+                .build());
+    }
+}
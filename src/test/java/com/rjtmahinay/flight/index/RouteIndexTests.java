@@ -0,0 +1,132 @@
+package com.rjtmahinay.flight.index;
+
+import com.rjtmahinay.flight.event.FlightChangedEvent;
+import com.rjtmahinay.flight.event.FlightsCreatedEvent;
+import com.rjtmahinay.flight.model.Flight;
+import com.rjtmahinay.flight.repository.FlightRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RouteIndexTests {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2025, 9, 15, 0, 0);
+
+    private FlightRepository flightRepository;
+    private RouteIndex routeIndex;
+
+    @BeforeEach
+    void setUp() {
+        flightRepository = mock(FlightRepository.class);
+        routeIndex = new RouteIndex(flightRepository, new RouteIndexProperties(), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void fallsThroughUntilLoaded() {
+        assertThat(routeIndex.find("JFK", "LAX", DAY.toLocalDate())).isNull();
+    }
+
+    @Test
+    void servesSortedBucketsAndFollowsChanges() {
+        Flight late = flight(1L, "JFK", "LAX", DAY.plusHours(18));
+        Flight early = flight(2L, "JFK", "LAX", DAY.plusHours(6));
+        when(flightRepository.findAll()).thenReturn(Flux.just(late, early));
+
+        StepVerifier.create(routeIndex.reload()).expectNext(2).verifyComplete();
+        assertThat(routeIndex.find("JFK", "LAX", DAY.toLocalDate())).containsExactly(early, late);
+
+        Flight moved = flight(1L, "JFK", "SFO", DAY.plusHours(18));
+        routeIndex.onFlightChanged(new FlightChangedEvent(FlightChangedEvent.Type.UPDATED, moved));
+        routeIndex.settled().block();
+        assertThat(routeIndex.find("JFK", "LAX", DAY.toLocalDate())).containsExactly(early);
+        assertThat(routeIndex.find("JFK", "SFO", DAY.toLocalDate())).containsExactly(moved);
+
+        routeIndex.onFlightChanged(new FlightChangedEvent(FlightChangedEvent.Type.DELETED, early));
+        routeIndex.settled().block();
+        assertThat(routeIndex.find("JFK", "LAX", LocalDate.of(2025, 9, 15))).isEmpty();
+    }
+
+    @Test
+    void keepsDepartureOrderAcrossSingleFlightChanges() {
+        Flight first = flight(1L, "JFK", "LAX", DAY.plusHours(6));
+        Flight second = flight(2L, "JFK", "LAX", DAY.plusHours(9));
+        Flight third = flight(3L, "JFK", "LAX", DAY.plusHours(12));
+        when(flightRepository.findAll()).thenReturn(Flux.just(third, first, second));
+        routeIndex.reload().block();
+
+        Flight later = flight(1L, "JFK", "LAX", DAY.plusHours(10));
+        Flight sameTime = flight(4L, "JFK", "LAX", DAY.plusHours(9));
+        Flight fewerSeats = flight(3L, "JFK", "LAX", DAY.plusHours(12));
+        fewerSeats.setAvailableSeats(12);
+        routeIndex.onFlightChanged(new FlightChangedEvent(FlightChangedEvent.Type.UPDATED, later));
+        routeIndex.onFlightChanged(new FlightChangedEvent(FlightChangedEvent.Type.CREATED, sameTime));
+        routeIndex.onFlightChanged(new FlightChangedEvent(FlightChangedEvent.Type.UPDATED, fewerSeats));
+        routeIndex.settled().block();
+
+        assertThat(routeIndex.find("JFK", "LAX", DAY.toLocalDate())).containsExactly(second, sameTime, later, fewerSeats);
+        assertThat(routeIndex.departures("JFK", "LAX").flights()).containsExactly(second, sameTime, later, fewerSeats);
+        assertThat(routeIndex.departuresFrom("JFK").get(3).getAvailableSeats()).isEqualTo(12);
+    }
+
+    @Test
+    void mergesCreatedBatchesIntoDepartureOrder() {
+        Flight first = flight(1L, "JFK", "LAX", DAY.plusHours(6));
+        Flight second = flight(2L, "JFK", "LAX", DAY.plusHours(12));
+        when(flightRepository.findAll()).thenReturn(Flux.just(second, first));
+        routeIndex.reload().block();
+
+        Flight latest = flight(3L, "JFK", "LAX", DAY.plusHours(20));
+        Flight earliest = flight(4L, "JFK", "LAX", DAY.plusHours(5));
+        Flight tied = flight(5L, "JFK", "LAX", DAY.plusHours(12));
+        Flight elsewhere = flight(6L, "JFK", "SFO", DAY.plusHours(8));
+        routeIndex.onFlightsCreated(new FlightsCreatedEvent(List.of(latest, earliest, tied, elsewhere)));
+        routeIndex.settled().block();
+
+        assertThat(routeIndex.find("JFK", "LAX", DAY.toLocalDate())).containsExactly(earliest, first, second, tied, latest);
+        assertThat(routeIndex.find("JFK", "SFO", DAY.toLocalDate())).containsExactly(elsewhere);
+        assertThat(routeIndex.departuresFrom("JFK").flights())
+                .containsExactly(earliest, first, elsewhere, second, tied, latest);
+    }
+
+    @Test
+    void reportsConsistencyAgainstDatabase() {
+        Flight flight = flight(1L, "JFK", "LAX", DAY.plusHours(6));
+        when(flightRepository.findAll()).thenReturn(Flux.just(flight));
+        routeIndex.reload().block();
+
+        StepVerifier.create(routeIndex.verify())
+                .assertNext(report -> assertThat(report).containsEntry("consistent", true))
+                .verifyComplete();
+
+        routeIndex.onFlightChanged(new FlightChangedEvent(FlightChangedEvent.Type.DELETED, flight));
+        routeIndex.settled().block();
+        StepVerifier.create(routeIndex.verify())
+                .assertNext(report -> assertThat(report).containsEntry("consistent", false))
+                .verifyComplete();
+    }
+
+    private static Flight flight(Long id, String origin, String destination, LocalDateTime departure) {
+        return Flight.builder()
+                .id(id)
+                .airlineName("United Airlines")
+                .flightNumber("UA" + id)
+                .origin(origin)
+                .destination(destination)
+                .departureTime(departure)
+                .arrivalTime(departure.plusHours(5))
+                .availableSeats(100)
+                .price(300.0)
+                .status("SCHEDULED")
+                .build();
+    }
+}
@@ -0,0 +1,57 @@
+package com.rjtmahinay.flight.metrics;
+
+import com.rjtmahinay.flight.model.Flight;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// A real server, so Reactor Netty's own meters are recorded too
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability(tracing = false)
+class PipelineMetricsTests {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    void serviceAndRepositoryTimingsAreScraped() {
+        webTestClient.post().uri("/api/flights")
+                .bodyValue(Flight.builder()
+                        .airlineName("Alaska Airlines")
+                        .flightNumber("AS10")
+                        .origin("SEA")
+                        .destination("ANC")
+                        .departureTime(LocalDateTime.of(2030, 2, 1, 7, 0))
+                        .arrivalTime(LocalDateTime.of(2030, 2, 1, 10, 30))
+                        .availableSeats(90)
+                        .price(210.0)
+                        .status("SCHEDULED")
+                        .build())
+                .exchange()
+                .expectStatus().isCreated();
+        webTestClient.get().uri("/api/flights?size=5").exchange().expectStatus().isOk();
+        webTestClient.get().uri("/api/flights/{id}", 999_999).exchange().expectStatus().isNotFound();
+
+        String scrape = webTestClient.get().uri("/actuator/prometheus")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(scrape)
+                .contains("flight_service_calls_seconds_bucket{endpoint=\"GET /api/flights\",method=\"FlightService.getFlightsPage\",outcome=\"success\"")
+                .contains("flight_service_calls_seconds_count{endpoint=\"GET /api/flights/{id}\",method=\"FlightService.getFlightById\",outcome=\"error\"}")
+                .contains("flight_repository_queries_seconds_count{endpoint=\"GET /api/flights\",method=\"FlightRepository.findPageAfter\",outcome=\"success\"}")
+                .contains("flight_repository_rows_total{endpoint=\"GET /api/flights\",method=\"FlightRepository.findPageAfter\"}")
+                .contains("flight_pipelines_active{layer=\"repository\"}")
+                .contains("reactor_netty_eventloop_pending_tasks")
+                .contains("reactor_scheduler_executor_seconds_count{name=\"parallel\"}");
+    }
+}
@@ -0,0 +1,110 @@
+package com.rjtmahinay.flight.offload;
+
+import com.rjtmahinay.flight.dto.FlightStatusRequest;
+import com.rjtmahinay.flight.exception.OffloadCapacityExceededException;
+import com.rjtmahinay.flight.model.Flight;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.blockhound.BlockingOperationError;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// A real server, so requests are handled on Netty event loops, which BlockHound watches
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class OffloaderTests {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    void heavyEndpointsDoNotBlockEventLoops() {
+        webTestClient.post().uri("/api/flights")
+                .bodyValue(Flight.builder()
+                        .airlineName("Delta Air Lines")
+                        .flightNumber("DL404")
+                        .origin("ATL")
+                        .destination("BOS")
+                        .departureTime(LocalDateTime.of(2030, 3, 1, 9, 0))
+                        .arrivalTime(LocalDateTime.of(2030, 3, 1, 11, 30))
+                        .availableSeats(120)
+                        .price(180.0)
+                        .status("SCHEDULED")
+                        .build())
+                .exchange()
+                .expectStatus().isCreated();
+
+        // BlockHound fails blocking calls on event loops, so those requests would not succeed
+        webTestClient.post().uri("/api/flights/status")
+                .bodyValue(new FlightStatusRequest("DL404", LocalDateTime.of(2030, 3, 1, 0, 0)))
+                .exchange()
+                .expectStatus().isOk();
+        webTestClient.get().uri("/api/flights?size=50")
+                .exchange()
+                .expectStatus().isOk();
+
+        // The agent is live: a sleep on a non-blocking thread is caught
+        StepVerifier.create(Mono.delay(Duration.ofMillis(1)).doOnNext(tick -> sleepQuietly()))
+                .expectError(BlockingOperationError.class)
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void runsOnTheEndpointSchedulerAndRejectsBeyondItsQueue() throws InterruptedException {
+        OffloadProperties properties = new OffloadProperties();
+        properties.setDefaultMaxConcurrency(1);
+        properties.setQueueCapacity(1);
+        Offloader offloader = new Offloader(properties, new SimpleMeterRegistry());
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<String> busyThread = new AtomicReference<>();
+        try {
+            // Occupies the only status worker, then fills the only queue slot
+            Mono.just("busy").transform(offloader.on("status")).subscribe(value -> {
+                busyThread.set(Thread.currentThread().getName());
+                running.countDown();
+                awaitQuietly(release);
+            });
+            assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+            Mono.just("queued").transform(offloader.on("status")).subscribe();
+
+            StepVerifier.create(Mono.just("rejected").transform(offloader.on("status")))
+                    .expectError(OffloadCapacityExceededException.class)
+                    .verify(Duration.ofSeconds(5));
+            assertThat(busyThread.get()).startsWith("offload-status");
+            assertThat(Mono.just("other").transform(offloader.on("flights"))
+                    .map(value -> Thread.currentThread().getName())
+                    .block(Duration.ofSeconds(5)))
+                    .startsWith("offload-flights");
+        } finally {
+            release.countDown();
+            offloader.stop();
+        }
+    }
+
+    private static void sleepQuietly() {
+        try {
+            Thread.sleep(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
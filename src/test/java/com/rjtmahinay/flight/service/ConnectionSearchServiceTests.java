@@ -0,0 +1,81 @@
+package com.rjtmahinay.flight.service;
+
+import com.rjtmahinay.flight.index.RouteIndex;
+import com.rjtmahinay.flight.index.RouteIndexProperties;
+import com.rjtmahinay.flight.model.Flight;
+import com.rjtmahinay.flight.repository.FlightRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ConnectionSearchServiceTests {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 9, 15);
+
+    private final Flight direct = flight(1L, "JFK", "SFO", 8, 0, 14, 30);
+    private final Flight toOrd = flight(2L, "JFK", "ORD", 6, 0, 8, 0);
+    private final Flight ordToSfo = flight(3L, "ORD", "SFO", 9, 0, 12, 0);
+    private final Flight tightConnection = flight(4L, "ORD", "SFO", 8, 20, 11, 0);
+    private final Flight toDen = flight(5L, "ORD", "DEN", 9, 30, 11, 0);
+    private final Flight denToSfo = flight(6L, "DEN", "SFO", 12, 0, 14, 0);
+
+    private ConnectionSearchService connectionSearchService;
+
+    @BeforeEach
+    void setUp() {
+        FlightRepository flightRepository = mock(FlightRepository.class);
+        when(flightRepository.findAll()).thenReturn(Flux.just(direct, toOrd, ordToSfo, tightConnection, toDen, denToSfo));
+        RouteIndex routeIndex = new RouteIndex(flightRepository, new RouteIndexProperties(), new SimpleMeterRegistry());
+        routeIndex.reload().block();
+        connectionSearchService = new ConnectionSearchService(routeIndex);
+    }
+
+    @Test
+    void ranksItinerariesByTravelTimeWithinConnectionWindows() {
+        List<ConnectionSearchService.Itinerary> itineraries = connectionSearchService.search(
+                "JFK", "SFO", DAY, 2, Duration.ofMinutes(45), Duration.ofHours(6), 10);
+
+        assertThat(itineraries).extracting(ConnectionSearchService.Itinerary::legs).containsExactly(
+                List.of(toOrd, ordToSfo),
+                List.of(direct),
+                List.of(toOrd, toDen, denToSfo));
+        assertThat(itineraries.get(0).travelSeconds()).isEqualTo(Duration.ofHours(6).toSeconds());
+        assertThat(itineraries.get(0).price()).isEqualTo(200.0);
+    }
+
+    @Test
+    void respectsStopAndResultLimits() {
+        assertThat(connectionSearchService.search("JFK", "SFO", DAY, 0, Duration.ofMinutes(45), Duration.ofHours(6), 10))
+                .extracting(ConnectionSearchService.Itinerary::legs)
+                .containsExactly(List.of(direct));
+        assertThat(connectionSearchService.search("JFK", "SFO", DAY, 2, Duration.ofMinutes(45), Duration.ofHours(6), 2))
+                .hasSize(2);
+    }
+
+    private static Flight flight(Long id, String origin, String destination,
+                                 int departHour, int departMinute, int arriveHour, int arriveMinute) {
+        LocalDateTime midnight = DAY.atStartOfDay();
+        return Flight.builder()
+                .id(id)
+                .airlineName("United Airlines")
+                .flightNumber("UA" + id)
+                .origin(origin)
+                .destination(destination)
+                .departureTime(midnight.plusHours(departHour).plusMinutes(departMinute))
+                .arrivalTime(midnight.plusHours(arriveHour).plusMinutes(arriveMinute))
+                .availableSeats(100)
+                .price(100.0)
+                .status("SCHEDULED")
+                .build();
+    }
+}
@@ -0,0 +1,16 @@
+package com.rjtmahinay.flight.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FlightStatusProjectionTests {
+
+    @Test
+    void negativeDurationsKeepTheirSign() {
+        assertThat(FlightStatusProjection.duration(95)).isEqualTo("1h 35m");
+        assertThat(FlightStatusProjection.duration(-30)).isEqualTo("-0h 30m");
+        assertThat(FlightStatusProjection.duration(-65)).isEqualTo("-1h 05m");
+        assertThat(FlightStatusProjection.duration(3 * 24 * 60 + 7)).isEqualTo("72h 07m");
+    }
+}
@@ -0,0 +1,112 @@
+package com.rjtmahinay.flight.service;
+
+import com.rjtmahinay.flight.config.CoalescingProperties;
+import com.rjtmahinay.flight.event.FlightChangedEvent;
+import com.rjtmahinay.flight.model.Flight;
+import com.rjtmahinay.flight.service.QueryCoalescer.RouteQuery;
+import com.rjtmahinay.flight.service.QueryCoalescer.StatusQuery;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryCoalescerTests {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2030, 4, 2, 9, 30);
+
+    private final AtomicInteger executions = new AtomicInteger();
+    private SimpleMeterRegistry registry;
+    private QueryCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        CoalescingProperties properties = new CoalescingProperties();
+        properties.setTtl(Duration.ofMinutes(1));
+        registry = new SimpleMeterRegistry();
+        coalescer = new QueryCoalescer(properties, registry);
+    }
+
+    @Test
+    void concurrentIdenticalQueriesShareOneExecution() {
+        Flux<Integer> query = Flux.defer(() -> {
+            executions.incrementAndGet();
+            return Flux.just(1, 2, 3).delayElements(Duration.ofMillis(50));
+        });
+
+        Flux.range(0, 100)
+                .flatMap(i -> coalescer.execute("route", "JFK-LAX", () -> query).collectList())
+                .doOnNext(result -> assertThat(result).containsExactly(1, 2, 3))
+                .blockLast();
+
+        assertThat(executions).hasValue(1);
+        assertThat(registry.get("flight.coalescing.requests").tag("role", "follower").counter().count()).isEqualTo(99);
+    }
+
+    @Test
+    void expiredResultsAreSweptBelowMaxEntries() throws InterruptedException {
+        CoalescingProperties properties = new CoalescingProperties();
+        properties.setTtl(Duration.ofMillis(20));
+        SimpleMeterRegistry sweepingRegistry = new SimpleMeterRegistry();
+        QueryCoalescer sweeping = new QueryCoalescer(properties, sweepingRegistry);
+        sweeping.start();
+        try {
+            sweeping.execute(QueryCoalescer.ROUTE, new RouteQuery("JFK", "LAX", DAY.toLocalDate()),
+                    () -> Flux.just(1, 2, 3)).blockLast();
+            assertThat(sweepingRegistry.get("flight.coalescing.size").gauge().value()).isEqualTo(1);
+            Thread.sleep(200);
+            assertThat(sweepingRegistry.get("flight.coalescing.size").gauge().value()).isZero();
+        } finally {
+            sweeping.stop();
+        }
+    }
+
+    @Test
+    void flightChangesAndFailuresAreNotServedAgain() {
+        RouteQuery route = new RouteQuery("JFK", "LAX", DAY.toLocalDate());
+        coalescer.execute(QueryCoalescer.ROUTE, route, () -> Flux.defer(() -> Flux.just(executions.incrementAndGet()))).blockLast();
+        coalescer.onFlightChanged(new FlightChangedEvent(FlightChangedEvent.Type.UPDATED, flight("UA1", "JFK", "LAX")));
+        coalescer.execute(QueryCoalescer.ROUTE, route, () -> Flux.defer(() -> Flux.just(executions.incrementAndGet()))).blockLast();
+        assertThat(executions).hasValue(2);
+
+        coalescer.execute("status", "UA1", () -> Flux.<Integer>error(new IllegalStateException()))
+                .onErrorResume(e -> Flux.empty()).blockLast();
+        assertThat(coalescer.execute("status", "UA1", () -> Flux.just(7)).blockLast()).isEqualTo(7);
+    }
+
+    @Test
+    void unrelatedFlightChangesKeepResultsCached() {
+        RouteQuery route = new RouteQuery("JFK", "LAX", DAY.toLocalDate());
+        StatusQuery status = new StatusQuery("UA1", DAY.toLocalDate());
+        Flux<Integer> query = Flux.defer(() -> Flux.just(executions.incrementAndGet()));
+        coalescer.execute(QueryCoalescer.ROUTE, route, () -> query).blockLast();
+        coalescer.execute(QueryCoalescer.STATUS, status, () -> query).blockLast();
+
+        coalescer.onFlightChanged(new FlightChangedEvent(FlightChangedEvent.Type.UPDATED, flight("DL5", "ATL", "BOS"), true));
+        coalescer.execute(QueryCoalescer.ROUTE, route, () -> query).blockLast();
+        coalescer.execute(QueryCoalescer.STATUS, status, () -> query).blockLast();
+        assertThat(executions).hasValue(2);
+
+        // A flight moved off the route evicts the route it left
+        Flight moved = flight("UA7", "ATL", "BOS");
+        coalescer.onFlightChanged(new FlightChangedEvent(FlightChangedEvent.Type.UPDATED, moved, false,
+                flight("UA7", "JFK", "LAX")));
+        coalescer.execute(QueryCoalescer.ROUTE, route, () -> query).blockLast();
+        coalescer.execute(QueryCoalescer.STATUS, status, () -> query).blockLast();
+        assertThat(executions).hasValue(3);
+    }
+
+    private static Flight flight(String flightNumber, String origin, String destination) {
+        return Flight.builder()
+                .flightNumber(flightNumber)
+                .origin(origin)
+                .destination(destination)
+                .departureTime(DAY)
+                .build();
+    }
+}
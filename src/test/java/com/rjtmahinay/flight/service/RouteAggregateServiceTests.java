@@ -0,0 +1,90 @@
+package com.rjtmahinay.flight.service;
+
+import com.rjtmahinay.flight.dto.RouteAggregate;
+import com.rjtmahinay.flight.index.RouteAggregates;
+import com.rjtmahinay.flight.index.RouteIndex;
+import com.rjtmahinay.flight.model.Flight;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@AutoConfigureWebTestClient
+class RouteAggregateServiceTests {
+
+    private static final LocalDate DAY = LocalDate.of(2031, 5, 3);
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private RouteAggregateService routeAggregateService;
+
+    @Autowired
+    private RouteAggregates routeAggregates;
+
+    @Autowired
+    private RouteIndex routeIndex;
+
+    @Test
+    void indexAndDatabaseAgreeAndFollowWrites() {
+        routeIndex.reload().block();
+        Flight morning = create("AS2201", DAY.atTime(7, 0), 120, 149.0);
+        create("AS2203", DAY.atTime(19, 30), 80, 210.5);
+        create("AS2205", DAY.plusDays(1).atTime(7, 0), 100, 99.0);
+
+        RouteAggregate expected = new RouteAggregate("PDX", "BOI", DAY, 2, 149.0, 179.75, 200,
+                Map.of("SCHEDULED", 2L));
+        assertThat(routeAggregates.scan("PDX", "BOI", DAY, DAY)).containsExactly(expected);
+        assertThat(routeAggregateService.fromDatabase("PDX", "BOI", DAY, DAY).collectList().block())
+                .containsExactly(expected);
+
+        morning.setStatus("DELAYED");
+        webTestClient.put().uri("/api/flights/{id}", morning.getId())
+                .bodyValue(morning)
+                .exchange()
+                .expectStatus().isOk();
+
+        List<RouteAggregate> aggregates = webTestClient.get()
+                .uri("/api/flights/aggregates?origin=PDX&destination=BOI&from={from}&to={to}", DAY, DAY.plusDays(1))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(RouteAggregate.class)
+                .returnResult()
+                .getResponseBody();
+        assertThat(aggregates).extracting(RouteAggregate::getDate).containsExactly(DAY, DAY.plusDays(1));
+        assertThat(aggregates.get(0).getStatusCounts()).containsExactlyInAnyOrderEntriesOf(
+                Map.of("DELAYED", 1L, "SCHEDULED", 1L));
+        assertThat(routeAggregateService.fromDatabase("PDX", "BOI", DAY, DAY.plusDays(1)).collectList().block())
+                .isEqualTo(aggregates);
+    }
+
+    private Flight create(String flightNumber, LocalDateTime departure, int seats, double price) {
+        return webTestClient.post().uri("/api/flights")
+                .bodyValue(Flight.builder()
+                        .airlineName("Alaska Airlines")
+                        .flightNumber(flightNumber)
+                        .origin("PDX")
+                        .destination("BOI")
+                        .departureTime(departure)
+                        .arrivalTime(departure.plusMinutes(75))
+                        .availableSeats(seats)
+                        .price(price)
+                        .status("SCHEDULED")
+                        .build())
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(Flight.class)
+                .returnResult()
+                .getResponseBody();
+    }
+}
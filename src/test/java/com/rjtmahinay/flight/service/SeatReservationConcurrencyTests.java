@@ -0,0 +1,108 @@
+package com.rjtmahinay.flight.service;
+
+import com.rjtmahinay.flight.availability.AvailabilityCache;
+import com.rjtmahinay.flight.exception.SeatsUnavailableException;
+import com.rjtmahinay.flight.model.Flight;
+import com.rjtmahinay.flight.repository.FlightRepository;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.NestedTestConfiguration;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Hammers a single flight with far more concurrent reservations than it has seats, through the
+ * conditional UPDATE here and through the write-behind seat counters in {@link WrittenBehind}.
+ */
+@SpringBootTest(properties = "flight.availability.write-behind=false")
+class SeatReservationConcurrencyTests {
+
+    private static final int SEATS = 500;
+    private static final int REQUESTS = 2_000;
+
+    @Autowired
+    private FlightService flightService;
+
+    @Autowired
+    private FlightRepository flightRepository;
+
+    @Test
+    void concurrentReservationsNeverOversell() {
+        Flight flight = save(flightRepository);
+
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        reserveConcurrently(flightService, flight, reserved, rejected);
+
+        assertThat(reserved.get()).isEqualTo(SEATS);
+        assertThat(rejected.get()).isEqualTo(REQUESTS - SEATS);
+        assertThat(flightRepository.findById(flight.getId()).block().getAvailableSeats()).isZero();
+    }
+
+    @Nested
+    @NestedTestConfiguration(NestedTestConfiguration.EnclosingConfiguration.OVERRIDE)
+    @SpringBootTest
+    class WrittenBehind {
+
+        @Autowired
+        private FlightService flightService;
+
+        @Autowired
+        private FlightRepository flightRepository;
+
+        @Autowired
+        private AvailabilityCache availabilityCache;
+
+        @Test
+        void concurrentReservationsNeverOversell() {
+            Flight flight = save(flightRepository);
+
+            AtomicInteger reserved = new AtomicInteger();
+            AtomicInteger rejected = new AtomicInteger();
+            reserveConcurrently(flightService, flight, reserved, rejected);
+
+            assertThat(reserved.get()).isEqualTo(SEATS);
+            assertThat(rejected.get()).isEqualTo(REQUESTS - SEATS);
+            // Reservations are written behind; push them to the database before reading it
+            availabilityCache.flush().block();
+            assertThat(flightRepository.findById(flight.getId()).block().getAvailableSeats()).isZero();
+        }
+    }
+
+    private static Flight save(FlightRepository flightRepository) {
+        return flightRepository.save(Flight.builder()
+                .airlineName("United Airlines")
+                .flightNumber("UA999")
+                .origin("JFK")
+                .destination("LAX")
+                .departureTime(LocalDateTime.now().plusDays(5))
+                .arrivalTime(LocalDateTime.now().plusDays(5).plusHours(6))
+                .availableSeats(SEATS)
+                .price(350.0)
+                .status("SCHEDULED")
+                .build()).block();
+    }
+
+    private static void reserveConcurrently(FlightService flightService, Flight flight,
+                                            AtomicInteger reserved, AtomicInteger rejected) {
+        Flux.range(0, REQUESTS)
+                .parallel(16)
+                .runOn(Schedulers.parallel())
+                .flatMap(i -> flightService.reserveSeats(flight.getId(), 1)
+                        .doOnNext(f -> reserved.incrementAndGet())
+                        .onErrorResume(SeatsUnavailableException.class, e -> {
+                            rejected.incrementAndGet();
+                            return Mono.empty();
+                        }))
+                .sequential()
+                .blockLast();
+    }
+}
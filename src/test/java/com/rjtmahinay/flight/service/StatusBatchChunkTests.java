@@ -0,0 +1,27 @@
+package com.rjtmahinay.flight.service;
+
+import com.rjtmahinay.flight.service.QueryCoalescer.StatusQuery;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StatusBatchChunkTests {
+
+    private static final LocalDate DAY = LocalDate.of(2030, 6, 1);
+
+    @Test
+    void chunksNeverSpanMoreDaysThanAllowed() {
+        List<StatusQuery> queries = List.of(
+                new StatusQuery("HA10", DAY), new StatusQuery("HA12", DAY),
+                new StatusQuery("HA10", DAY.plusDays(1)),
+                new StatusQuery("HA10", DAY.plusDays(30)), new StatusQuery("HA12", DAY.plusDays(30)),
+                new StatusQuery("HA14", DAY.plusDays(30)));
+
+        assertThat(FlightService.chunk(queries, 100, 1)).extracting(List::size).containsExactly(2, 1, 3);
+        assertThat(FlightService.chunk(queries, 100, 2)).extracting(List::size).containsExactly(3, 3);
+        assertThat(FlightService.chunk(queries, 2, 2)).extracting(List::size).containsExactly(2, 1, 2, 1);
+    }
+}
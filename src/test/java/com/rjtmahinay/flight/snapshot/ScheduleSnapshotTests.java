@@ -0,0 +1,85 @@
+package com.rjtmahinay.flight.snapshot;
+
+import com.rjtmahinay.flight.event.FlightChangedEvent;
+import com.rjtmahinay.flight.index.RouteIndex;
+import com.rjtmahinay.flight.index.RouteIndexProperties;
+import com.rjtmahinay.flight.model.Flight;
+import com.rjtmahinay.flight.repository.FlightRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ScheduleSnapshotTests {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2025, 9, 15, 0, 0);
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void findsRouteDaysInDepartureOrder() throws IOException {
+        Flight late = flight(1L, "JFK", "LAX", DAY.plusHours(18));
+        Flight early = flight(2L, "JFK", "LAX", DAY.plusHours(6));
+        Flight nextDay = flight(3L, "JFK", "LAX", DAY.plusDays(1));
+        Flight otherRoute = flight(4L, "LAX", "JFK", DAY.plusHours(9));
+        otherRoute.setUpdatedAt(null);
+        Path path = directory.resolve("flights.snapshot");
+
+        ScheduleSnapshot.write(path, List.of(late, nextDay, otherRoute, early), Instant.parse("2025-09-14T12:00:00Z"));
+        ScheduleSnapshot snapshot = ScheduleSnapshot.open(path);
+
+        assertThat(snapshot.size()).isEqualTo(4);
+        assertThat(snapshot.writtenAt()).isEqualTo(Instant.parse("2025-09-14T12:00:00Z"));
+        assertThat(snapshot.find("JFK", "LAX", DAY.toLocalDate())).containsExactly(early, late);
+        assertThat(snapshot.find("LAX", "JFK", DAY.toLocalDate())).containsExactly(otherRoute);
+        assertThat(snapshot.find("JFK", "SFO", DAY.toLocalDate())).isEmpty();
+        assertThat(snapshot.find("JFK", "LAX", DAY.toLocalDate().minusDays(1))).isEmpty();
+    }
+
+    @Test
+    void servesUntilTheRouteIndexLoadsOrAFlightChanges() throws IOException {
+        Flight flight = flight(1L, "JFK", "LAX", DAY.plusHours(6));
+        SnapshotProperties properties = new SnapshotProperties();
+        properties.setEnabled(true);
+        properties.setPath(directory.resolve("flights.snapshot"));
+        properties.setMaxAge(Duration.ofDays(365_000));
+        ScheduleSnapshot.write(properties.getPath(), List.of(flight), Instant.now());
+
+        RouteIndex routeIndex = new RouteIndex(mock(FlightRepository.class), new RouteIndexProperties(),
+                new SimpleMeterRegistry());
+        ScheduleSnapshotStore store = new ScheduleSnapshotStore(mock(FlightRepository.class), routeIndex,
+                new RouteIndexProperties(), properties, new SimpleMeterRegistry());
+        store.start();
+
+        assertThat(store.find("JFK", "LAX", DAY.toLocalDate())).containsExactly(flight);
+        store.onFlightChanged(new FlightChangedEvent(FlightChangedEvent.Type.UPDATED, flight));
+        assertThat(store.find("JFK", "LAX", DAY.toLocalDate())).isNull();
+        assertThat(store.current().size()).isEqualTo(1);
+    }
+
+    private static Flight flight(Long id, String origin, String destination, LocalDateTime departure) {
+        return Flight.builder()
+                .id(id)
+                .airlineName("Delta")
+                .flightNumber("DL" + id)
+                .origin(origin)
+                .destination(destination)
+                .departureTime(departure)
+                .arrivalTime(departure.plusHours(5))
+                .availableSeats(100)
+                .price(299.99)
+                .status("SCHEDULED")
+                .updatedAt(LocalDateTime.of(2025, 9, 1, 10, 15, 30, 123_456_000))
+                .build();
+    }
+}